@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# Measures startup of one variant of the app, the same way every time, so variants can be compared.
+#
+#   scripts/measure-startup.sh <label> <command that starts the app...>
+#
+# For each of RUNS runs (default 5) it starts the command, then records
+#   ready_ms      launch → first 200 from /public/health-check (what a load balancer waits for)
+#   first_req_ms  latency of that first successful request (DispatcherServlet init, security chain, ...)
+#   second_req_ms latency of the next request, for comparison with the warm path
+# and prints the median of each. The app needs MONGO_URI, MONGO_DB and JWT_SECRET in the environment.
+#
+# Examples:
+#   scripts/measure-startup.sh jar        java -jar target/journalApp-0.0.1-SNAPSHOT.jar
+#   scripts/measure-startup.sh aot        java -Dspring.aot.enabled=true -jar target/journalApp-0.0.1-SNAPSHOT.jar
+#   scripts/measure-startup.sh native     target/journalApp
+#   scripts/measure-startup.sh docker-cds docker run --rm -p 8080:8080 -e MONGO_URI -e MONGO_DB -e JWT_SECRET journal-app
+#   scripts/measure-startup.sh docker     docker run --rm -p 8080:8080 -e JAVA_OPTS=-Xshare:off -e MONGO_URI -e MONGO_DB -e JWT_SECRET journal-app
+set -euo pipefail
+
+if [ $# -lt 2 ]; then
+    echo "usage: $0 <label> <command...>" >&2
+    exit 1
+fi
+label=$1
+shift
+
+RUNS=${RUNS:-5}
+URL=${URL:-http://localhost:8080/public/health-check}
+TIMEOUT_S=${TIMEOUT_S:-120}
+
+now_ms() { date +%s%3N; }
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+# curl reports time_total in seconds; print it in whole milliseconds
+request_ms() { curl -s -o /dev/null -w '%{http_code} %{time_total}' "$URL" | awk '{ printf "%s %d\n", $1, $2 * 1000 }'; }
+
+ready=(); first=(); second=()
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    "$@" > "/tmp/measure-startup-$label-$run.log" 2>&1 &
+    pid=$!
+
+    code=000
+    while [ "$code" != "200" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "run $run: the app exited, see /tmp/measure-startup-$label-$run.log" >&2
+            exit 1
+        fi
+        if [ $(( $(now_ms) - start )) -gt $(( TIMEOUT_S * 1000 )) ]; then
+            echo "run $run: not ready after ${TIMEOUT_S}s" >&2
+            kill "$pid"
+            exit 1
+        fi
+        read -r code latency < <(request_ms || echo "000 0")
+        [ "$code" = "200" ] || sleep 0.01
+    done
+    ready+=($(( $(now_ms) - start )))
+    first+=("$latency")
+    read -r _ latency < <(request_ms)
+    second+=("$latency")
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    sleep 1 # let the port be released before the next run
+done
+
+printf '%-12s runs=%d  ready_ms=%s  first_req_ms=%s  second_req_ms=%s\n' "$label" "$RUNS" \
+    "$(printf '%s\n' "${ready[@]}" | median)" \
+    "$(printf '%s\n' "${first[@]}" | median)" \
+    "$(printf '%s\n' "${second[@]}" | median)"
@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -14,6 +15,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 // have @Transactional annotation, which will be having all the DB operations related to that method, and they will all be treated
 // like one operation, if any one of them fails, all will be rolled back(We are achieving ATOMICITY). All this work is handled
 //by PlatformTransactionManager(which is an interface, so it has an implementation named MongoTransactionManager).
+@EnableScheduling // Runs our @Scheduled background jobs (e.g. refreshing the token revocation filter).
 public class JournalApplication {
     /* Rest -> Representational State Transfer
     API -> Application Programming Interface
@@ -0,0 +1,12 @@
+package com.example.journalapp.audit;
+
+// What an audit record is about. The name is what ends up in the file / collection.
+public enum AuditAction {
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    ADMIN_CREATED,
+    JOURNAL_CREATED,
+    JOURNAL_UPDATED,
+    JOURNAL_DELETED,
+    JOURNAL_IMPORTED
+}
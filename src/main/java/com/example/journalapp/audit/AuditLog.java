@@ -0,0 +1,122 @@
+package com.example.journalapp.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Audit trail of logins, admin creation and journal writes.
+Request threads only put the record into an AuditRingBuffer (no lock, no allocation, no I/O) and move on; one
+background thread drains up to audit.batch-size records at a time into the AuditSink and ends the batch there
+(one write per batch). When the ring is full the record is dropped and counted in audit.dropped, so a slow disk or
+an unreachable Mongo shows up in the metrics, never in request latency.
+An idle writer parks until record() wakes it (only when it finds the writer parked, so a busy ring costs no unpark)
+or IDLE_PARK_NANOS pass, which is what lets the sink's time-based work in idle() run while nothing is recorded.
+ */
+@Component
+@Slf4j
+public class AuditLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AuditRingBuffer ring;
+    private final AuditSink sink;
+    private final int batchSize;
+    private final Counter writeFailures;
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    public AuditLog(AuditSink sink,
+                    MeterRegistry meterRegistry,
+                    @Value("${audit.buffer-size:65536}") int bufferSize,
+                    @Value("${audit.batch-size:1024}") int batchSize) {
+        this.ring = new AuditRingBuffer(bufferSize);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        FunctionCounter.builder("audit.dropped", ring, AuditRingBuffer::dropped).register(meterRegistry);
+        Gauge.builder("audit.backlog", ring, AuditRingBuffer::size).register(meterRegistry);
+        this.writeFailures = Counter.builder("audit.write.failures").register(meterRegistry);
+        this.consumer = new Thread(this::consume, "audit-writer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public void loginSucceeded(String username, String remoteAddress) {
+        record(AuditAction.LOGIN_SUCCEEDED, username, null, remoteAddress);
+    }
+
+    public void loginFailed(String username, String remoteAddress) {
+        record(AuditAction.LOGIN_FAILED, username, null, remoteAddress);
+    }
+
+    public void adminCreated(String byAdmin, String newAdmin) {
+        record(AuditAction.ADMIN_CREATED, byAdmin, newAdmin, null);
+    }
+
+    public void journalChanged(AuditAction action, String username, String entryId) {
+        record(action, username, entryId, null);
+    }
+
+    // false when the record was dropped (buffer full or shutting down)
+    public boolean record(AuditAction action, String actor, String target, String detail) {
+        if (!running || !ring.publish(System.currentTimeMillis(), action, actor, target, detail)) {
+            return false;
+        }
+        if (parked) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    public long dropped() {
+        return ring.dropped();
+    }
+
+    // Stops accepting records, lets the writer drain what is buffered and closes the sink.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void consume() {
+        while (running || ring.size() > 0) {
+            int drained = ring.drain(sink::write, batchSize);
+            try {
+                if (drained > 0) {
+                    sink.endBatch();
+                }
+                else {
+                    sink.idle();
+                    // parked is written before the ring is checked and read by record() after publishing, so either
+                    // we see the new record here or record() sees parked and unparks us
+                    parked = true;
+                    if (running && ring.size() == 0) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                    parked = false;
+                }
+            }
+            catch (Exception e) {
+                writeFailures.increment();
+                log.warn("Could not write {} audit records: {}", drained, e.getMessage());
+            }
+        }
+        try {
+            sink.close();
+        }
+        catch (Exception e) {
+            log.warn("Could not close the audit sink: {}", e.getMessage());
+        }
+    }
+}
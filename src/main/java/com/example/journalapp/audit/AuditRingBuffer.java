@@ -0,0 +1,123 @@
+package com.example.journalapp.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Bounded multi-producer / single-consumer queue of audit records, in the style of a Disruptor ring.
+All slots are allocated up front and reused, so publishing allocates nothing and takes no lock:
+    producer  claims the next sequence with a CAS on `head` (fails fast if the ring is full), fills the slot of that
+              sequence, then publishes it by a volatile write of the sequence into the slot
+    consumer  walks the slots in sequence order while their published sequence matches, hands them to the handler,
+              and only then moves `consumed` forward, which frees the slots for the producers
+A full ring drops the record and counts it (dropped()): auditing must never make a request wait. Only one thread may
+call drain().
+ */
+public class AuditRingBuffer {
+
+    public static final class Slot {
+        private volatile long published = -1;
+        private long time;
+        private AuditAction action;
+        private String actor;
+        private String target;
+        private String detail;
+
+        public long time() {
+            return time;
+        }
+
+        public AuditAction action() {
+            return action;
+        }
+
+        public String actor() {
+            return actor;
+        }
+
+        public String target() {
+            return target;
+        }
+
+        public String detail() {
+            return detail;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        // The slot is only valid during the call: copy what you need, do not keep it.
+        void accept(Slot slot);
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // next sequence to claim
+    private volatile long consumed;                   // every sequence below this one has been handled
+    private final LongAdder dropped = new LongAdder();
+
+    public AuditRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two, got " + capacity);
+        }
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+    }
+
+    // false (and counted) when the ring is full
+    public boolean publish(long time, AuditAction action, String actor, String target, String detail) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.time = time;
+        slot.action = action;
+        slot.actor = actor;
+        slot.target = target;
+        slot.detail = detail;
+        slot.published = sequence; // volatile write: makes the fields above visible to the consumer
+        return true;
+    }
+
+    // Hands up to `max` records to the handler in publish order; returns how many.
+    public int drain(Handler handler, int max) {
+        long next = consumed;
+        int handled = 0;
+        while (handled < max) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.published != next) {
+                break; // not claimed yet, or claimed but still being filled
+            }
+            handler.accept(slot);
+            slot.actor = slot.target = slot.detail = null; // do not keep request data alive in an idle ring
+            next++;
+            handled++;
+        }
+        if (handled > 0) {
+            consumed = next;
+        }
+        return handled;
+    }
+
+    // Claimed but not yet consumed (including slots still being filled).
+    public int size() {
+        return (int) (head.get() - consumed);
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.journalapp.audit;
+
+import java.io.IOException;
+
+/*
+Where AuditLog's consumer thread writes the records. Called from that one thread only.
+    FileAuditSink   append-only JSON lines in a local file, rotated by size, fsync batched
+    MongoAuditSink  a capped collection (oldest records are overwritten once it is full)
+Picked with audit.sink=file|mongo|none (see AuditConfig).
+ */
+public interface AuditSink extends AutoCloseable {
+
+    // Buffers one record; the slot is only valid during the call.
+    void write(AuditRingBuffer.Slot slot);
+
+    // Writes out what write() buffered since the last call. On failure the buffered records are lost.
+    void endBatch() throws IOException;
+
+    // Called when the ring is empty, e.g. for a time-based fsync.
+    default void idle() throws IOException {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+}
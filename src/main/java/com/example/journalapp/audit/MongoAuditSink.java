@@ -0,0 +1,58 @@
+package com.example.journalapp.audit;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/*
+Audit records in the capped collection audit_log: one insertMany per batch, no index to maintain, and the
+collection never grows past cappedBytes (the oldest records go first). The collection is created on the first
+batch, so the app still starts while Mongo is away. Keeps records in insertion order, which is what an audit
+trail is read in.
+ */
+public class MongoAuditSink implements AuditSink {
+
+    static final String COLLECTION = "audit_log";
+
+    private final MongoTemplate mongoTemplate;
+    private final long cappedBytes;
+    private final List<Document> batch = new ArrayList<>();
+    private boolean collectionChecked;
+
+    public MongoAuditSink(MongoTemplate mongoTemplate, long cappedBytes) {
+        this.mongoTemplate = mongoTemplate;
+        this.cappedBytes = cappedBytes;
+    }
+
+    @Override
+    public void write(AuditRingBuffer.Slot slot) {
+        batch.add(new Document("time", new Date(slot.time()))
+                .append("action", slot.action().name())
+                .append("actor", slot.actor())
+                .append("target", slot.target())
+                .append("detail", slot.detail()));
+    }
+
+    @Override
+    public void endBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            if (!collectionChecked) {
+                if (!mongoTemplate.collectionExists(COLLECTION)) {
+                    mongoTemplate.createCollection(COLLECTION, CollectionOptions.empty().capped().size(cappedBytes));
+                }
+                collectionChecked = true;
+            }
+            mongoTemplate.getCollection(COLLECTION).insertMany(new ArrayList<>(batch));
+        }
+        finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.journalapp.cache;
+
+import org.bson.types.ObjectId;
+
+import java.util.function.Consumer;
+
+/*
+How "journal entry X changed" reaches the caches of the OTHER instances.
+The local cache always invalidates itself directly; the bus only exists so several nodes stay consistent.
+    LocalCacheInvalidationBus          → single node and tests (everything stays in-process)
+    MongoChangeStreamInvalidationBus   → several nodes, driven by a change stream on journal_entries
+Picked with journal.cache.invalidation=local|change-stream (see CacheConfig).
+ */
+public interface CacheInvalidationBus {
+
+    // Announce that an entry changed or was deleted.
+    void publish(ObjectId journalEntryId);
+
+    // Announce that any entry may have changed (a backup was restored): caches drop everything.
+    void publishAll();
+
+    // Announce that the last good result MongoGuard keeps under key must not be served any more (e.g. the credentials
+    // of a user who changed the password or deleted the account).
+    void publishStale(String key);
+
+    // Called for every invalidation, including ones published by this node.
+    void subscribe(Consumer<ObjectId> listener);
+
+    // Called for every publishAll(), including ones made by this node.
+    void subscribeAll(Runnable listener);
+
+    // Called for every publishStale(), including ones made by this node.
+    void subscribeStale(Consumer<String> listener);
+}
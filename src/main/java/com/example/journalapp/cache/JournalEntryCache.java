@@ -0,0 +1,91 @@
+package com.example.journalapp.cache;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+Read-through cache of JournalEntry by id (size-bounded + TTL, Caffeine under the hood).
+    - Filled by JournalEntryService.getJournalEntryById.
+    - Emptied for an id on update/delete, locally right away and on other nodes through the CacheInvalidationBus.
+      A restore empties it completely, on every node.
+    - Hit/miss/eviction counts are published as the usual cache.* Micrometer metrics (name=journal.entries).
+Cached instances are SHARED between requests: read them, never mutate them. Code that wants to modify an entry
+must load its own copy from the repository.
+ */
+@Component
+public class JournalEntryCache {
+
+    private static final String CACHE_NAME = "journal.entries";
+
+    private final Cache<ObjectId, JournalEntry> cache;
+    private final CacheInvalidationBus invalidationBus;
+    private final Counter remoteInvalidations;
+
+    public JournalEntryCache(CacheInvalidationBus invalidationBus,
+                             MeterRegistry meterRegistry,
+                             @Value("${journal.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${journal.cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.invalidationBus = invalidationBus;
+        this.remoteInvalidations = Counter.builder("journal.cache.invalidations")
+                .description("Invalidations received through the cache invalidation bus")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        invalidationBus.subscribe(id -> {
+            remoteInvalidations.increment();
+            cache.invalidate(id);
+        });
+        invalidationBus.subscribeAll(() -> {
+            remoteInvalidations.increment();
+            cache.invalidateAll();
+        });
+    }
+
+    // Concurrent misses for the same id share one load (Caffeine computes each key at most once at a time).
+    public Optional<JournalEntry> get(ObjectId id, Function<ObjectId, Optional<JournalEntry>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /*
+    Drop the entry now AND again once the surrounding transaction commits. Without the second step, a reader
+    could load the old (still committed) document between our write and the commit and put it back in the cache.
+     */
+    public void invalidate(ObjectId id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                    invalidationBus.publish(id);
+                }
+            });
+        }
+        else {
+            invalidationBus.publish(id);
+        }
+    }
+
+    // Drop every entry here and on the other nodes (after a restore replaced the collection underneath us).
+    public void invalidateAll() {
+        cache.invalidateAll();
+        invalidationBus.publishAll();
+    }
+}
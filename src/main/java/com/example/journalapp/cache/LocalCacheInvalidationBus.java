@@ -0,0 +1,45 @@
+package com.example.journalapp.cache;
+
+import org.bson.types.ObjectId;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-process stand-in: publish() calls the listeners straight away. Good enough for one node and for tests.
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final List<Consumer<ObjectId>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> allListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> staleListeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(ObjectId journalEntryId) {
+        listeners.forEach(listener -> listener.accept(journalEntryId));
+    }
+
+    @Override
+    public void publishAll() {
+        allListeners.forEach(Runnable::run);
+    }
+
+    @Override
+    public void publishStale(String key) {
+        staleListeners.forEach(listener -> listener.accept(key));
+    }
+
+    @Override
+    public void subscribe(Consumer<ObjectId> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void subscribeAll(Runnable listener) {
+        allListeners.add(listener);
+    }
+
+    @Override
+    public void subscribeStale(Consumer<String> listener) {
+        staleListeners.add(listener);
+    }
+}
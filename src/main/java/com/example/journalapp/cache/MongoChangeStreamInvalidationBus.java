@@ -0,0 +1,141 @@
+package com.example.journalapp.cache;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Subscription;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Multi-node invalidation. Every instance opens a change stream on journal_entries and drops any entry that was
+updated, replaced or deleted, no matter which node wrote it. So publish() has nothing to do: the write itself is
+the message. Change streams need a replica set, which we already require for @Transactional.
+publishAll() (after a restore) and publishStale(key) have no such write: they insert a document into
+cache_invalidations ({key} for publishStale), which every instance follows with a second stream, the same way
+MongoJournalEventRelay does. The restore dropped journal_entries, which ends the first stream for good, so receiving
+a publishAll() also reopens that one.
+If the stream breaks, the cache TTL is what bounds staleness until it reconnects.
+ */
+@Slf4j
+public class MongoChangeStreamInvalidationBus implements CacheInvalidationBus, AutoCloseable {
+
+    static final String COLLECTION = "cache_invalidations";
+
+    private final MongoTemplate mongoTemplate;
+    private final List<Consumer<ObjectId>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Runnable> allListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<String>> staleListeners = new CopyOnWriteArrayList<>();
+    private MessageListenerContainer container;
+    private Subscription entries;
+
+    public MongoChangeStreamInvalidationBus(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void publish(ObjectId journalEntryId) {
+        // nothing to do, see class comment
+    }
+
+    @Override
+    public void publishAll() {
+        mongoTemplate.getCollection(COLLECTION).insertOne(new Document("createdAt", new Date()));
+    }
+
+    @Override
+    public void publishStale(String key) {
+        mongoTemplate.getCollection(COLLECTION).insertOne(new Document("key", key).append("createdAt", new Date()));
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<ObjectId> listener) {
+        listeners.add(listener);
+        if (container == null) {
+            start();
+        }
+    }
+
+    @Override
+    public synchronized void subscribeAll(Runnable listener) {
+        allListeners.add(listener);
+        if (container == null) {
+            start();
+        }
+    }
+
+    @Override
+    public synchronized void subscribeStale(Consumer<String> listener) {
+        staleListeners.add(listener);
+        if (container == null) {
+            start();
+        }
+    }
+
+    private void start() {
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        entries = followEntries();
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = this::onInvalidation;
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(COLLECTION)
+                .filter(newAggregation(match(where("operationType").is("insert"))))
+                .build();
+        container.register(request, Document.class, e -> log.warn("Cache invalidation change stream error: {}", e.getMessage()));
+        container.start();
+    }
+
+    private Subscription followEntries() {
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = this::onChange;
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(mongoTemplate.getCollectionName(JournalEntry.class))
+                .filter(newAggregation(match(where("operationType").in("update", "replace", "delete"))))
+                .build();
+        return container.register(request, Document.class, e -> log.warn("Journal cache change stream error: {}", e.getMessage()));
+    }
+
+    private void onChange(Message<ChangeStreamDocument<Document>, Document> message) {
+        BsonDocument key = message.getRaw() != null ? message.getRaw().getDocumentKey() : null;
+        if (key != null && key.isObjectId("_id")) {
+            ObjectId id = key.getObjectId("_id").getValue();
+            listeners.forEach(l -> l.accept(id));
+        }
+    }
+
+    private void onInvalidation(Message<ChangeStreamDocument<Document>, Document> message) {
+        Document body = message.getBody();
+        if (body != null && body.getString("key") != null) {
+            staleListeners.forEach(l -> l.accept(body.getString("key")));
+            return;
+        }
+        synchronized (this) {
+            if (container != null && container.isRunning()) {
+                container.remove(entries);
+                entries = followEntries();
+            }
+        }
+        allListeners.forEach(Runnable::run);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
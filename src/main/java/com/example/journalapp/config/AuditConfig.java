@@ -0,0 +1,45 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.audit.AuditRingBuffer;
+import com.example.journalapp.audit.AuditSink;
+import com.example.journalapp.audit.FileAuditSink;
+import com.example.journalapp.audit.MongoAuditSink;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class AuditConfig {
+
+    // "file" (per node, next to the app), "mongo" (one trail for all nodes) or "none" (same idea as EventsConfig).
+    // No destroy method: AuditLog's writer closes the sink after draining the buffer.
+    @Bean(destroyMethod = "")
+    public AuditSink auditSink(@Value("${audit.sink:file}") String mode,
+                               @Value("${audit.file.dir:logs/audit}") Path dir,
+                               @Value("${audit.file.max-size:100MB}") DataSize maxSize,
+                               @Value("${audit.file.max-files:10}") int maxFiles,
+                               @Value("${audit.file.fsync-every:1000}") int fsyncEvery,
+                               @Value("${audit.file.fsync-interval-ms:1000}") long fsyncIntervalMs,
+                               @Value("${audit.mongo.capped-size:256MB}") DataSize cappedSize,
+                               MongoTemplate mongoTemplate) throws IOException {
+        return switch (mode) {
+            case "file" -> new FileAuditSink(dir, maxSize.toBytes(), maxFiles, fsyncEvery, fsyncIntervalMs);
+            case "mongo" -> new MongoAuditSink(mongoTemplate, cappedSize.toBytes());
+            case "none" -> new AuditSink() {
+                @Override
+                public void write(AuditRingBuffer.Slot slot) {
+                }
+
+                @Override
+                public void endBatch() {
+                }
+            };
+            default -> throw new IllegalArgumentException("audit.sink must be file, mongo or none, got " + mode);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.cache.CacheInvalidationBus;
+import com.example.journalapp.cache.LocalCacheInvalidationBus;
+import com.example.journalapp.cache.MongoChangeStreamInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Configuration
+public class CacheConfig {
+
+    // "local" for a single instance, "change-stream" once we run several instances behind the load balancer.
+    // Decided at runtime (not with @ConditionalOnProperty) so one build works for both setups.
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(@Value("${journal.cache.invalidation:local}") String mode,
+                                                     MongoTemplate mongoTemplate) {
+        if ("change-stream".equals(mode)) {
+            return new MongoChangeStreamInvalidationBus(mongoTemplate);
+        }
+        return new LocalCacheInvalidationBus();
+    }
+}
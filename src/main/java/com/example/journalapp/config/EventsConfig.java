@@ -0,0 +1,23 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.events.JournalEventRelay;
+import com.example.journalapp.events.LocalJournalEventRelay;
+import com.example.journalapp.events.MongoJournalEventRelay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@Configuration
+public class EventsConfig {
+
+    // "local" for a single instance, "mongo" once several instances serve GET /journal/events (same idea as CacheConfig).
+    @Bean
+    public JournalEventRelay journalEventRelay(@Value("${journal.events.relay:local}") String mode,
+                                               MongoTemplate mongoTemplate) {
+        if ("mongo".equals(mode)) {
+            return new MongoJournalEventRelay(mongoTemplate);
+        }
+        return new LocalJournalEventRelay();
+    }
+}
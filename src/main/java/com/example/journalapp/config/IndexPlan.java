@@ -0,0 +1,168 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.entity.ImportJob;
+import com.example.journalapp.entity.JournalTombstone;
+import com.example.journalapp.entity.MetricPoint;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+Every index the app relies on, in one place. Each one is here because a query in the code needs it; add the query
+to QueryPlanTests when you add an index (and the other way round), the tests fail on a collection scan.
+Indexes are NOT created at startup (spring.data.mongodb.auto-index-creation=false). They are created by the one-shot
+job in IndexPlanRunner (journal.indexes.apply=true); normal startups only check that they exist.
+Names match what Spring's @Indexed would have generated, so databases created with auto-index-creation are already
+up to date.
+ */
+@Component
+public class IndexPlan {
+
+    public record PlannedIndex(String collection, String name, Document keys, boolean unique, Long expireAfterSeconds) {
+
+        @Override
+        public String toString() {
+            return collection + "." + name + " " + keys.toJson();
+        }
+    }
+
+    private static final List<PlannedIndex> INDEXES = List.of(
+            // login, JwtFilter, every journal write: findByUsername and the $push/$pull/$inc updates filter on it
+            new PlannedIndex("users", "username", new Document("username", 1), true, null),
+            // TTL: Mongo deletes a revocation once every token it could match has expired
+            new PlannedIndex("revoked_tokens", "expiresAt", new Document("expiresAt", 1), false, 0L),
+            // listing / deleting the attachments of an entry
+            new PlannedIndex("attachments.files", "metadata.entryId_1", new Document("metadata.entryId", 1), false, null),
+            // reading a file's chunks in order; the GridFS driver creates it on the first upload, listed so it is checked
+            new PlannedIndex("attachments.chunks", "files_id_1_n_1", new Document("files_id", 1).append("n", 1), true, null),
+            // JournalRevisionService: latest revision, nearest snapshot, deltas after it, the revision list; unique so two
+            // concurrent edits cannot both become revision n
+            new PlannedIndex("journal_revisions", "entryId_1_revision_1", new Document("entryId", 1).append("revision", 1), true, null),
+            // JournalChangesService: entries changed after a sequence, in order; also the change sequence backfill
+            new PlannedIndex("journal_entries", "ownerId_1_changeSeq_1", new Document("ownerId", 1).append("changeSeq", 1), false, null),
+            // ... and the deletes after it; the owner prefix also serves the account purge
+            new PlannedIndex("journal_tombstones", "ownerId_1_changeSeq_1", new Document("ownerId", 1).append("changeSeq", 1), false, null),
+            // TTL: tombstones are compacted once no valid change token can still need them
+            new PlannedIndex("journal_tombstones", "deletedAt", new Document("deletedAt", 1), false,
+                    JournalTombstone.RETENTION.toSeconds()),
+            // AdminStatsService: recounting the entries of the days since the previous refresh
+            new PlannedIndex("journal_entries", "date_1", new Document("date", 1), false, null),
+            // OnThisDayService: the entries of one calendar day, grouped by owner, oldest first
+            new PlannedIndex("journal_entries", "monthDay_1_ownerId_1_date_1",
+                    new Document("monthDay", 1).append("ownerId", 1).append("date", 1), false, null),
+            // the precomputed lists expire a day after their date
+            new PlannedIndex("on_this_day", "expiresAt", new Document("expiresAt", 1), false, 0L),
+            // GET /journal?tag=: multikey (one key per tag), newest first, _id breaks ties between equal dates for the cursor
+            new PlannedIndex("journal_entries", "ownerId_1_tags_1_date_-1__id_-1",
+                    new Document("ownerId", 1).append("tags", 1).append("date", -1).append("_id", -1), false, null),
+            // GET /journal/tags, in tag order; the owner prefix also serves the account purge
+            new PlannedIndex("tag_counts", "ownerId_1_tag_1", new Document("ownerId", 1).append("tag", 1), false, null),
+            // GET /journal/import, newest first; the owner prefix also serves the account purge
+            new PlannedIndex("import_jobs", "ownerId_1_startedAt_-1", new Document("ownerId", 1).append("startedAt", -1), false, null),
+            // TTL: import reports are kept for a month
+            new PlannedIndex("import_jobs", "startedAt", new Document("startedAt", 1), false, ImportJob.RETENTION.toSeconds()),
+            // JournalMetricsService.rollUp: the points recorded in a window, and the first one after the checkpoint
+            new PlannedIndex("journal_metrics", "recordedAt_1", new Document("recordedAt", 1), false, null),
+            // AccountDeletionService: the points of one owner
+            new PlannedIndex("journal_metrics", "meta.ownerId_1_recordedAt_1",
+                    new Document("meta.ownerId", 1).append("recordedAt", 1), false, null),
+            // GET /journal/trends: the buckets of one metric and granularity, newest first; the owner prefix also serves
+            // the account purge
+            new PlannedIndex("metric_rollups", "ownerId_1_metric_1_granularity_1_start_-1", new Document("ownerId", 1)
+                    .append("metric", 1).append("granularity", 1).append("start", -1), false, null),
+            // GET /admin/dead-letters, newest first
+            new PlannedIndex("journal_dead_letters", "failedAt_-1", new Document("failedAt", -1), false, null),
+            // AccountDeletionService: the dead letters of one owner
+            new PlannedIndex("journal_dead_letters", "ownerId_1", new Document("ownerId", 1), false, null),
+            // MongoJournalEventRelay: events only live while they travel to the other nodes
+            new PlannedIndex("journal_events", "createdAt", new Document("createdAt", 1), false, 3600L),
+            // MongoChangeStreamInvalidationBus: same for the "drop everything" messages sent after a restore
+            new PlannedIndex("cache_invalidations", "createdAt", new Document("createdAt", 1), false, 3600L),
+            // AccountDeletionService: claiming a job whose lease ran out
+            new PlannedIndex("deletion_jobs", "status_1_leaseUntil_1", new Document("status", 1).append("leaseUntil", 1), false, null),
+            // GET /admin/deletion-jobs, newest first
+            new PlannedIndex("deletion_jobs", "createdAt_-1", new Document("createdAt", -1), false, null)
+    );
+
+    // Collections that need options when they are created (time series): createIndex or a first insert would create
+    // them as plain collections, so apply() creates them first.
+    private static final List<Class<?>> COLLECTIONS = List.of(MetricPoint.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public List<PlannedIndex> indexes() {
+        return INDEXES;
+    }
+
+    // Idempotent: createIndex is a no-op for an index that already exists with the same keys and options.
+    public void apply() {
+        createCollections();
+        for (PlannedIndex index : INDEXES) {
+            IndexOptions options = new IndexOptions().name(index.name()).unique(index.unique());
+            if (index.expireAfterSeconds() != null) {
+                options.expireAfter(index.expireAfterSeconds(), TimeUnit.SECONDS);
+            }
+            mongoTemplate.getCollection(index.collection()).createIndex(index.keys(), options);
+        }
+    }
+
+    // Also idempotent; tolerates another node creating the same collection at the same time.
+    public void createCollections() {
+        for (Class<?> type : COLLECTIONS) {
+            if (mongoTemplate.collectionExists(type)) {
+                continue;
+            }
+            try {
+                mongoTemplate.createCollection(type); // with the options of its @TimeSeries annotation
+            }
+            catch (RuntimeException e) {
+                if (!mongoTemplate.collectionExists(type)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Planned indexes that do not exist with the same key order, uniqueness and TTL (whatever their name).
+    public List<PlannedIndex> missing() {
+        List<PlannedIndex> missing = new ArrayList<>();
+        for (PlannedIndex index : INDEXES) {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(index.collection());
+            boolean found = false;
+            for (Document existing : collection.listIndexes()) {
+                if (matches(index, existing)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+
+    private static boolean matches(PlannedIndex planned, Document existing) {
+        Document keys = existing.get("key", Document.class);
+        // Document.equals ignores key order, but for a compound index the order is the whole point
+        if (keys == null || !new ArrayList<>(keys.entrySet()).equals(new ArrayList<>(planned.keys().entrySet()))) {
+            return false;
+        }
+        if (planned.unique() != existing.getBoolean("unique", false)) {
+            return false;
+        }
+        Number ttl = existing.get("expireAfterSeconds", Number.class);
+        if (planned.expireAfterSeconds() == null) {
+            return ttl == null;
+        }
+        return ttl != null && ttl.longValue() == planned.expireAfterSeconds();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.service.JournalChangesService;
+import com.example.journalapp.service.OnThisDayService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+Applies and/or verifies the IndexPlan once the context is up.
+    journal.indexes.apply=true           create the missing indexes and backfill data new code relies on (the
+                                         one-shot migration job, see README)
+    journal.indexes.exit-after-apply=true  ... and stop the JVM afterwards instead of serving traffic
+    journal.indexes.on-missing=warn|fail   what a normal startup does when an index is missing
+Building an index on a big collection is slow and loads the primary, which is why it is a deliberate job and not
+something every new node does on boot.
+ */
+@Component
+@Slf4j
+public class IndexPlanRunner implements ApplicationRunner {
+
+    @Autowired
+    private IndexPlan indexPlan;
+
+    @Autowired
+    private JournalChangesService journalChangesService;
+
+    @Autowired
+    private OnThisDayService onThisDayService;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${journal.indexes.apply:false}")
+    private boolean apply;
+
+    @Value("${journal.indexes.exit-after-apply:false}")
+    private boolean exitAfterApply;
+
+    @Value("${journal.indexes.on-missing:warn}")
+    private String onMissing;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (apply) {
+            long start = System.currentTimeMillis();
+            indexPlan.apply();
+            log.info("Index plan applied ({} indexes) in {} ms", indexPlan.indexes().size(), System.currentTimeMillis() - start);
+            journalChangesService.backfillChangeSequences();
+            onThisDayService.backfillMonthDays();
+            if (exitAfterApply) {
+                System.exit(SpringApplication.exit(context));
+            }
+        }
+
+        List<IndexPlan.PlannedIndex> missing;
+        try {
+            missing = indexPlan.missing();
+        }
+        catch (Exception e) {
+            // Mongo unreachable right now: that is reported by the health check, not a reason to refuse to start
+            log.warn("Could not verify the index plan: {}", e.getMessage());
+            return;
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        String message = "Missing indexes " + missing + ". Run the app once with --journal.indexes.apply=true";
+        if ("fail".equals(onMissing)) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
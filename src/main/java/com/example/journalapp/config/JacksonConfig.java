@@ -0,0 +1,43 @@
+package com.example.journalapp.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.core.NativeDetector;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class JacksonConfig {
+
+    // Spring Boot registers every Module bean on the shared ObjectMapper. Blackbird generates accessors through
+    // LambdaMetafactory, so reading record components / setting fields no longer goes through reflection.
+    // A native image cannot define classes at runtime, so there we keep Jackson's default (reflection) access.
+    @Bean
+    public Module blackbirdModule() {
+        if (NativeDetector.inNativeImage()) {
+            return new SimpleModule("no-blackbird");
+        }
+        return new BlackbirdModule();
+    }
+
+    // Accept: application/cbor or application/x-jackson-smile gets the same objects as JSON in a binary encoding (and
+    // request bodies may be sent that way too). Spring MVC would add both converters on its own, but with a plain
+    // ObjectMapper; building them from Boot's Jackson2ObjectMapperBuilder gives them the same modules (Blackbird,
+    // java.time) and spring.jackson.* settings as the JSON one, so dates, ids and nulls come out exactly the same.
+    // Converter beans replace Spring's default instance of the same type.
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.service.MongoGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/*
+"mongoCircuit" health component, part of the readiness group (/actuator/health/readiness, see application.properties).
+While the Mongo circuit breaker is open the node reports OUT_OF_SERVICE, so a load balancer stops routing to it
+until the breaker's trial calls succeed again; liveness is unaffected, nothing gets restarted for a database outage.
+Answers from the breaker's in-memory state, it never queries Mongo itself.
+ */
+@Component
+public class MongoCircuitHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Override
+    public Health health() {
+        CircuitBreaker circuitBreaker = mongoGuard.circuitBreaker();
+        CircuitBreaker.Metrics metrics = circuitBreaker.getMetrics();
+        Health.Builder health = circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                || circuitBreaker.getState() == CircuitBreaker.State.FORCED_OPEN ? Health.outOfService() : Health.up();
+        return health
+                .withDetail("state", circuitBreaker.getState().name())
+                .withDetail("failureRate", metrics.getFailureRate())
+                .withDetail("slowCallRate", metrics.getSlowCallRate())
+                .withDetail("notPermittedCalls", metrics.getNumberOfNotPermittedCalls())
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.journalapp.config;
+
+import com.example.journalapp.service.MongoGuard;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.time.Duration;
+
+/*
+The circuit breaker and the bulkheads MongoGuard puts around Mongo calls. Both registries are bound to Micrometer,
+so state, failure/slow-call rates and free bulkhead permits show up as resilience4j_* metrics.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    // One breaker for the database: when Mongo is down it is down for auth, reads and writes alike.
+    // Only unavailability counts as a failure (a duplicate key is the caller's problem, not Mongo's), plus calls
+    // slower than slow-call-duration.
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry,
+                                                         @Value("${mongo.circuit-breaker.sliding-window-size:50}") int windowSize,
+                                                         @Value("${mongo.circuit-breaker.failure-rate-threshold:50}") float failureRate,
+                                                         @Value("${mongo.circuit-breaker.slow-call-duration:1s}") Duration slowCall,
+                                                         @Value("${mongo.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRate,
+                                                         @Value("${mongo.circuit-breaker.wait-in-open:10s}") Duration waitInOpen) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(Math.min(windowSize, 10))
+                .failureRateThreshold(failureRate)
+                .slowCallDurationThreshold(slowCall)
+                .slowCallRateThreshold(slowCallRate)
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(5)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(DataAccessResourceFailureException.class, TransientDataAccessException.class,
+                        MongoSocketException.class, MongoTimeoutException.class)
+                .ignoreExceptions(BulkheadFullException.class)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        registry.circuitBreaker(MongoGuard.CIRCUIT_BREAKER);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    // Separate pools so a flood of slow journal writes cannot take the threads that authenticate every request, and
+    // together well below Tomcat's 200 worker threads, so health checks and Mongo-free routes always get a thread.
+    // A call that finds its pool full waits at most max-wait and then fails with 503.
+    @Bean
+    public BulkheadRegistry bulkheadRegistry(MeterRegistry meterRegistry,
+                                             @Value("${mongo.bulkhead.auth.max-concurrent:40}") int auth,
+                                             @Value("${mongo.bulkhead.read.max-concurrent:40}") int read,
+                                             @Value("${mongo.bulkhead.write.max-concurrent:20}") int write,
+                                             @Value("${mongo.bulkhead.max-wait:50ms}") Duration maxWait) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        registry.bulkhead(MongoGuard.AUTH, bulkhead(auth, maxWait));
+        registry.bulkhead(MongoGuard.READ, bulkhead(read, maxWait));
+        registry.bulkhead(MongoGuard.WRITE, bulkhead(write, maxWait));
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    private static BulkheadConfig bulkhead(int maxConcurrent, Duration maxWait) {
+        return BulkheadConfig.custom().maxConcurrentCalls(maxConcurrent).maxWaitDuration(maxWait).build();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.journalapp.config;
 
 import com.example.journalapp.filter.JwtFilter;
+import com.example.journalapp.filter.RateLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -111,6 +113,9 @@ public class SpringSecurity {
     @Autowired
     private JwtFilter jwtFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     // PART 1 → Authorization (which endpoints need login)
     // Our method below says give me whatever HttpSecurity.build() returns (a SecurityFilterChain) and register it as a bean.
     @Bean
@@ -143,8 +148,14 @@ public class SpringSecurity {
         // Below is the authorization step, and it happens AFTER filters.
         return http
                 .authorizeHttpRequests(request -> request
+                        // The async dispatch that ends an SSE stream (GET /journal/events) carries no JWT of its own;
+                        // the request was already authorized when the stream was opened.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/journal/**","/user/**").authenticated()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
+                        // Health is public (load balancer probes); metrics and everything else under actuator is admin-only
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // All other endpoints require the user to log in
                         .anyRequest().permitAll()
                         // This endpoint is allowed for everyone
@@ -178,6 +189,8 @@ public class SpringSecurity {
                  “logged in”.
                   */
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // Rate limiting goes in front of JwtFilter: a rejected request must not cost a DB lookup or a BCrypt hash.
+                .addFilterBefore(rateLimitFilter, JwtFilter.class)
                 .build();
     }
     /*
@@ -280,8 +293,11 @@ public class SpringSecurity {
         // 2️⃣ Which HTTP methods are allowed
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE"));
 
-        // 3️⃣ Which headers the frontend may send
-        config.setAllowedHeaders(List.of("Content-Type", "Authorization"));
+        // 3️⃣ Which headers the frontend may send (If-None-Match lets it revalidate GET /journal with an ETag)
+        config.setAllowedHeaders(List.of("Content-Type", "Authorization", "If-None-Match"));
+
+        // Which response headers the frontend JS is allowed to read (browsers hide ETag otherwise)
+        config.setExposedHeaders(List.of("ETag"));
 
         // 4️⃣ Allow cookies / Authorization header (needed for JWT)
         config.setAllowCredentials(true);
@@ -1,12 +1,27 @@
 package com.example.journalapp.controller;
 
+import com.example.journalapp.audit.AuditLog;
+import com.example.journalapp.dto.UserResponse;
+import com.example.journalapp.entity.AdminStats;
+import com.example.journalapp.entity.DeletionJob;
+import com.example.journalapp.entity.JournalDeadLetter;
 import com.example.journalapp.entity.User;
+import com.example.journalapp.service.AccountDeletionService;
+import com.example.journalapp.service.AdminStatsService;
+import com.example.journalapp.service.BackupService;
+import com.example.journalapp.service.JournalWriteBehindService;
 import com.example.journalapp.service.UserService;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
 
 @RestController
@@ -16,9 +31,24 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private JournalWriteBehindService journalWriteBehindService;
+
     @GetMapping("/all-users")
     public ResponseEntity<?> getALlUsers() {
-        List<User> allUsers = userService.getAllUsers();
+        List<UserResponse> allUsers = userService.getAllUserSummaries().stream().map(UserResponse::from).toList();
         if(allUsers != null && !allUsers.isEmpty()){
             return new ResponseEntity<>(allUsers, HttpStatus.OK);
         }
@@ -28,6 +58,100 @@ public class AdminController {
     @PostMapping("/create-admin-user")
     public ResponseEntity<?> createAdminUser(@RequestBody User user) {
         userService.saveAdmin(user);
+        auditLog.adminCreated(SecurityContextHolder.getContext().getAuthentication().getName(), user.getUsername());
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
+
+    // Progress of background account purges, newest first
+    @GetMapping("/deletion-jobs")
+    public ResponseEntity<List<DeletionJob>> getDeletionJobs() {
+        return new ResponseEntity<>(accountDeletionService.recentJobs(), HttpStatus.OK);
+    }
+
+    @GetMapping("/deletion-jobs/{userId}")
+    public ResponseEntity<DeletionJob> getDeletionJob(@PathVariable ObjectId userId) {
+        return accountDeletionService.findJob(userId)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Precomputed by AdminStatsService; 404 until its first refresh has run
+    @GetMapping("/stats")
+    public ResponseEntity<AdminStats> getStats() {
+        AdminStats stats = adminStatsService.getStats();
+        if (stats == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    // Entries per day over any range (default: the last 30 days), dates in UTC
+    @GetMapping("/stats/entries-per-day")
+    public ResponseEntity<List<AdminStats.DayCount>> getEntriesPerDay(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(adminStatsService.getDailyEntries(start, end), HttpStatus.OK);
+    }
+
+    // Starts a full backup in the background; poll the returned job. 409 while another backup or restore runs.
+    @PostMapping("/backups")
+    public ResponseEntity<?> startBackup() {
+        try {
+            return new ResponseEntity<>(backupService.startBackup(), HttpStatus.ACCEPTED);
+        }
+        catch (BackupService.BusyException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    // Complete backups on this node's disk, newest first
+    @GetMapping("/backups")
+    public ResponseEntity<List<BackupService.Manifest>> getBackups() throws IOException {
+        return new ResponseEntity<>(backupService.listBackups(), HttpStatus.OK);
+    }
+
+    // Refuses non-empty collections unless replace=true, which drops them first
+    @PostMapping("/backups/{backupId}/restore")
+    public ResponseEntity<?> restoreBackup(@PathVariable String backupId,
+                                           @RequestParam(defaultValue = "false") boolean replace) throws IOException {
+        try {
+            BackupService.Job job = backupService.startRestore(backupId, replace);
+            if (job == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        }
+        catch (BackupService.BusyException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    @GetMapping("/backups/jobs/{jobId}")
+    public ResponseEntity<BackupService.Job> getBackupJob(@PathVariable String jobId) {
+        BackupService.Job job = backupService.findJob(jobId);
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    // Write-behind entries that were acknowledged but could not be committed, newest first
+    @GetMapping("/dead-letters")
+    public ResponseEntity<List<JournalDeadLetter>> getDeadLetters() {
+        return new ResponseEntity<>(journalWriteBehindService.recentDeadLetters(), HttpStatus.OK);
+    }
+
+    // Commits a parked entry again; a commit that fails again answers 500 and keeps the dead letter
+    @PostMapping("/dead-letters/{id}/retry")
+    public ResponseEntity<?> retryDeadLetter(@PathVariable ObjectId id) {
+        if (!journalWriteBehindService.retryDeadLetter(id)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
 }
@@ -0,0 +1,153 @@
+package com.example.journalapp.controller;
+
+import com.example.journalapp.dto.AttachmentInfo;
+import com.example.journalapp.service.AttachmentService;
+import com.example.journalapp.service.UserService;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import jakarta.servlet.http.HttpServletRequest;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/*
+Attachments of one journal entry. The owner check runs first on every endpoint; a foreign entry looks like a missing one (404).
+Upload:   POST /journal/id/{entryId}/attachments?filename=photo.jpg   with the raw file as the body (NOT multipart).
+          The body goes from the socket straight into GridFS chunks; multipart would first spool it to a temp file.
+Download: GET  /journal/id/{entryId}/attachments/{attachmentId}, supports "Range: bytes=start-end" (206), which
+          lets players seek inside audio and lets clients resume broken downloads.
+ */
+@RestController
+@RequestMapping("/journal/id/{entryId}/attachments")
+public class AttachmentController {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private UserService userService;
+
+    @PostMapping
+    public ResponseEntity<?> upload(@PathVariable ObjectId entryId,
+                                    @RequestParam(defaultValue = "attachment") String filename,
+                                    HttpServletRequest request) throws IOException {
+        if (!ownsEntry(entryId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        try {
+            if (request.getContentType() != null) {
+                contentType = MediaType.parseMediaType(request.getContentType()).toString();
+            }
+        }
+        catch (IllegalArgumentException e) {
+            // unparseable Content-Type: keep application/octet-stream
+        }
+        try {
+            AttachmentInfo stored = attachmentService.store(entryId, filename, contentType, request.getInputStream());
+            return new ResponseEntity<>(stored, HttpStatus.CREATED);
+        }
+        catch (AttachmentService.TooLargeException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<AttachmentInfo>> list(@PathVariable ObjectId entryId) {
+        if (!ownsEntry(entryId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.ok(attachmentService.list(entryId));
+    }
+
+    @GetMapping("/{attachmentId}")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable ObjectId entryId,
+                                                          @PathVariable ObjectId attachmentId,
+                                                          @RequestHeader HttpHeaders requestHeaders) {
+        if (!ownsEntry(entryId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        GridFSFile file = attachmentService.find(entryId, attachmentId);
+        if (file == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        long length = file.getLength();
+        long start = 0;
+        long end = length - 1;
+        HttpStatus status = HttpStatus.OK;
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            // Only single ranges are served as 206; for multi-range requests the full file (200) is a valid answer.
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+        catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+
+        long from = start;
+        long count = end - start + 1;
+        StreamingResponseBody body = out -> {
+            try (GridFSDownloadStream in = attachmentService.openDownload(file.getObjectId())) {
+                in.skip(from); // jumps straight to the right chunk, earlier chunks are never read
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long remaining = count;
+                while (remaining > 0) {
+                    int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (n < 0) {
+                        break;
+                    }
+                    out.write(buffer, 0, n);
+                    remaining -= n;
+                }
+            }
+        };
+
+        AttachmentInfo info = AttachmentInfo.from(file);
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.inline().filename(info.filename(), StandardCharsets.UTF_8).build().toString())
+                .contentType(info.contentType() != null ? MediaType.parseMediaType(info.contentType()) : MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(count);
+        if (status == HttpStatus.PARTIAL_CONTENT) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        return response.body(body);
+    }
+
+    @DeleteMapping("/{attachmentId}")
+    public ResponseEntity<Void> delete(@PathVariable ObjectId entryId, @PathVariable ObjectId attachmentId) {
+        if (!ownsEntry(entryId) || attachmentService.find(entryId, attachmentId) == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        attachmentService.delete(attachmentId);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    private boolean ownsEntry(ObjectId entryId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return userService.ownsJournalEntry(authentication.getName(), entryId);
+    }
+}
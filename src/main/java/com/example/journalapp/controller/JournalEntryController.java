@@ -1,17 +1,45 @@
 package com.example.journalapp.controller;
 
+import com.example.journalapp.dto.JournalChangesResponse;
+import com.example.journalapp.dto.JournalEntryResponse;
+import com.example.journalapp.dto.JournalPageResponse;
+import com.example.journalapp.dto.JournalRevisionResponse;
+import com.example.journalapp.dto.RevisionInfo;
 import com.example.journalapp.entity.JournalEntry;
-import com.example.journalapp.entity.User;
+import com.example.journalapp.entity.OnThisDay;
+import com.example.journalapp.entity.JournalRevision;
+import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.service.DatabaseUnavailableException;
+import com.example.journalapp.service.JournalChangesService;
 import com.example.journalapp.service.JournalEntryService;
+import com.example.journalapp.service.JournalMetricsService;
+import com.example.journalapp.service.JournalRevisionService;
+import com.example.journalapp.service.JournalTagService;
+import com.example.journalapp.service.JournalWriteBehindService;
+import com.example.journalapp.service.MongoGuard;
+import com.example.journalapp.service.OnThisDayService;
 import com.example.journalapp.service.UserService;
+import com.example.journalapp.utils.ChangeToken;
+import com.example.journalapp.utils.Metrics;
+import com.example.journalapp.utils.PageCursor;
+import com.example.journalapp.utils.Tags;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import java.time.LocalDate;
 import java.util.*;
 
 // Controller calls Service, Service calls Repository
@@ -20,66 +48,156 @@ import java.util.*;
 @RequestMapping("/journal") // Makes the actual path of endpoints below as "/journal/endpoint"
 public class JournalEntryController {
 
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     @Autowired
     private JournalEntryService journalEntryService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private JournalWriteBehindService writeBehindService;
+
+    @Autowired
+    private JournalRevisionService journalRevisionService;
+
+    @Autowired
+    private JournalChangesService journalChangesService;
+
+    @Autowired
+    private OnThisDayService onThisDayService;
+
+    @Autowired
+    private JournalTagService journalTagService;
+
+    @Autowired
+    private JournalMetricsService journalMetricsService;
+
+    @Value("${journal.tags.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${journal.metrics.max-trend-points:366}")
+    private int maxTrendPoints;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
+
     @GetMapping
-    public ResponseEntity<?> getAllJournalEntriesOfUser() {
+    public ResponseEntity<?> getAllJournalEntriesOfUser(NativeWebRequest webRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String userName = authentication.getName();
-        User user = userService.findByUserName(userName);
-        List<JournalEntry> all = user.getJournalEntries();
+        // Entries still sitting in the write-behind queue are not part of the stored version, so while there are
+        // any we skip the ETag and always send the merged list (read-your-writes).
+        Collection<JournalEntry> pending = writeBehindService.pendingFor(userName);
+        // Tiny indexed read first: if the client already holds this journal version, answer 304 right away
+        // instead of resolving every @DBRef and serializing the whole list again.
+        String eTag = pending.isEmpty() ? journalETag(userService.findJournalVersion(userName), null, webRequest) : null;
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        List<JournalEntry> all = userService.findJournalEntries(userName);
+        if (!pending.isEmpty()) {
+            all = mergePending(all, pending);
+        }
         if(all != null && !all.isEmpty()){
-            return new ResponseEntity<>(all, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(eTag).body(JournalEntryResponse.fromAll(all));
         }
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // GET /journal?tag=work[&cursor=...][&limit=50]: the caller's entries with that tag, newest first, one index range
+    // per page. Entries still in the write-behind queue show up once committed.
+    @GetMapping(params = "tag")
+    public ResponseEntity<JournalPageResponse> getJournalEntriesByTag(@RequestParam String tag,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "50") int limit) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(authentication.getName());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        PageCursor after = cursor != null ? PageCursor.decode(cursor) : null;
+        if ((cursor != null && after == null) || limit < 1) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        String normalized;
+        try {
+            normalized = Tags.normalize(tag);
+        }
+        catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        JournalTagService.Page page = mongoGuard.call(MongoGuard.READ, () ->
+                journalTagService.entriesWithTag(owner.getId(), normalized, after, Math.min(limit, maxPageSize)));
+        return new ResponseEntity<>(JournalPageResponse.from(page), HttpStatus.OK);
+    }
+
+    // Every tag the caller uses, with the number of entries carrying it, in tag order.
+    @GetMapping("/tags")
+    public ResponseEntity<List<JournalTagService.Count>> getTags() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(authentication.getName());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<JournalTagService.Count> counts = mongoGuard.read(MongoGuard.READ, "tags:" + owner.getId(),
+                () -> journalTagService.tagCounts(owner.getId()));
+        return new ResponseEntity<>(counts, HttpStatus.OK);
+    }
+
     @PostMapping()
     public ResponseEntity<?> createEntry(@RequestBody JournalEntry myEntry) { // It means take data from request and turn it into an object that we can use
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             String userName = authentication.getName();
-            journalEntryService.saveJournalEntry(myEntry, userName);
+            if (writeBehindService.isEnabled()) {
+                return queueEntry(myEntry, userName);
+            }
+            mongoGuard.run(MongoGuard.WRITE, () -> journalEntryService.saveJournalEntry(myEntry, userName));
             return new ResponseEntity<>(HttpStatus.CREATED);
         }
+        catch (DatabaseUnavailableException e) {
+            throw e; // 503, not the client's fault
+        }
         catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
         }
     }
 
     @GetMapping("/id/{myId}")
-    public ResponseEntity<?> getJournalEntryByID(@PathVariable ObjectId myId) {
+    public ResponseEntity<?> getJournalEntryByID(@PathVariable ObjectId myId, NativeWebRequest webRequest) {
 
         // 1. Get logged-in username
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
-        // 2. Fetch user from DB
-        User user = userService.findByUserName(username);
-
-        // 3. Check if this journal ID belongs to the user
-        boolean journalBelongsToUser = false;
+        // Accepted by the write-behind queue but not committed yet: only its submitter can see it.
+        JournalEntry pending = writeBehindService.findPending(username, myId);
+        if (pending != null) {
+            return new ResponseEntity<>(JournalEntryResponse.from(pending), HttpStatus.OK);
+        }
 
-        for (JournalEntry entry : user.getJournalEntries()) {
-            if (entry.getId().equals(myId)) {
-                journalBelongsToUser = true;
-                break;
-            }
+        // An ETag for this entry is only ever handed out after the ownership check below, and any write to the
+        // journal bumps the version, so a matching If-None-Match means the client's copy is still valid and owned.
+        String eTag = journalETag(userService.findJournalVersion(username), myId, webRequest);
+        if (eTag != null && webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
         }
 
-        if (!journalBelongsToUser) {
+        // 2. Check if this journal ID belongs to the user (one indexed exists(), no @DBRef resolution)
+        if (!userService.ownsJournalEntry(username, myId)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // user does NOT own this journal
         }
 
-        // 4. Fetch actual journal entry from DB
+        // 3. Fetch actual journal entry (cache, then DB)
         Optional<JournalEntry> journalEntry = journalEntryService.getJournalEntryById(myId);
 
         if (journalEntry.isPresent()) {
-            return new ResponseEntity<>(journalEntry.get(), HttpStatus.OK);
+            return ResponseEntity.ok().eTag(eTag).body(JournalEntryResponse.from(journalEntry.get()));
         }
 
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -90,7 +208,7 @@ public class JournalEntryController {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
         if(journalEntryService.getJournalEntryById(myId).isPresent()) {
-            journalEntryService.deleteJournalEntryById(myId, username);
+            mongoGuard.run(MongoGuard.WRITE, () -> journalEntryService.deleteJournalEntryById(myId, username));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -101,26 +219,197 @@ public class JournalEntryController {
                                                @RequestBody JournalEntry updatedEntry) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        User user = userService.findByUserName(username);
-        boolean journalBelongsToUser = false;
-        for (JournalEntry entry : user.getJournalEntries()) {
-            if (entry.getId().equals(id)) {
-                journalBelongsToUser = true;
-                break;
-            }
-        }
-        if (!journalBelongsToUser) {
+        if (!userService.ownsJournalEntry(username, id)) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND); // user does NOT own this journal
         }
-        JournalEntry oldEntry = journalEntryService.getJournalEntryById(id).orElse(null);
+        JournalEntry oldEntry = journalEntryService.getJournalEntryForUpdate(id).orElse(null);
         if(oldEntry != null) {
-            oldEntry.setTitle(!updatedEntry.getTitle().isEmpty() ? updatedEntry.getTitle() : oldEntry.getTitle());
-            oldEntry.setContent(updatedEntry.getContent() != null && !updatedEntry.getContent().isEmpty() ? updatedEntry.getContent() : oldEntry.getContent());
-            journalEntryService.saveJournalEntry(oldEntry);
+            JournalEntry newEntry = new JournalEntry(); // oldEntry stays untouched: it becomes the previous revision
+            newEntry.setId(oldEntry.getId());
+            newEntry.setDate(oldEntry.getDate());
+            newEntry.setTitle(!updatedEntry.getTitle().isEmpty() ? updatedEntry.getTitle() : oldEntry.getTitle());
+            newEntry.setContent(updatedEntry.getContent() != null && !updatedEntry.getContent().isEmpty() ? updatedEntry.getContent() : oldEntry.getContent());
+            try {
+                // omitted tags keep the old ones, [] removes them all
+                newEntry.setTags(updatedEntry.getTags() != null ? Tags.normalize(updatedEntry.getTags()) : oldEntry.getTags());
+                // same for metrics: omitted keeps them, {} removes them all
+                newEntry.setMetrics(updatedEntry.getMetrics() != null ? Metrics.normalize(updatedEntry.getMetrics()) : oldEntry.getMetrics());
+            }
+            catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            try {
+                mongoGuard.run(MongoGuard.WRITE, () -> journalEntryService.updateJournalEntry(newEntry, oldEntry, username));
+            }
+            catch (OptimisticLockingFailureException e) {
+                // another edit of this entry committed after we read it: nothing was written, the client retries
+                return new ResponseEntity<>("The entry was changed meanwhile, reload it and try again", HttpStatus.CONFLICT);
+            }
             return new ResponseEntity<>(HttpStatus.OK);
         }
         else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
+
+    // Only what changed since the token (from the previous response; omit it for a first, full sync).
+    // 400 for a token we did not issue, 410 Gone when it belongs to another account, is older than the tombstone
+    // retention or than a restore of the journal: the client has to drop its copy and sync from scratch.
+    @GetMapping("/changes")
+    public ResponseEntity<JournalChangesResponse> getChanges(@RequestParam(required = false) String since) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(authentication.getName());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        ChangeToken token = null;
+        if (since != null) {
+            token = ChangeToken.decode(since);
+            if (token == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            long version = owner.getJournalVersion() != null ? owner.getJournalVersion() : 0L;
+            if (!token.owner().equals(owner.getId().toHexString()) || token.seq() > version
+                    || journalChangesService.isExpired(token, owner)) {
+                return new ResponseEntity<>(HttpStatus.GONE);
+            }
+        }
+        JournalChangesService.Changes changes = journalChangesService.changesSince(owner, token);
+        return new ResponseEntity<>(JournalChangesResponse.from(changes), HttpStatus.OK);
+    }
+
+    // Entries written on today's date in earlier years, precomputed overnight by OnThisDayService; 204 if there are none.
+    @GetMapping("/on-this-day")
+    public ResponseEntity<List<OnThisDay.Memory>> getOnThisDay() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(authentication.getName());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<OnThisDay.Memory> memories = mongoGuard.read(MongoGuard.READ, "on-this-day:" + owner.getId(),
+                () -> onThisDayService.memoriesFor(owner.getId()));
+        if (memories.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return new ResponseEntity<>(memories, HttpStatus.OK);
+    }
+
+    // Chart data of one metric: a point per day, week (from Monday) or month that has values, oldest first, at most
+    // journal.metrics.max-trend-points of them (the latest ones when the range is longer). Reads only the rollups
+    // kept by JournalMetricsService, which trail the writes by about a minute.
+    @GetMapping("/trends")
+    public ResponseEntity<List<JournalMetricsService.TrendPoint>> getTrends(
+            @RequestParam String metric,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(authentication.getName());
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Metrics.Granularity buckets = Metrics.Granularity.parse(granularity);
+        String name;
+        try {
+            name = Metrics.normalizeName(metric);
+        }
+        catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (buckets == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        LocalDate end = to != null ? to : LocalDate.now(); // entry dates are server-local
+        LocalDate start = from != null ? from : buckets.startBefore(end, maxTrendPoints);
+        if (start.isAfter(end)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<JournalMetricsService.TrendPoint> points = mongoGuard.read(MongoGuard.READ,
+                "trends:" + owner.getId() + ":" + name + ":" + buckets + ":" + start + ":" + end,
+                () -> journalMetricsService.trends(owner.getId(), name, buckets, start, end, maxTrendPoints));
+        return new ResponseEntity<>(points, HttpStatus.OK);
+    }
+
+    @GetMapping("/id/{id}/revisions")
+    public ResponseEntity<List<RevisionInfo>> getRevisions(@PathVariable ObjectId id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!userService.ownsJournalEntry(authentication.getName(), id)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        List<RevisionInfo> revisions = journalRevisionService.listRevisions(id).stream().map(RevisionInfo::from).toList();
+        return new ResponseEntity<>(revisions, HttpStatus.OK);
+    }
+
+    @GetMapping("/id/{id}/revisions/{revision}")
+    public ResponseEntity<JournalRevisionResponse> getRevision(@PathVariable ObjectId id, @PathVariable int revision) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!userService.ownsJournalEntry(authentication.getName(), id)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        JournalRevision found = journalRevisionService.getRevision(id, revision);
+        if (found == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(JournalRevisionResponse.from(found), HttpStatus.OK);
+    }
+
+    // Strong ETag: "<userId>-<journalVersion>" for the list, "<userId>-<journalVersion>-<entryId>" for one entry.
+    // A strong ETag promises identical bytes, so the CBOR and Smile encodings get their own ("...-cbor", "...-smile").
+    private String journalETag(UserRepository.JournalVersionView view, ObjectId entryId, NativeWebRequest webRequest) {
+        if (view == null) {
+            return null;
+        }
+        long version = view.getJournalVersion() != null ? view.getJournalVersion() : 0L;
+        String tag = view.getId().toHexString() + "-" + version;
+        if (entryId != null) {
+            tag += "-" + entryId.toHexString();
+        }
+        return "\"" + tag + formatSuffix(webRequest) + "\"";
+    }
+
+    // The encoding Spring will pick for this Accept header: the first acceptable type (they come sorted by quality and
+    // specificity) that one of the converters can write. JSON's converter comes first, so it also wins */*.
+    private String formatSuffix(NativeWebRequest webRequest) {
+        try {
+            for (MediaType acceptable : contentNegotiationManager.resolveMediaTypes(webRequest)) {
+                if (acceptable.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return "";
+                }
+                if (acceptable.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                    return "-cbor";
+                }
+                if (acceptable.isCompatibleWith(SMILE)) {
+                    return "-smile";
+                }
+            }
+        }
+        catch (HttpMediaTypeNotAcceptableException e) {
+            // unparsable Accept header: the response will not be written in any of them anyway
+        }
+        return "";
+    }
+
+    // Write-behind mode: 202 as soon as the entry is queued; 503 + Retry-After when the queue is full.
+    private ResponseEntity<?> queueEntry(JournalEntry myEntry, String userName) throws InterruptedException {
+        UserRepository.JournalVersionView owner = userService.findJournalVersion(userName);
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (!writeBehindService.submit(myEntry, owner.getId(), userName)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        return new ResponseEntity<>(Map.of("id", myEntry.getId().toHexString()), HttpStatus.ACCEPTED);
+    }
+
+    private static List<JournalEntry> mergePending(List<JournalEntry> stored, Collection<JournalEntry> pending) {
+        List<JournalEntry> merged = new ArrayList<>(stored != null ? stored : List.of());
+        Set<ObjectId> storedIds = new HashSet<>();
+        merged.forEach(entry -> storedIds.add(entry.getId()));
+        for (JournalEntry entry : pending) {
+            if (!storedIds.contains(entry.getId())) { // it may have been committed between the two reads
+                merged.add(entry);
+            }
+        }
+        return merged;
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.journalapp.controller;
+
+import com.example.journalapp.events.JournalEventHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/*
+GET /journal/events: Server-Sent Events stream of the caller's journal changes, instead of polling GET /journal.
+    event: created|updated|deleted
+    data: {"type":"updated","id":"<entry id>"}
+Authenticated like every /journal route (Authorization: Bearer header, so use a fetch-based SSE client; the browser
+EventSource cannot send headers). The stream ends after journal.events.timeout or if the client cannot keep up;
+clients reconnect and refresh with GET /journal (cheap thanks to its ETag).
+ */
+@RestController
+@RequestMapping("/journal/events")
+public class JournalEventController {
+
+    @Autowired
+    private JournalEventHub journalEventHub;
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SseEmitter emitter = journalEventHub.subscribe(authentication.getName());
+        if (emitter == null) {
+            return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS); // too many open streams for this user
+        }
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no") // nginx: pass events through instead of buffering them
+                .body(emitter);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.journalapp.controller;
+
+import com.example.journalapp.entity.ImportJob;
+import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.service.JournalImportService;
+import com.example.journalapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+// Bulk import of journal entries, see JournalImportService. The upload is the raw request body.
+@RestController
+@RequestMapping("/journal/import")
+public class JournalImportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+
+    @Autowired
+    private JournalImportService journalImportService;
+
+    @Autowired
+    private UserService userService;
+
+    // Content-Type application/x-ndjson or application/zip. Answers with the finished job (status DONE or FAILED);
+    // while it runs, GET /journal/import shows its progress.
+    @PostMapping
+    public ResponseEntity<?> importEntries(HttpServletRequest request) throws IOException {
+        UserRepository.JournalVersionView owner = currentOwner();
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        MediaType contentType;
+        try {
+            contentType = request.getContentType() != null ? MediaType.parseMediaType(request.getContentType()) : null;
+        }
+        catch (InvalidMediaTypeException e) {
+            contentType = null;
+        }
+        try {
+            ImportJob job;
+            if (contentType != null && contentType.isCompatibleWith(NDJSON)) {
+                job = journalImportService.importNdjson(owner.getId(), username(), request.getInputStream());
+            }
+            else if (contentType != null && contentType.isCompatibleWith(ZIP)) {
+                job = journalImportService.importMarkdownZip(owner.getId(), username(), request.getInputStream());
+            }
+            else {
+                return new ResponseEntity<>("Send application/x-ndjson or application/zip", HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+            }
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        }
+        catch (JournalImportService.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").body(e.getMessage());
+        }
+    }
+
+    // The caller's last 20 imports, newest first, without their record errors
+    @GetMapping
+    public ResponseEntity<List<ImportJob>> getImports() {
+        UserRepository.JournalVersionView owner = currentOwner();
+        if (owner == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(journalImportService.recentJobs(owner.getId()), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable ObjectId id) {
+        UserRepository.JournalVersionView owner = currentOwner();
+        ImportJob job = owner != null ? journalImportService.findJob(owner.getId(), id) : null;
+        if (job == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(job, HttpStatus.OK);
+    }
+
+    private UserRepository.JournalVersionView currentOwner() {
+        return userService.findJournalVersion(username());
+    }
+
+    private static String username() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+}
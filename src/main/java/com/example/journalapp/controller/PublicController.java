@@ -1,18 +1,26 @@
 package com.example.journalapp.controller;
 
+import com.example.journalapp.audit.AuditLog;
 import com.example.journalapp.entity.User;
+import com.example.journalapp.service.DatabaseUnavailableException;
 import com.example.journalapp.service.UserService;
+import com.example.journalapp.service.UsernameRegistry;
 import com.example.journalapp.utils.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 // Jab bhi kabhi koi springboot/spring application banaye, to ek HealthCheck controller jaroor bana lo.
 @RestController
 @RequestMapping("/public")
@@ -32,14 +40,33 @@ public class PublicController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private UsernameRegistry usernameRegistry;
+
+    @Autowired
+    private AuditLog auditLog;
+
     @GetMapping("/health-check")
     public String HealthCheck() {
         return "OK";
     }
 
+    @GetMapping("/username-available")
+    public ResponseEntity<?> isUsernameAvailable(@RequestParam String username) {
+        if (username.isBlank()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(Map.of("username", username, "available", !usernameRegistry.isTaken(username)), HttpStatus.OK);
+    }
+
     @PostMapping("/signup")
     public ResponseEntity<?> signup(@RequestBody User user){
         try {
+            // Known duplicates are turned away before saveNewUser spends ~100 ms on the BCrypt hash. The unique index
+            // still catches the rare race (two signups for one name at once, or a name taken on another node).
+            if (usernameRegistry.isTaken(user.getUsername())) {
+                return new ResponseEntity<>("Username already exists", HttpStatus.CONFLICT);
+            }
             userService.saveNewUser(user);
             return new ResponseEntity<>(HttpStatus.CREATED);
         }
@@ -52,7 +79,7 @@ public class PublicController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody User user){
+    public ResponseEntity<String> login(@RequestBody User user, HttpServletRequest request){
         try {
             /*
             Below statement represents:
@@ -100,8 +127,27 @@ public class PublicController {
                 3. It contains username, password, roles, isEnabled, etc.
              */
             String jwt = jwtUtil.generateToken(userDetails.getUsername());
+            auditLog.loginSucceeded(userDetails.getUsername(), request.getRemoteAddr());
             return new ResponseEntity<>(jwt, HttpStatus.OK);
         }
+        catch (InternalAuthenticationServiceException e){
+            // the user lookup itself failed, e.g. DatabaseUnavailableException: not the user's fault
+            if (e.getCause() instanceof DatabaseUnavailableException) {
+                return new ResponseEntity<>("Service temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            log.error("Exception occurred while authenticating ", e);
+            return new ResponseEntity<>("Incorrect username or password", HttpStatus.BAD_REQUEST);
+        }
+        catch (DatabaseUnavailableException e) {
+            return new ResponseEntity<>("Service temporarily unavailable", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        catch (AuthenticationException e){
+            // Wrong credentials are expected traffic (and the whole point of a credential-stuffing attack), so no
+            // stack trace here; one short line is enough.
+            log.warn("Login failed: {}", e.getMessage());
+            auditLog.loginFailed(user.getUsername(), request.getRemoteAddr());
+            return new ResponseEntity<>("Incorrect username or password", HttpStatus.BAD_REQUEST);
+        }
         catch (Exception e){
             log.error("Exception occurred while creating AuthenticationToken ", e);
             return new ResponseEntity<>("Incorrect username or password", HttpStatus.BAD_REQUEST);
@@ -1,9 +1,12 @@
 package com.example.journalapp.controller;
 
 import com.example.journalapp.dto.UpdateUserRequest;
-import com.example.journalapp.entity.User;
+import com.example.journalapp.events.JournalEventHub;
 import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.service.AccountDeletionService;
+import com.example.journalapp.service.TokenRevocationService;
 import com.example.journalapp.service.UserService;
+import com.example.journalapp.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -31,6 +34,18 @@ public class UserController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    @Autowired
+    private JournalEventHub journalEventHub;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @GetMapping
     public ResponseEntity<Map<String, String>> getUser(Authentication authentication) {
         String username = authentication.getName();
@@ -51,11 +66,12 @@ public class UserController {
          */
         String username = authentication.getName();
         /*
-        You STILL need the full user object
+        You STILL need the stored password hash
         → from MongoDB
-        → to update it, encode new password, modify username, etc.
+        → to check the old password before changing anything
+        (only the credentials are read: the journal list is not needed here)
          */
-        User userInDB = userService.findByUserName(username);
+        UserRepository.CredentialsView userInDB = userService.findCredentials(username);
         // If the user wants to change password (oldPassword provided)
         if (request.getOldPassword() != null && !request.getOldPassword().isEmpty()) {
             // Verify old password
@@ -65,18 +81,29 @@ public class UserController {
             }
         }
 
+        boolean credentialsChanged = false;
+        String newUsername = null;
+        String encodedPassword = null;
+
         // Update username if provided and not empty
         if (request.getUsername() != null && !request.getUsername().isEmpty()) {
-            userInDB.setUsername(request.getUsername());
+            credentialsChanged = !request.getUsername().equals(username);
+            newUsername = request.getUsername();
         }
 
         // If a new password is provided → update it
         if (request.getNewPassword() != null && !request.getNewPassword().isEmpty()) {
             // 2️⃣ Encode new password before saving it
-            String encodedPassword = passwordEncoder.encode(request.getNewPassword());
-            userInDB.setPassword(encodedPassword);
+            encodedPassword = passwordEncoder.encode(request.getNewPassword());
+            credentialsChanged = true;
+        }
+        userService.updateCredentials(username, newUsername, encodedPassword);
+        if (credentialsChanged) {
+            // Every token issued so far (possibly stolen) stops working; the client has to log in again.
+            // Also covers renames: otherwise old tokens would work for whoever signs up with the freed username.
+            tokenRevocationService.revokeAllTokensOf(username);
+            journalEventHub.disconnect(username);
         }
-        userService.saveUser(userInDB);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -84,7 +111,19 @@ public class UserController {
     public ResponseEntity<?> deleteUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        userService.deleteUserAndJournals(username);
+        // Only marks the account as deleted; AccountDeletionService purges the journals in the background.
+        if (!accountDeletionService.requestDeletion(username)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        tokenRevocationService.revokeAllTokensOf(username);
+        journalEventHub.disconnect(username);
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    // Revokes only the token used for this request; other devices stay logged in.
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String authorizationHeader) {
+        tokenRevocationService.revokeToken(jwtUtil.extractAllClaims(authorizationHeader.substring(7)));
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 }
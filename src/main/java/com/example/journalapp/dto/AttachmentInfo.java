@@ -0,0 +1,15 @@
+package com.example.journalapp.dto;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+
+import java.util.Date;
+
+// What clients see about an attachment: metadata only, the bytes come from the download endpoint.
+public record AttachmentInfo(String id, String filename, String contentType, long length, Date uploadDate) {
+
+    public static AttachmentInfo from(GridFSFile file) {
+        String contentType = file.getMetadata() != null ? file.getMetadata().getString("contentType") : null;
+        return new AttachmentInfo(file.getObjectId().toHexString(), file.getFilename(), contentType,
+                file.getLength(), file.getUploadDate());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.service.JournalChangesService;
+
+import java.util.List;
+
+/*
+Body of GET /journal/changes: entries created or updated since the token (current content), ids of deleted ones,
+and the token to send next time. While hasMore is true, ask again right away with the new token.
+ */
+public record JournalChangesResponse(List<JournalEntryResponse> changed, List<String> deleted, String token, boolean hasMore) {
+
+    public static JournalChangesResponse from(JournalChangesService.Changes changes) {
+        return new JournalChangesResponse(JournalEntryResponse.fromAll(changes.changed()),
+                changes.deleted().stream().map(id -> id.toHexString()).toList(),
+                changes.next().encode(), changes.hasMore());
+    }
+}
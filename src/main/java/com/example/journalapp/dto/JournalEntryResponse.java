@@ -0,0 +1,25 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.entity.JournalEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/*
+What clients see about a journal entry. Same JSON as the entity used to produce, but the id is already a hex string
+(no ToStringSerializer lookup per entry) and Jackson serializes a flat, final record instead of the mutable entity.
+ */
+public record JournalEntryResponse(String id, String title, String content, LocalDateTime date, List<String> tags,
+                                   Map<String, Double> metrics) {
+
+    public static JournalEntryResponse from(JournalEntry entry) {
+        return new JournalEntryResponse(entry.getId() != null ? entry.getId().toHexString() : null,
+                entry.getTitle(), entry.getContent(), entry.getDate(), entry.getTags() != null ? entry.getTags() : List.of(),
+                entry.getMetrics() != null ? entry.getMetrics() : Map.of());
+    }
+
+    public static List<JournalEntryResponse> fromAll(List<JournalEntry> entries) {
+        return entries.stream().map(JournalEntryResponse::from).toList();
+    }
+}
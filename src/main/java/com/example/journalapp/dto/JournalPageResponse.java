@@ -0,0 +1,16 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.service.JournalTagService;
+
+import java.util.List;
+
+/*
+One page of a journal list, newest first. `next` is the cursor for the following page, null on the last one.
+ */
+public record JournalPageResponse(List<JournalEntryResponse> entries, String next) {
+
+    public static JournalPageResponse from(JournalTagService.Page page) {
+        return new JournalPageResponse(JournalEntryResponse.fromAll(page.entries()),
+                page.next() != null ? page.next().encode() : null);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.entity.JournalRevision;
+
+import java.time.LocalDateTime;
+
+// One past version of a journal entry, with its content already rebuilt.
+public record JournalRevisionResponse(String entryId, int revision, String title, String content, LocalDateTime date) {
+
+    public static JournalRevisionResponse from(JournalRevision revision) {
+        return new JournalRevisionResponse(revision.getEntryId().toHexString(), revision.getRevision(),
+                revision.getTitle(), revision.getContent(), revision.getDate());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.repository.JournalRevisionRepository;
+
+import java.time.LocalDateTime;
+
+// Entry in the revision list: no content, fetch a revision to get it.
+public record RevisionInfo(int revision, String title, LocalDateTime date) {
+
+    public static RevisionInfo from(JournalRevisionRepository.RevisionSummary summary) {
+        return new RevisionInfo(summary.getRevision(), summary.getTitle(), summary.getDate());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.journalapp.dto;
+
+import com.example.journalapp.repository.UserRepository;
+
+import java.util.List;
+
+// Admin view of a user. Never contains the password hash or the journal entries.
+public record UserResponse(String id, String username, List<String> roles) {
+
+    public static UserResponse from(UserRepository.UserSummary user) {
+        return new UserResponse(user.getId().toHexString(), user.getUsername(), user.getRoles());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/*
+The materialized rollup behind GET /admin/stats: one document (id "summary") written by the aggregation pipelines in
+AdminStatsService, so serving the stats is a single findById. Each part carries the time it was computed.
+ */
+@Document(collection = "admin_stats")
+@Data
+@NoArgsConstructor
+public class AdminStats {
+
+    public static final String SUMMARY_ID = "summary";
+
+    // journal entries with a date on that day (UTC), one document per day in admin_stats_daily
+    public record DayCount(String day, long entries) {
+    }
+
+    // users with at least `atLeast` entries (and fewer than the next bucket's atLeast)
+    public record EntriesPerUserBucket(int atLeast, long users) {
+    }
+
+    @Id
+    private String id;
+
+    private long totalUsers; // accounts waiting for their purge are not counted
+    private Map<String, Long> usersByRole;
+    private List<EntriesPerUserBucket> entriesPerUser;
+    private Date usersRefreshedAt;
+
+    private List<DayCount> entriesPerDay; // the last admin-stats.summary-days days that had entries, oldest first
+    private Date entriesRefreshedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.journalapp.entity;
+
+import com.example.journalapp.utils.ContentCompression;
+import org.bson.types.Binary;
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+/*
+Used on JournalEntry.content via @ValueConverter.
+Write: content shorter than ContentCompression.THRESHOLD_CHARS (or that does not shrink) stays a normal string;
+       anything longer is stored as BSON binary = marker byte + deflate data.
+Read:  binary → decompress; string → old/short document, return as is. So existing documents keep working and get
+       compressed the next time they are saved.
+ */
+public class CompressedContentConverter implements MongoValueConverter<String, Object> {
+
+    @Override
+    public String read(Object value, MongoConversionContext context) {
+        if (value instanceof Binary binary) {
+            return ContentCompression.decompress(binary.getData());
+        }
+        return value.toString();
+    }
+
+    @Override
+    public Object write(String value, MongoConversionContext context) {
+        if (value.length() < ContentCompression.THRESHOLD_CHARS) {
+            return value;
+        }
+        byte[] packed = ContentCompression.compress(value);
+        // length() is a lower bound of the UTF-8 size, so this only keeps binaries that really save space
+        return packed.length < value.length() ? new Binary(packed) : value;
+    }
+}
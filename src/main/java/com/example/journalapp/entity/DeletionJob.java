@@ -0,0 +1,41 @@
+package com.example.journalapp.entity;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/*
+Background purge of one deleted account (see AccountDeletionService). The id is the user's id, so an account can
+never get two jobs. A worker owns the job while leaseUntil is in the future; if that worker dies the lease runs
+out and another node continues where it stopped.
+ */
+@Document(collection = "deletion_jobs")
+@Data
+@NoArgsConstructor
+public class DeletionJob {
+
+    public enum Status { PENDING, RUNNING, DONE }
+
+    @Id
+    @JsonSerialize(using = ToStringSerializer.class)
+    private ObjectId id;
+
+    private String username; // the name before deletion, for admins looking for a job
+    private Status status;
+    private Date createdAt;
+    private Date startedAt;
+    private Date finishedAt;
+
+    private Date leaseUntil;
+    private String leaseOwner;
+
+    private Long totalEntries; // counted when the first worker picks the job up
+    private long purgedEntries;
+    private String lastError;
+}
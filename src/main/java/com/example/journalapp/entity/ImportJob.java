@@ -0,0 +1,54 @@
+package com.example.journalapp.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/*
+Progress and outcome of one POST /journal/import (see JournalImportService). Written when the upload starts and
+updated after every batch, so GET /journal/import shows a running import while its upload is still streaming.
+Only the first journal.import.max-errors record errors are kept; `failed` counts all of them.
+Jobs are dropped RETENTION after they started (TTL index, see IndexPlan).
+ */
+@Document(collection = "import_jobs")
+@Data
+@NoArgsConstructor
+public class ImportJob {
+
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    // `record` is the 1-based position in the upload (line of the NDJSON, file of the zip), `name` the zip entry
+    public record RecordError(long record, String name, String error) {
+    }
+
+    @Id
+    @JsonSerialize(using = ToStringSerializer.class)
+    private ObjectId id;
+
+    @JsonIgnore
+    private ObjectId ownerId;
+
+    private String format;
+    private Status status;
+    private Date startedAt;
+    private Date updatedAt;
+    private Date finishedAt;
+
+    private long records;  // read so far
+    private long imported;
+    private long failed;
+    private List<RecordError> errors = new ArrayList<>();
+    private String lastError; // why the whole import stopped, when FAILED
+}
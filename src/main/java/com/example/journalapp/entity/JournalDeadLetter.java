@@ -0,0 +1,38 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/*
+A write-behind entry that was acknowledged with 202 but could not be committed (see JournalWriteBehindService).
+The id is the entry's id. It stays here until an admin retries it (POST /admin/dead-letters/{id}/retry) or the
+owner's account is purged.
+ */
+@Document(collection = "journal_dead_letters")
+@Data
+@NoArgsConstructor
+public class JournalDeadLetter {
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId ownerId;
+    private String username;
+    private JournalEntry entry;
+    private String error;
+    private Date failedAt;
+
+    public JournalDeadLetter(JournalEntry entry, ObjectId ownerId, String username, Exception error) {
+        this.id = entry.getId();
+        this.ownerId = ownerId;
+        this.username = username;
+        this.entry = entry;
+        this.error = String.valueOf(error);
+        this.failedAt = new Date();
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.journalapp.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.*;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.convert.ValueConverter;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Document(collection = "journal_entries") //“This Java class represents a document inside a MongoDB collection.”
 @Data // Lombok generates all the essential functions(getters, setters, etc.) for us if we write this.
@@ -40,7 +44,23 @@ public class JournalEntry {
     @NonNull
     private String title;
 
+    @ValueConverter(CompressedContentConverter.class) // long content is stored deflate-compressed, see the converter
     private String content;
 
     private LocalDateTime date;
+
+    private List<String> tags; // normalized by JournalEntryService (see utils/Tags), counted in tag_counts
+
+    private Map<String, Double> metrics; // optional, e.g. {"mood": 4, "sleep": 7.5}; see utils/Metrics and JournalMetricsService
+
+    // Both are set by JournalEntryService on every write (never taken from a request body) and feed
+    // GET /journal/changes, see JournalChangesService.
+    @JsonIgnore
+    private ObjectId ownerId;
+
+    @JsonIgnore
+    private long changeSeq; // the owner's journalVersion right after the write that last touched this entry
+
+    @JsonIgnore
+    private String monthDay; // "MM-dd" of date, also set by JournalEntryService; what OnThisDayService looks up
 }
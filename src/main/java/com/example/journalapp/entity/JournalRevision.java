@@ -0,0 +1,39 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*
+One saved version of a journal entry (see JournalRevisionService). Revision 0 is the entry as it was created,
+revision n the state after its n-th edit.
+Every snapshotEvery-th revision is a snapshot (full content). The others only store a TextDelta against the previous
+revision: keep deltaPrefix chars, then deltaInserted, then the last deltaSuffix chars.
+ */
+@Document(collection = "journal_revisions")
+@Data
+@NoArgsConstructor
+public class JournalRevision {
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId entryId;
+    private int revision;
+    private String title; // titles are short, always stored in full
+    private LocalDateTime date;
+    private boolean snapshot;
+
+    @ValueConverter(CompressedContentConverter.class)
+    private String content; // snapshots only
+
+    private int deltaPrefix;
+    private int deltaSuffix;
+    @ValueConverter(CompressedContentConverter.class)
+    private String deltaInserted;
+}
@@ -0,0 +1,37 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.util.Date;
+
+/*
+Left behind by a deleted journal entry so GET /journal/changes can tell clients to drop it (see JournalChangesService).
+The id is the deleted entry's id. Mongo removes tombstones RETENTION after the delete (TTL index in IndexPlan);
+change tokens older than that are refused, because deletes they did not see may already be forgotten.
+ */
+@Document(collection = "journal_tombstones")
+@Data
+@NoArgsConstructor
+public class JournalTombstone {
+
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId ownerId;
+    private long changeSeq;
+    private Date deletedAt;
+
+    public JournalTombstone(ObjectId entryId, ObjectId ownerId, long changeSeq) {
+        this.id = entryId;
+        this.ownerId = ownerId;
+        this.changeSeq = changeSeq;
+        this.deletedAt = new Date();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TimeSeries;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Date;
+
+/*
+One change of one metric of one entry (see utils/Metrics.Change), in the time-series collection journal_metrics.
+The measurement time is when the change was written, so JournalMetricsService can fold new points into the rollups
+by reading a time range; `day` is the entry's date, the bucket the change counts for. Mongo groups the points of
+an owner and metric (the meta field) into compressed buckets and drops them after RETENTION, long after they have
+been rolled up.
+ */
+@Document(collection = "journal_metrics")
+@TimeSeries(timeField = "recordedAt", metaField = "meta", granularity = Granularity.HOURS, expireAfter = "90d")
+@Data
+@NoArgsConstructor
+public class MetricPoint {
+
+    public static final Duration RETENTION = Duration.ofDays(90); // keep in sync with expireAfter above
+
+    public record Meta(ObjectId ownerId, String metric) {
+    }
+
+    @Id
+    private ObjectId id;
+
+    private Date recordedAt;
+    private Meta meta;
+    private LocalDate day;
+    private double value;
+    private int count; // +1 for a value that was set, -1 for one that went away
+    private ObjectId entryId;
+}
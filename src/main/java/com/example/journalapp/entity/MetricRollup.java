@@ -0,0 +1,39 @@
+package com.example.journalapp.entity;
+
+import com.example.journalapp.utils.Metrics;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/*
+Sum and count of one metric of one user over one day, week or month, maintained by JournalMetricsService from the
+points in journal_metrics. GET /journal/trends only reads these, at most one document per chart point, so a chart
+costs the same whether it covers a month or ten years of entries. The id is
+"<owner id>:<metric>:<granularity>:<start>"; appliedThrough is the end of the last rollup window folded in, which
+makes re-running a window after a crash a no-op.
+ */
+@Document(collection = "metric_rollups")
+@Data
+@NoArgsConstructor
+public class MetricRollup {
+
+    @Id
+    private String id;
+
+    private ObjectId ownerId;
+    private String metric;
+    private Metrics.Granularity granularity;
+    private LocalDate start;
+    private double sum;
+    private long count;
+    private Date appliedThrough;
+
+    public static String idFor(ObjectId ownerId, String metric, Metrics.Granularity granularity, LocalDate start) {
+        return ownerId.toHexString() + ":" + metric + ":" + granularity + ":" + start;
+    }
+}
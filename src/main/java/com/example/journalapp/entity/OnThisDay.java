@@ -0,0 +1,37 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/*
+One user's "on this day" list for one date, written ahead of time by OnThisDayService so GET /journal/on-this-day is a
+findById. The id is "<owner id>:<MM-dd>" (see idFor). Only users with entries on that date in earlier years get one.
+A TTL index on expiresAt drops the document a day after its date.
+ */
+@Document(collection = "on_this_day")
+@Data
+@NoArgsConstructor
+public class OnThisDay {
+
+    // Enough of an entry to show it in a list; the client loads the full entry by id when it is opened.
+    public record Memory(String id, String title, LocalDateTime date, String excerpt) {
+    }
+
+    @Id
+    private String id;
+
+    private LocalDate forDate;
+    private List<Memory> memories; // oldest first
+    private Date expiresAt;
+
+    public static String idFor(Object ownerId, String monthDay) {
+        return ownerId + ":" + monthDay;
+    }
+}
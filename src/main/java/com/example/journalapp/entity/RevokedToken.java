@@ -0,0 +1,31 @@
+package com.example.journalapp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+/*
+One document per revocation. The id says what is revoked:
+    "jti:<token id>"  → exactly one token (logout)
+    "sub:<username>"  → every token of that user issued up to revokedAt (password change, rename, account deletion)
+Mongo's TTL monitor deletes the document at expiresAt, i.e. once every token it could match has expired anyway.
+ */
+@Document(collection = "revoked_tokens")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    private String id;
+
+    private Date revokedAt;
+
+    @Indexed(expireAfter = "0s") // TTL index: "delete this document when expiresAt is in the past"
+    private Date expiresAt;
+}
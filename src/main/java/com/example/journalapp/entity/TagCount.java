@@ -0,0 +1,30 @@
+package com.example.journalapp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/*
+How many of a user's entries carry a tag. Kept up to date with $inc by JournalEntryService on every create, update
+and delete (see JournalTagService), so GET /journal/tags reads one small document per tag instead of aggregating the
+journal. The id is "<owner id>:<tag>", which makes the upsert of a first use race-free. Counts that dropped to 0
+stay until the owner is deleted and are filtered out on read.
+ */
+@Document(collection = "tag_counts")
+@Data
+@NoArgsConstructor
+public class TagCount {
+
+    @Id
+    private String id;
+
+    private ObjectId ownerId;
+    private String tag;
+    private long count;
+
+    public static String idFor(ObjectId ownerId, String tag) {
+        return ownerId.toHexString() + ":" + tag;
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.journalapp.entity;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NonNull;
+import lombok.ToString;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
@@ -9,24 +11,43 @@ import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @Document(collection = "users") //“This Java class represents a document inside a MongoDB collection.”
 @Data // Lombok generates all the essential functions(getters, setters, etc.) for us if we write this.
+// Identity is the _id: comparing or hashing a user must not walk (and lazily resolve) the whole journal list.
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class User {
 
     @Id
+    @EqualsAndHashCode.Include
     private ObjectId id;
 
     @Indexed(unique = true) //  signifies the creation of a unique index on the specified field(s), however it
     // won't happen automatically so we have to set it true in application.properties.
     // “Please create an index on the username field so searches become fast and ensure it(username) is unique.”
+    // Auto creation is now off: the index is created from config/IndexPlan, this annotation only documents it.
     @NonNull
     private String username;
     @NonNull
+    @ToString.Exclude // keep the hash out of logs
     private String password;
 
     @DBRef // we created a reference of JournalEntry entity
+    @ToString.Exclude
     private List<JournalEntry> journalEntries = new ArrayList<>();
     private List<String> roles;
+
+    // Bumped atomically (with $inc) on every journal create/update/delete. GET /journal uses it as the ETag, so a
+    // client that already has the latest version gets a 304 without us loading or serializing the entries.
+    private long journalVersion;
+
+    // Set by BackupService when the journal comes back from a backup: change tokens issued before that describe
+    // another history and must not be answered incrementally.
+    private Date journalRestoredAt;
+
+    // Set when the account is deleted. The user is renamed to "deleted:<id>" at the same moment (freeing the username)
+    // and removed for good by AccountDeletionService once all of its journal entries are purged.
+    private Date deletedAt;
 }
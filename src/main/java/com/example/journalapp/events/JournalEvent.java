@@ -0,0 +1,32 @@
+package com.example.journalapp.events;
+
+import com.example.journalapp.audit.AuditAction;
+import org.bson.types.ObjectId;
+
+// "Entry entryId of user username was created/updated/deleted". Clients re-fetch the entry (with its ETag) if they care.
+// "imported" carries the import job id instead: a batch of entries was added, clients re-sync (GET /journal/changes).
+public record JournalEvent(String username, String type, String entryId) {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String IMPORTED = "imported";
+
+    public static JournalEvent of(String username, String type, ObjectId entryId) {
+        return new JournalEvent(username, type, entryId.toHexString());
+    }
+
+    public AuditAction auditAction() {
+        return switch (type) {
+            case CREATED -> AuditAction.JOURNAL_CREATED;
+            case UPDATED -> AuditAction.JOURNAL_UPDATED;
+            case IMPORTED -> AuditAction.JOURNAL_IMPORTED;
+            default -> AuditAction.JOURNAL_DELETED;
+        };
+    }
+
+    // The SSE data line; built by hand because ids and types never need escaping.
+    public String toJson() {
+        return "{\"type\":\"" + type + "\",\"id\":\"" + entryId + "\"}";
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.journalapp.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Fan-out of journal events to the SSE connections of GET /journal/events.
+An idle subscriber costs one async request (no thread: Tomcat parks it) plus a small queue here, so tens of
+thousands of open streams are fine. Nothing on the publishing side ever blocks or waits for a client:
+    publish()   → handed to the relay on a publisher thread of its own (with relay=mongo an insert can hang for the
+                  driver's timeout while Mongo is down; that must not hold up delivery), returns at once
+    relay       → onEvent(): offer the pre-rendered event to the queue of each of the user's subscribers
+    senders     → take subscribers with pending events from one run queue and drain each queue into its emitter; a
+                  subscriber is in the run queue at most once (draining flag), so events stay ordered and the run
+                  queue never holds more than one slot per open stream, however many there are
+A subscriber whose queue is full (client not reading, dead TCP connection) is evicted and has to reconnect.
+emitter.send() itself blocks while the client's TCP window is full, and Tomcat only gives up after its write timeout
+(server.tomcat.connection-timeout). So a send running longer than journal.events.send-timeout-ms evicts the subscriber
+and one extra sender thread runs for as long as that send stays stuck (at most max-stalled-sends extra): stalled
+clients cost threads of their own instead of the sender threads everyone else is waiting for.
+The publisher's queue is bounded (publish-queue-capacity); when it is full the event is dropped and counted.
+Heartbeats every journal.events.heartbeat-interval-ms keep proxies from closing idle streams and find dead clients.
+ */
+@Component
+@Slf4j
+public class JournalEventHub {
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("heartbeat").build();
+
+    private final JournalEventRelay relay;
+    private final Map<String, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor publisher;
+    // subscribers whose queue has events and that no sender is draining yet
+    private final BlockingQueue<Subscriber> ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger senderNumber = new AtomicInteger();
+    private final AtomicInteger liveSenders = new AtomicInteger();
+    private volatile boolean running = true;
+    private final Counter evictions;
+    private final Counter dropped;
+    private final int queueCapacity;
+    private final int maxPerUser;
+    private final long timeoutMs;
+    private final int senderThreads;
+    private final int maxStalledSends;
+    private final long sendTimeoutNanos;
+    // sends that ran past send-timeout-ms and have not returned yet; each one adds a thread to the pool (up to the max)
+    private final AtomicInteger stalledSends = new AtomicInteger();
+    // subscribers with an emitter.send() in progress, watched by evictStalledSends (evicted ones included)
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    public JournalEventHub(JournalEventRelay relay,
+                           MeterRegistry meterRegistry,
+                           @Value("${journal.events.queue-capacity:32}") int queueCapacity,
+                           @Value("${journal.events.max-streams-per-user:10}") int maxPerUser,
+                           @Value("${journal.events.timeout:30m}") Duration timeout,
+                           @Value("${journal.events.sender-threads:4}") int senderThreads,
+                           @Value("${journal.events.publish-queue-capacity:10000}") int publishQueueCapacity,
+                           @Value("${journal.events.send-timeout-ms:5000}") long sendTimeoutMs,
+                           @Value("${journal.events.max-stalled-sends:64}") int maxStalledSends) {
+        this.relay = relay;
+        this.queueCapacity = queueCapacity;
+        this.maxPerUser = maxPerUser;
+        this.timeoutMs = timeout.toMillis();
+        this.senderThreads = senderThreads;
+        this.maxStalledSends = maxStalledSends;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.publisher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(publishQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "journal-events-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("journal.events.subscribers", subscriberCount, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("journal.events.stalled-sends", stalledSends, AtomicInteger::get).register(meterRegistry);
+        this.evictions = Counter.builder("journal.events.evictions").register(meterRegistry);
+        this.dropped = Counter.builder("journal.events.dropped").register(meterRegistry);
+        relay.subscribe(this::onEvent);
+        resizeSenders();
+    }
+
+    // null when the user already has max-streams-per-user open streams
+    public SseEmitter subscribe(String username) {
+        return subscribe(username, new SseEmitter(timeoutMs));
+    }
+
+    // tests hand in emitters whose send() they control
+    SseEmitter subscribe(String username, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(username, emitter, new ArrayBlockingQueue<>(queueCapacity));
+        // Inside compute() so a concurrent remove() cannot drop the set between our size check and our add.
+        Set<Subscriber> subscribers = subscribersByUser.compute(username, (k, current) -> {
+            Set<Subscriber> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxPerUser) {
+                set.add(subscriber);
+            }
+            return set;
+        });
+        if (!subscribers.contains(subscriber)) {
+            return null;
+        }
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    public void publish(JournalEvent event) {
+        try {
+            publisher.execute(() -> {
+                try {
+                    relay.publish(event);
+                }
+                catch (Exception e) {
+                    log.warn("Could not publish journal event {}: {}", event, e.getMessage());
+                }
+            });
+        }
+        catch (RejectedExecutionException e) {
+            // publish queue full (or shutting down): the stream misses this change, clients resync on reconnect
+            dropped.increment();
+            log.warn("Dropping journal event {}, the publish queue is full", event);
+        }
+    }
+
+    // Closes every stream of the user, e.g. after a rename or account deletion (their tokens are revoked anyway).
+    public void disconnect(String username) {
+        Set<Subscriber> subscribers = subscribersByUser.get(username);
+        if (subscribers != null) {
+            subscribers.forEach(this::close);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${journal.events.heartbeat-interval-ms:15000}")
+    public void sendHeartbeats() {
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(subscriber -> enqueue(subscriber, HEARTBEAT)));
+    }
+
+    // Evicts subscribers whose send has been stuck for longer than send-timeout-ms and makes up for the blocked thread.
+    @Scheduled(fixedDelayString = "${journal.events.send-check-interval-ms:1000}")
+    public void evictStalledSends() {
+        long now = System.nanoTime();
+        sending.forEach(subscriber -> {
+            long startedAt = subscriber.sendStartedAt;
+            if (startedAt != 0 && now - startedAt > sendTimeoutNanos && subscriber.stalled.compareAndSet(false, true)) {
+                stalledSends.incrementAndGet();
+                resizeSenders();
+                if (subscriber.sendStartedAt != startedAt) {
+                    unstall(subscriber); // it returned meanwhile, possibly before drain() looked at the flag
+                }
+                else if (!subscriber.closed.get()) {
+                    log.debug("Evicting stalled event stream of {}", subscriber.username);
+                    evict(subscriber);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(this::close));
+        publisher.shutdown();
+    }
+
+    private void onEvent(JournalEvent event) {
+        Set<Subscriber> subscribers = subscribersByUser.get(event.username());
+        if (subscribers == null) {
+            return;
+        }
+        Set<ResponseBodyEmitter.DataWithMediaType> rendered = SseEmitter.event().name(event.type()).data(event.toJson()).build();
+        subscribers.forEach(subscriber -> enqueue(subscriber, rendered));
+    }
+
+    private void enqueue(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            log.debug("Evicting slow event stream of {}", subscriber.username);
+            evict(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            ready.add(subscriber);
+        }
+    }
+
+    // One sender thread. The ones above the current target (a stalled send returned) finish once they are idle.
+    private void runSender() {
+        try {
+            while (running) {
+                Subscriber subscriber = ready.poll(1, TimeUnit.SECONDS);
+                if (subscriber != null) {
+                    try {
+                        drain(subscriber);
+                    }
+                    catch (RuntimeException e) {
+                        log.warn("Event stream of {} failed: {}", subscriber.username, e.getMessage());
+                        remove(subscriber);
+                    }
+                }
+                int live = liveSenders.get();
+                if (live > targetSenders() && liveSenders.compareAndSet(live, live - 1)) {
+                    return;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        liveSenders.decrementAndGet();
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Set<ResponseBodyEmitter.DataWithMediaType> event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.sendStartedAt = System.nanoTime();
+                sending.add(subscriber);
+                try {
+                    subscriber.emitter.send(event);
+                }
+                finally {
+                    sending.remove(subscriber);
+                    subscriber.sendStartedAt = 0;
+                    unstall(subscriber);
+                }
+            }
+        }
+        catch (IOException | IllegalStateException e) {
+            // client went away (or the emitter already completed)
+            remove(subscriber);
+        }
+        finally {
+            subscriber.draining.set(false);
+        }
+        // an event offered after our last poll but before draining was reset would otherwise wait for the next one
+        if (subscriber.closed.get()) {
+            completeIfIdle(subscriber); // closed while we were sending: close() left the completion to us
+        }
+        else if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void evict(Subscriber subscriber) {
+        evictions.increment();
+        close(subscriber);
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        completeIfIdle(subscriber);
+    }
+
+    // complete() waits for a send in progress (the emitter's lock), so it only runs while no drain does; a drain that
+    // is running calls this again when it exits.
+    private void completeIfIdle(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                if (subscriber.completed.compareAndSet(false, true)) {
+                    subscriber.emitter.complete();
+                }
+            }
+            finally {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    // The watchdog started an extra sender for this send and it has returned: let one sender go again. Both drain()
+    // and the watchdog call this, the flag makes sure only one of them does.
+    private void unstall(Subscriber subscriber) {
+        if (subscriber.stalled.compareAndSet(true, false)) {
+            stalledSends.decrementAndGet();
+            resizeSenders();
+        }
+    }
+
+    // senderThreads plus one per stalled send (capped), so stuck sends do not eat the threads the others need
+    private int targetSenders() {
+        return senderThreads + Math.min(stalledSends.get(), maxStalledSends);
+    }
+
+    // Starts senders up to the target; extra ones retire by themselves (runSender).
+    private void resizeSenders() {
+        int live;
+        while ((live = liveSenders.get()) < targetSenders()) {
+            if (liveSenders.compareAndSet(live, live + 1)) {
+                Thread thread = new Thread(this::runSender, "journal-events-" + senderNumber.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscriber.queue.clear();
+        subscribersByUser.computeIfPresent(subscriber.username, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static final class Subscriber {
+        final String username;
+        final SseEmitter emitter;
+        final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean stalled = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        // System.nanoTime() when the running emitter.send() started, 0 while not sending
+        volatile long sendStartedAt;
+
+        Subscriber(String username, SseEmitter emitter, BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue) {
+            this.username = username;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+    }
+}
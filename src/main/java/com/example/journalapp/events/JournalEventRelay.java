@@ -0,0 +1,19 @@
+package com.example.journalapp.events;
+
+import java.util.function.Consumer;
+
+/*
+How a journal event reaches the JournalEventHub of every instance, so a client connected to node B hears about a
+write handled by node A.
+    LocalJournalEventRelay   → single node and tests (everything stays in-process)
+    MongoJournalEventRelay   → several nodes: events are inserted into journal_events and read back by every node
+                               through a change stream
+Picked with journal.events.relay=local|mongo (see EventsConfig).
+ */
+public interface JournalEventRelay {
+
+    void publish(JournalEvent event);
+
+    // Called for every event, including the ones published by this node.
+    void subscribe(Consumer<JournalEvent> listener);
+}
@@ -0,0 +1,21 @@
+package com.example.journalapp.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// In-process relay: publish() hands the event to the listeners straight away.
+public class LocalJournalEventRelay implements JournalEventRelay {
+
+    private final List<Consumer<JournalEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(JournalEvent event) {
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<JournalEvent> listener) {
+        listeners.add(listener);
+    }
+}
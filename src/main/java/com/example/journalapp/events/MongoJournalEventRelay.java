@@ -0,0 +1,83 @@
+package com.example.journalapp.events;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListener;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.match;
+import static org.springframework.data.mongodb.core.aggregation.Aggregation.newAggregation;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Multi-node relay. publish() inserts the event into journal_events; every instance (this one included) follows the
+inserts of that collection with a change stream and hands them to its hub. A TTL index (see IndexPlan) removes the
+documents after an hour, they are only needed while they travel.
+Events published while the stream is reconnecting are missed; clients catch up with GET /journal after a reconnect.
+ */
+@Slf4j
+public class MongoJournalEventRelay implements JournalEventRelay, AutoCloseable {
+
+    static final String COLLECTION = "journal_events";
+
+    private final MongoTemplate mongoTemplate;
+    private final List<Consumer<JournalEvent>> listeners = new CopyOnWriteArrayList<>();
+    private MessageListenerContainer container;
+
+    public MongoJournalEventRelay(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void publish(JournalEvent event) {
+        mongoTemplate.getCollection(COLLECTION).insertOne(new Document("username", event.username())
+                .append("type", event.type())
+                .append("entryId", event.entryId())
+                .append("createdAt", new Date()));
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<JournalEvent> listener) {
+        listeners.add(listener);
+        if (container == null) {
+            start();
+        }
+    }
+
+    private void start() {
+        MessageListener<ChangeStreamDocument<Document>, Document> listener = this::onInsert;
+        ChangeStreamRequest<Document> request = ChangeStreamRequest.builder(listener)
+                .collection(COLLECTION)
+                .filter(newAggregation(match(where("operationType").is("insert"))))
+                .build();
+        container = new DefaultMessageListenerContainer(mongoTemplate);
+        container.register(request, Document.class, e -> log.warn("Journal event change stream error: {}", e.getMessage()));
+        container.start();
+    }
+
+    private void onInsert(Message<ChangeStreamDocument<Document>, Document> message) {
+        Document event = message.getBody();
+        if (event != null) {
+            JournalEvent journalEvent = new JournalEvent(event.getString("username"), event.getString("type"),
+                    event.getString("entryId"));
+            listeners.forEach(l -> l.accept(journalEvent));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.journalapp.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/*
+Gzips the big GET /journal and GET /journal/id/{id} responses.
+Why not just server.compression? Tomcat refuses to compress any response that carries a STRONG ETag (a strong ETag
+promises byte-for-byte identical bodies, and gzip changes the bytes). Those two endpoints carry exactly such ETags,
+so we compress them here and give the gzipped variant its own ETag ("...-gzip"), the same trick Apache's mod_deflate uses.
+When the client sends that ETag back in If-None-Match we strip the suffix again, so the controller only ever compares
+against its plain version ETag.
+ */
+@Component
+public class JournalGzipFilter extends OncePerRequestFilter {
+
+    private static final Pattern JOURNAL_READS = Pattern.compile("^/journal(/id/[^/]+)?$");
+    private static final String GZIP_SUFFIX = "-gzip\"";
+
+    @Value("${journal.gzip.min-response-size:2048}")
+    private int minResponseSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !JOURNAL_READS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean acceptsGzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        // The journal is already fully in memory by the time it is serialized, so buffering the body here costs little.
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(new IfNoneMatchRequest(request), wrapper);
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT); // JSON, CBOR or Smile, see JacksonConfig
+        byte[] body = wrapper.getContentAsByteArray();
+        if (!acceptsGzip || wrapper.getStatus() != HttpServletResponse.SC_OK || body.length < minResponseSize) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        String eTag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (eTag != null && eTag.startsWith("\"")) {
+            response.setHeader(HttpHeaders.ETAG, eTag.substring(0, eTag.length() - 1) + GZIP_SUFFIX);
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(compressed.size());
+        compressed.writeTo(response.getOutputStream());
+    }
+
+    // Turns "abc-gzip" back into "abc" inside If-None-Match so both variants match the same version.
+    private static final class IfNoneMatchRequest extends HttpServletRequestWrapper {
+
+        IfNoneMatchRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return value != null && HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? strip(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            List<String> values = new ArrayList<>();
+            for (String value : Collections.list(super.getHeaders(name))) {
+                values.add(strip(value));
+            }
+            return Collections.enumeration(values);
+        }
+
+        private static String strip(String value) {
+            return value.replace(GZIP_SUFFIX, "\"");
+        }
+    }
+}
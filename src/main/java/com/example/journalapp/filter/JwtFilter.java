@@ -1,15 +1,19 @@
 package com.example.journalapp.filter;
 
+import com.example.journalapp.service.DatabaseUnavailableException;
+import com.example.journalapp.service.TokenRevocationService;
+import com.example.journalapp.service.UserDetailsServiceImpl;
 import com.example.journalapp.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -101,11 +105,14 @@ public class JwtFilter extends OncePerRequestFilter { // OncePerRequestFilter en
 //    This filter runs exactly once per request — not twice, not multiple times through forwards.
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private UserDetailsServiceImpl userDetailsService;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     // HttpServletRequest request : This represents the incoming HTTP request(contains everything we send in fetch() in JS).
     // HttpServletResponse response : Represents the response that your server will send back.
     // FilterChain : This represents the chain of filters Spring Security uses.
@@ -116,10 +123,32 @@ public class JwtFilter extends OncePerRequestFilter { // OncePerRequestFilter en
         String jwt = null;
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
-            username = jwtUtil.extractUsername(jwt); // JWT contains "sub": "vedansh". This line reads that.
+            Claims claims = jwtUtil.extractAllClaims(jwt);
+            // A revoked token (logout, password change, deleted account) is treated exactly like no token at all.
+            // For the normal, non-revoked token this is an in-memory Bloom filter lookup, not a DB call.
+            try {
+                if (!tokenRevocationService.isRevoked(claims)) {
+                    username = claims.getSubject(); // JWT contains "sub": "vedansh". This line reads that.
+                }
+            }
+            catch (DatabaseUnavailableException e) {
+                // a Bloom filter hit needs the DB to tell a revoked token from a false positive
+                response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
         }
         if(username != null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username); // I know the username from token. Now let me load full user info from DB.
+            UserDetails userDetails;
+            try {
+                userDetails = userDetailsService.loadUserForToken(username); // I know the username from token. Now let me load full user info from DB.
+            }
+            catch (DatabaseUnavailableException e) {
+                // Filters run outside Spring MVC, so @ResponseStatus does not apply here: answer the 503 ourselves.
+                response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
 //            WHY NOT JUST USE UserService.findByUsername() ? Because Spring Security does not work with your custom User class.
 //            Spring Security wants its users in a specific internal format, called: UserDetails. Your User class ≠ Spring Security’s UserDetails class.
 //            WHY DOES SPRING SECURITY NEED UserDetails?
@@ -0,0 +1,114 @@
+package com.example.journalapp.filter;
+
+import com.example.journalapp.utils.JwtUtil;
+import com.example.journalapp.utils.RateLimiter;
+import io.jsonwebtoken.JwtException;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Runs BEFORE JwtFilter (see SpringSecurity), so a rejected request never touches the DB, BCrypt or the controllers.
+Route groups, each with its own limits (rate-limit.<group>.capacity / rate-limit.<group>.refill-per-minute):
+    auth   → /public/login, /public/signup      keyed by client IP (these run BCrypt, so they get the tightest limit)
+    public → every other /public/** route       keyed by client IP
+    api    → /journal/**, /user/**, /admin/**   keyed by username when the bearer token is valid, else by IP
+The client IP is getRemoteAddr(), which Tomcat takes from X-Forwarded-For behind a trusted proxy
+(server.forward-headers-strategy=native); without that every client behind the proxy would share one bucket.
+A rejection is a 429 with Retry-After and nothing else: no body, no log line (a flood would otherwise flood the logs).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    @Value("${rate-limit.auth.capacity:10}")
+    private int authCapacity;
+    @Value("${rate-limit.auth.refill-per-minute:10}")
+    private int authRefillPerMinute;
+
+    @Value("${rate-limit.public.capacity:60}")
+    private int publicCapacity;
+    @Value("${rate-limit.public.refill-per-minute:600}")
+    private int publicRefillPerMinute;
+
+    @Value("${rate-limit.api.capacity:100}")
+    private int apiCapacity;
+    @Value("${rate-limit.api.refill-per-minute:1200}")
+    private int apiRefillPerMinute;
+
+    private RateLimiter authLimiter;
+    private RateLimiter publicLimiter;
+    private RateLimiter apiLimiter;
+
+    @PostConstruct
+    public void init() {
+        authLimiter = new RateLimiter(authCapacity, authRefillPerMinute, maxKeys);
+        publicLimiter = new RateLimiter(publicCapacity, publicRefillPerMinute, maxKeys);
+        apiLimiter = new RateLimiter(apiCapacity, apiRefillPerMinute, maxKeys);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod()); // CORS preflights are cheap and carry no credentials
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long waitNanos;
+        if (path.equals("/public/login") || path.equals("/public/signup")) {
+            waitNanos = authLimiter.tryAcquire(request.getRemoteAddr());
+        }
+        else if (path.startsWith("/public/")) {
+            waitNanos = publicLimiter.tryAcquire(request.getRemoteAddr());
+        }
+        else if (path.startsWith("/journal") || path.startsWith("/user") || path.startsWith("/admin")) {
+            waitNanos = apiLimiter.tryAcquire(apiKey(request));
+        }
+        else {
+            waitNanos = 0;
+        }
+
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Verifying the token is only an HMAC (microseconds, no DB). Keying by username means one user behind a shared
+    // NAT cannot starve the others, while an invalid token falls back to the IP bucket instead of getting a fresh one.
+    private String apiKey(HttpServletRequest request) {
+        String authorizationHeader = request.getHeader("Authorization");
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
+            try {
+                return "user:" + jwtUtil.extractUsername(authorizationHeader.substring(7));
+            }
+            catch (JwtException | IllegalArgumentException e) {
+                // fall through to the IP key
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
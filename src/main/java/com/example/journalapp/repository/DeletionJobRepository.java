@@ -0,0 +1,11 @@
+package com.example.journalapp.repository;
+
+import com.example.journalapp.entity.DeletionJob;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface DeletionJobRepository extends MongoRepository<DeletionJob, ObjectId> {
+    List<DeletionJob> findTop100ByOrderByCreatedAtDesc();
+}
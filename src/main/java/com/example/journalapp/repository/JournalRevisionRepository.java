@@ -0,0 +1,31 @@
+package com.example.journalapp.repository;
+
+import com.example.journalapp.entity.JournalRevision;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface JournalRevisionRepository extends MongoRepository<JournalRevision, ObjectId> {
+
+    JournalRevision findFirstByEntryIdOrderByRevisionDesc(ObjectId entryId);
+
+    // nearest snapshot at or below the wanted revision: reconstruction starts there
+    JournalRevision findFirstByEntryIdAndRevisionLessThanEqualAndSnapshotTrueOrderByRevisionDesc(ObjectId entryId, int revision);
+
+    @Query(value = "{ 'entryId' : ?0, 'revision' : { '$gt' : ?1, '$lte' : ?2 } }", sort = "{ 'revision' : 1 }")
+    List<JournalRevision> findRevisionsAfter(ObjectId entryId, int afterRevision, int upToRevision);
+
+    @Query(value = "{ 'entryId' : ?0 }", fields = "{ 'revision' : 1, 'title' : 1, 'date' : 1 }", sort = "{ 'revision' : 1 }")
+    List<RevisionSummary> findSummariesByEntryId(ObjectId entryId);
+
+    void deleteByEntryId(ObjectId entryId);
+
+    interface RevisionSummary {
+        int getRevision();
+        String getTitle();
+        LocalDateTime getDate();
+    }
+}
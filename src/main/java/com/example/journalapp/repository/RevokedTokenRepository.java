@@ -0,0 +1,7 @@
+package com.example.journalapp.repository;
+
+import com.example.journalapp.entity.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+}
@@ -4,8 +4,46 @@ import com.example.journalapp.entity.JournalEntry;
 import com.example.journalapp.entity.User;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.Date;
+import java.util.List;
 
 public interface UserRepository extends MongoRepository<User, ObjectId> {
     User findByUsername(String username);
     void deleteByUsername(String username);
+    boolean existsByUsername(String username);
+
+    // Reads only _id, journalVersion and journalRestoredAt through the unique username index. Returning a projection
+    // instead of User means the @DBRef journal entries are never resolved.
+    @Query(value = "{ 'username' : ?0 }", fields = "{ '_id' : 1, 'journalVersion' : 1, 'journalRestoredAt' : 1 }")
+    JournalVersionView findJournalVersionByUsername(String username);
+
+    // What authentication needs (JwtFilter runs it on every request): no @DBRef resolution, no journal list at all.
+    @Query(value = "{ 'username' : ?0 }", fields = "{ 'username' : 1, 'password' : 1, 'roles' : 1, 'deletedAt' : 1 }")
+    CredentialsView findCredentialsByUsername(String username);
+
+    // Admin user list: the password hash and the @DBRef list are not even read from Mongo. Walking the _id index
+    // instead of scanning the collection keeps the order stable. Accounts waiting for their purge are left out.
+    @Query(value = "{ 'deletedAt' : null }", fields = "{ '_id' : 1, 'username' : 1, 'roles' : 1 }", sort = "{ '_id' : 1 }")
+    List<UserSummary> findAllSummariesBy();
+
+    interface UserSummary {
+        ObjectId getId();
+        String getUsername();
+        List<String> getRoles();
+    }
+
+    interface CredentialsView {
+        String getUsername();
+        String getPassword();
+        List<String> getRoles();
+        Date getDeletedAt();
+    }
+
+    interface JournalVersionView {
+        ObjectId getId();
+        Long getJournalVersion(); // null for users created before the field existed
+        Date getJournalRestoredAt(); // null unless the user came back with a restore
+    }
 }
@@ -0,0 +1,232 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.cache.JournalEntryCache;
+import com.example.journalapp.entity.DeletionJob;
+import com.example.journalapp.entity.ImportJob;
+import com.example.journalapp.entity.JournalDeadLetter;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.JournalRevision;
+import com.example.journalapp.entity.JournalTombstone;
+import com.example.journalapp.entity.User;
+import com.example.journalapp.repository.DeletionJobRepository;
+import com.example.journalapp.repository.UserRepository;
+import com.mongodb.DBRef;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.result.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Account deletion in two phases.
+1. requestDeletion (the DELETE /user request): two small writes in one transaction, whatever the account size.
+   The user is renamed to "deleted:<id>" (the username is free again and logins / tokens stop resolving to it) and a
+   DeletionJob is created.
+2. purge (this worker, every account-deletion.poll-interval-ms): claims a job with a lease and deletes the journal
+   entries batch by batch, pausing between batches so it does not starve regular traffic. The user document goes last.
+Every batch step is idempotent (delete attachments and revisions → deleteMany entries → $pullAll refs), so a worker that dies
+half way just leaves the job for the next one, which re-reads the remaining refs from the user document.
+ */
+@Component
+@Slf4j
+public class AccountDeletionService {
+
+    private static final String DELETED_PREFIX = "deleted:";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeletionJobRepository deletionJobRepository;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private JournalEntryCache journalEntryCache;
+
+    @Autowired
+    private JournalTagService journalTagService;
+
+    @Autowired
+    private JournalMetricsService journalMetricsService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Value("${account-deletion.batch-size:500}")
+    private int batchSize;
+
+    @Value("${account-deletion.batch-pause-ms:100}")
+    private long batchPauseMs;
+
+    @Value("${account-deletion.lease-ms:60000}")
+    private long leaseMs;
+
+    private final String workerId = UUID.randomUUID().toString();
+
+    // false if the user does not exist (or is already being deleted)
+    @Transactional
+    public boolean requestDeletion(String username) {
+        UserRepository.JournalVersionView user = userRepository.findJournalVersionByUsername(username);
+        if (user == null) {
+            return false;
+        }
+        UpdateResult renamed = mongoTemplate.updateFirst(
+                new Query(where("_id").is(user.getId()).and("username").is(username)),
+                new Update().set("username", DELETED_PREFIX + user.getId().toHexString()).set("deletedAt", new Date()),
+                User.class);
+        if (renamed.getModifiedCount() == 0) {
+            return false;
+        }
+        DeletionJob job = new DeletionJob();
+        job.setId(user.getId());
+        job.setUsername(username);
+        job.setStatus(DeletionJob.Status.PENDING);
+        job.setCreatedAt(new Date());
+        job.setLeaseUntil(new Date(0)); // claimable right away
+        mongoTemplate.insert(job);
+        userDetailsService.forget(username);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${account-deletion.poll-interval-ms:5000}")
+    public void purgePendingJobs() {
+        try {
+            DeletionJob job;
+            while ((job = claimJob()) != null) {
+                try {
+                    purge(job);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                catch (Exception e) {
+                    // keep the lease: the job is retried (by any node) once it runs out
+                    log.warn("Purge of account {} failed, retrying after the lease expires: {}", job.getId(), e.getMessage());
+                    mongoTemplate.updateFirst(new Query(where("_id").is(job.getId())),
+                            new Update().set("lastError", e.getMessage()), DeletionJob.class);
+                }
+            }
+        }
+        catch (Exception e) {
+            log.warn("Could not claim account deletion jobs: {}", e.getMessage());
+        }
+    }
+
+    public List<DeletionJob> recentJobs() {
+        return deletionJobRepository.findTop100ByOrderByCreatedAtDesc();
+    }
+
+    public Optional<DeletionJob> findJob(ObjectId userId) {
+        return deletionJobRepository.findById(userId);
+    }
+
+    private DeletionJob claimJob() {
+        Date now = new Date();
+        Query claimable = new Query(where("status").in(DeletionJob.Status.PENDING, DeletionJob.Status.RUNNING)
+                .and("leaseUntil").lt(now));
+        Update claim = new Update()
+                .set("status", DeletionJob.Status.RUNNING)
+                .set("leaseOwner", workerId)
+                .set("leaseUntil", new Date(now.getTime() + leaseMs));
+        DeletionJob job = mongoTemplate.findAndModify(claimable, claim, FindAndModifyOptions.options().returnNew(true), DeletionJob.class);
+        if (job != null && job.getStartedAt() == null) {
+            job.setStartedAt(now);
+            job.setTotalEntries(countEntries(job.getId()));
+            mongoTemplate.updateFirst(new Query(where("_id").is(job.getId())),
+                    new Update().set("startedAt", now).set("totalEntries", job.getTotalEntries()), DeletionJob.class);
+        }
+        return job;
+    }
+
+    private void purge(DeletionJob job) throws InterruptedException {
+        ObjectId userId = job.getId();
+        String users = mongoTemplate.getCollectionName(User.class);
+        String entries = mongoTemplate.getCollectionName(JournalEntry.class);
+        while (true) {
+            List<DBRef> refs = nextBatch(userId);
+            if (refs.isEmpty()) {
+                break;
+            }
+            List<ObjectId> ids = new ArrayList<>(refs.size());
+            refs.forEach(ref -> ids.add((ObjectId) ref.getId()));
+
+            ids.forEach(attachmentService::deleteAllFor);
+            mongoTemplate.getCollection(mongoTemplate.getCollectionName(JournalRevision.class))
+                    .deleteMany(Filters.in("entryId", ids));
+            long deleted = mongoTemplate.getCollection(entries).deleteMany(Filters.in("_id", ids)).getDeletedCount();
+            mongoTemplate.updateFirst(new Query(where("_id").is(userId)),
+                    new Update().pullAll("journalEntries", refs.toArray()), users);
+            ids.forEach(journalEntryCache::invalidate);
+
+            if (!renewLease(userId, deleted)) {
+                log.info("Lost the lease on deletion job {}, another worker continues it", userId);
+                return;
+            }
+            Thread.sleep(batchPauseMs);
+        }
+        mongoTemplate.remove(new Query(where("ownerId").is(userId)), JournalTombstone.class);
+        journalTagService.deleteAllFor(userId);
+        journalMetricsService.deleteAllFor(userId);
+        mongoTemplate.remove(new Query(where("ownerId").is(userId)), ImportJob.class);
+        mongoTemplate.remove(new Query(where("ownerId").is(userId)), JournalDeadLetter.class);
+        mongoTemplate.remove(new Query(where("_id").is(userId).and("deletedAt").ne(null)), users);
+        mongoTemplate.updateFirst(new Query(where("_id").is(userId).and("leaseOwner").is(workerId)),
+                new Update().set("status", DeletionJob.Status.DONE).set("finishedAt", new Date()).unset("leaseUntil"),
+                DeletionJob.class);
+        log.info("Account {} purged", userId);
+    }
+
+    // The first batchSize refs still on the user, read with $slice and without resolving them.
+    private List<DBRef> nextBatch(ObjectId userId) {
+        Document user = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .find(Filters.eq("_id", userId))
+                .projection(Projections.slice("journalEntries", batchSize))
+                .first();
+        if (user == null || user.getList("journalEntries", DBRef.class) == null) {
+            return List.of();
+        }
+        return user.getList("journalEntries", DBRef.class);
+    }
+
+    private long countEntries(ObjectId userId) {
+        Document counted = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .aggregate(List.of(
+                        new Document("$match", new Document("_id", userId)),
+                        new Document("$project", new Document("n", new Document("$size",
+                                new Document("$ifNull", List.of("$journalEntries", List.of())))))))
+                .first();
+        return counted != null ? counted.get("n", Number.class).longValue() : 0;
+    }
+
+    private boolean renewLease(ObjectId jobId, long purged) {
+        UpdateResult result = mongoTemplate.updateFirst(
+                new Query(where("_id").is(jobId).and("leaseOwner").is(workerId)),
+                new Update().inc("purgedEntries", purged).set("leaseUntil", new Date(System.currentTimeMillis() + leaseMs)),
+                DeletionJob.class);
+        return result.getMatchedCount() > 0;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.AdminStats;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/*
+Admin usage statistics, precomputed so reading them never touches users or journal_entries.
+Every admin-stats.refresh-interval-ms two aggregation pipelines run entirely inside Mongo and $merge their result into
+the AdminStats summary document (the app never holds more than the pipeline definitions):
+    users    one pass over users (only roles and the size of journalEntries): total, per role, entries-per-user
+             histogram via $bucket
+    entries  per-day counts are kept in admin_stats_daily. A run only recounts the days since the previous run (the
+             range is read through the date index): it zeroes those day documents, then replaces the ones that still
+             have entries, so it is incremental and safe to repeat; a second small pipeline then copies the last
+             summary-days days into the summary.
+Entries deleted from days before the previous run are not subtracted. Without an entriesRefreshedAt (drop admin_stats)
+the next run recounts every day, and a day whose entries are all gone ends up at 0.
+Imports write entries with their original (older) dates, so JournalImportService calls recountDays for the days it
+filled; that recount only touches those day documents and the summary, not the incremental refresh's starting point.
+Several nodes may refresh at once: every step replaces documents, so they just write the same numbers (a day can read
+0 for the moment between one node's zeroing and its $merge).
+ */
+@Component
+@Slf4j
+public class AdminStatsService {
+
+    private static final String DAILY = "admin_stats_daily";
+    private static final List<Integer> ENTRY_BUCKETS = List.of(0, 1, 2, 6, 11, 51, 101, 501, 1001);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${admin-stats.summary-days:90}")
+    private int summaryDays;
+
+    public AdminStats getStats() {
+        return mongoTemplate.findById(AdminStats.SUMMARY_ID, AdminStats.class);
+    }
+
+    // Day documents {_id: "yyyy-MM-dd", entries} in [from, to], oldest first; a range read on _id.
+    public List<AdminStats.DayCount> getDailyEntries(LocalDate from, LocalDate to) {
+        List<AdminStats.DayCount> days = new ArrayList<>();
+        Document range = new Document("_id", new Document("$gte", from.toString()).append("$lte", to.toString()));
+        for (Document day : mongoTemplate.getCollection(DAILY).find(range).sort(new Document("_id", 1))) {
+            days.add(new AdminStats.DayCount(day.getString("_id"), day.get("entries", Number.class).longValue()));
+        }
+        return days;
+    }
+
+    @Scheduled(initialDelayString = "${admin-stats.initial-delay-ms:60000}", fixedDelayString = "${admin-stats.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            long start = System.currentTimeMillis();
+            refreshUsers();
+            refreshEntries();
+            log.debug("Admin stats refreshed in {} ms", System.currentTimeMillis() - start);
+        }
+        catch (Exception e) {
+            log.warn("Could not refresh the admin stats: {}", e.getMessage());
+        }
+    }
+
+    private void refreshUsers() {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("deletedAt", null)),
+                new Document("$project", new Document("_id", 0).append("roles", 1)
+                        .append("entries", new Document("$size", new Document("$ifNull", List.of("$journalEntries", List.of()))))),
+                new Document("$facet", new Document()
+                        .append("total", List.of(new Document("$count", "n")))
+                        .append("byRole", List.of(
+                                new Document("$unwind", "$roles"),
+                                new Document("$group", new Document("_id", "$roles").append("n", new Document("$sum", 1)))))
+                        .append("histogram", List.of(
+                                new Document("$bucket", new Document("groupBy", "$entries")
+                                        .append("boundaries", ENTRY_BUCKETS)
+                                        .append("default", ENTRY_BUCKETS.get(ENTRY_BUCKETS.size() - 1))
+                                        .append("output", new Document("n", new Document("$sum", 1))))))),
+                new Document("$project", new Document("_id", AdminStats.SUMMARY_ID)
+                        .append("totalUsers", new Document("$ifNull", List.of(new Document("$first", "$total.n"), 0)))
+                        .append("usersByRole", new Document("$arrayToObject", new Document("$map", new Document("input", "$byRole")
+                                .append("in", new Document("k", "$$this._id").append("v", "$$this.n")))))
+                        .append("entriesPerUser", new Document("$map", new Document("input", "$histogram")
+                                .append("in", new Document("atLeast", "$$this._id").append("users", "$$this.n"))))
+                        .append("usersRefreshedAt", "$$NOW")),
+                mergeIntoSummary());
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).aggregate(pipeline).allowDiskUse(true).toCollection();
+    }
+
+    // Recounts the UTC days [from, to] (e.g. after an import of old entries) and the summary's days.
+    public void recountDays(LocalDate from, LocalDate to) {
+        recount(from, to);
+        summarize(null);
+    }
+
+    private void refreshEntries() {
+        // Recount from the start of the day of the previous run: entries are dated when they are written, so every
+        // entry written since then falls into one of those days.
+        LocalDate from = null; // every day
+        AdminStats previous = getStats();
+        if (previous != null && previous.getEntriesRefreshedAt() != null) {
+            from = previous.getEntriesRefreshedAt().toInstant().atZone(ZoneOffset.UTC).toLocalDate();
+        }
+        Date refreshedAt = new Date();
+        recount(from, null);
+        summarize(refreshedAt);
+    }
+
+    // Recounts the UTC days [from, to] (null = unbounded on that side) with a range on the date index. The day
+    // documents of the range are zeroed first: the $merge only writes days that still have entries.
+    private void recount(LocalDate from, LocalDate to) {
+        Document match = new Document("$ne", null);
+        Document days = new Document();
+        if (from != null) {
+            match.append("$gte", Date.from(from.atStartOfDay(ZoneOffset.UTC).toInstant()));
+            days.append("$gte", from.toString());
+        }
+        if (to != null) {
+            match.append("$lt", Date.from(to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()));
+            days.append("$lte", to.toString());
+        }
+        mongoTemplate.getCollection(DAILY).updateMany(days.isEmpty() ? new Document() : new Document("_id", days),
+                new Document("$set", new Document("entries", 0)));
+        List<Document> daily = List.of(
+                new Document("$match", new Document("date", match)),
+                new Document("$group", new Document("_id", new Document("$dateToString",
+                        new Document("format", "%Y-%m-%d").append("date", "$date")))
+                        .append("entries", new Document("$sum", 1))),
+                new Document("$merge", new Document("into", DAILY).append("on", "_id")
+                        .append("whenMatched", "replace").append("whenNotMatched", "insert")));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(JournalEntry.class)).aggregate(daily).allowDiskUse(true).toCollection();
+    }
+
+    // Copies the last summary-days days into the summary; refreshedAt (null = leave it) is where the next refresh starts.
+    private void summarize(Date refreshedAt) {
+        List<Document> summary = new ArrayList<>(List.of(
+                new Document("$sort", new Document("_id", -1)),
+                new Document("$limit", summaryDays),
+                new Document("$sort", new Document("_id", 1)),
+                new Document("$group", new Document("_id", AdminStats.SUMMARY_ID)
+                        .append("entriesPerDay", new Document("$push", new Document("day", "$_id").append("entries", "$entries"))))));
+        if (refreshedAt != null) {
+            summary.add(new Document("$set", new Document("entriesRefreshedAt", refreshedAt)));
+        }
+        summary.add(mergeIntoSummary());
+        mongoTemplate.getCollection(DAILY).aggregate(summary).toCollection();
+    }
+
+    // Only the fields a pipeline produced are overwritten, the other part of the summary stays as it is.
+    private static Document mergeIntoSummary() {
+        return new Document("$merge", new Document("into", "admin_stats").append("on", "_id")
+                .append("whenMatched", "merge").append("whenNotMatched", "insert"));
+    }
+}
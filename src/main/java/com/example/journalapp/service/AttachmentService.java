@@ -0,0 +1,138 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.dto.AttachmentInfo;
+import com.mongodb.MongoGridFSException;
+import com.mongodb.client.gridfs.GridFSBucket;
+import com.mongodb.client.gridfs.GridFSBuckets;
+import com.mongodb.client.gridfs.GridFSDownloadStream;
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.mongodb.client.gridfs.model.GridFSUploadOptions;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+Photos/audio attached to journal entries, stored in GridFS (bucket "attachments") and NOT inside JournalEntry, so
+loading entries never drags binary data along.
+GridFS splits a file into chunks of CHUNK_SIZE bytes. Uploads read the request body one chunk at a time and downloads
+read one chunk at a time, so a transfer holds roughly one chunk in the heap however big the file is.
+Ownership is NOT checked here; callers do that (see AttachmentController).
+Listing by entry queries metadata.entryId, which GridFS does not index by itself; the index is in IndexPlan.
+ */
+@Component
+public class AttachmentService {
+
+    private static final String BUCKET = "attachments";
+    private static final int CHUNK_SIZE = 255 * 1024; // GridFS default; keeps each chunk far below the 16MB document limit
+
+    @Autowired
+    private MongoDatabaseFactory mongoDatabaseFactory;
+
+    @Value("${journal.attachments.max-size:50MB}")
+    private DataSize maxSize;
+
+    private GridFSBucket bucket;
+
+    @PostConstruct
+    public void init() {
+        bucket = GridFSBuckets.create(mongoDatabaseFactory.getMongoDatabase(), BUCKET);
+    }
+
+    // Throws TooLargeException (and stores nothing) if the body is larger than journal.attachments.max-size.
+    public AttachmentInfo store(ObjectId entryId, String filename, String contentType, InputStream body) throws TooLargeException {
+        GridFSUploadOptions options = new GridFSUploadOptions()
+                .chunkSizeBytes(CHUNK_SIZE)
+                .metadata(new Document("entryId", entryId).append("contentType", contentType));
+        ObjectId id;
+        try {
+            // If the stream fails half way, the driver aborts the upload and removes the chunks it already wrote.
+            id = bucket.uploadFromStream(filename, new SizeLimitedInputStream(body, maxSize.toBytes()), options);
+        }
+        catch (MongoGridFSException e) {
+            if (e.getCause() instanceof TooLargeException tooLarge) {
+                throw tooLarge;
+            }
+            throw e;
+        }
+        return AttachmentInfo.from(bucket.find(Filters.eq("_id", id)).first());
+    }
+
+    public List<AttachmentInfo> list(ObjectId entryId) {
+        List<AttachmentInfo> attachments = new ArrayList<>();
+        bucket.find(Filters.eq("metadata.entryId", entryId)).forEach(file -> attachments.add(AttachmentInfo.from(file)));
+        return attachments;
+    }
+
+    // null if the attachment does not exist or belongs to another entry
+    public GridFSFile find(ObjectId entryId, ObjectId attachmentId) {
+        return bucket.find(Filters.and(Filters.eq("_id", attachmentId), Filters.eq("metadata.entryId", entryId))).first();
+    }
+
+    public GridFSDownloadStream openDownload(ObjectId attachmentId) {
+        return bucket.openDownloadStream(attachmentId);
+    }
+
+    public void delete(ObjectId attachmentId) {
+        bucket.delete(attachmentId);
+    }
+
+    public void deleteAllFor(ObjectId entryId) {
+        List<ObjectId> ids = new ArrayList<>();
+        bucket.find(Filters.eq("metadata.entryId", entryId)).forEach(file -> ids.add(file.getObjectId()));
+        ids.forEach(bucket::delete);
+    }
+
+    private static final class SizeLimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new TooLargeException(limit);
+            }
+        }
+    }
+
+    public static class TooLargeException extends IOException {
+        TooLargeException(long limit) {
+            super("Attachment exceeds the maximum size of " + limit + " bytes");
+        }
+    }
+}
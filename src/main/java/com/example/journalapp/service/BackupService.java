@@ -0,0 +1,607 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.cache.CacheInvalidationBus;
+import com.example.journalapp.cache.JournalEntryCache;
+import com.example.journalapp.config.IndexPlan;
+import com.example.journalapp.entity.DeletionJob;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.User;
+import com.example.journalapp.utils.BsonFrameReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Full backups of the app's collections to local disk, and restores from them (admin only, see AdminController).
+Backup: every collection of backup.collections is cut into _id ranges (boundaries taken from a $sample, so no
+collection scan is needed to plan) and each range is streamed by its own worker: an index-ordered find that returns
+raw BSON, written as-is into <backup.dir>/<id>/<collection>-<n>.bson.gz (the mongodump .bson format, gzipped) while a
+SHA-256 of the written file is computed on the way. With backup.threads workers the parts run in parallel, each
+holding one cursor batch and a gzip buffer, whatever the size of the data. manifest.json (documents, sizes and
+checksums of every part) is written last: a backup without one is incomplete and never restored.
+The parts are read at slightly different moments, so the backup is not a point-in-time snapshot across
+collections; the reference check of the restore reports (and removes) journal refs whose entry did not make it.
+Restore: verify every checksum first, then drop the target collections (only with replace=true if they hold data),
+insert the parts in parallel with unordered insertMany batches of raw BSON, build the IndexPlan once all data is in
+(much cheaper than maintaining the indexes during the load) and check the users' @DBRefs against journal_entries
+and the deleted accounts against deletion_jobs.
+Then every journalVersion is moved past the ones issued before (see renumberJournals) and the caches of every node
+are emptied: JournalEntryCache, MongoGuard's last good results and the username filter.
+Jobs run one at a time in the background; their status lives in memory on the node that runs them.
+ */
+@Component
+@Slf4j
+public class BackupService {
+
+    private static final DateTimeFormatter BACKUP_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final Pattern VALID_ID = Pattern.compile("\\d{8}-\\d{6}");
+    private static final String MANIFEST = "manifest.json";
+    private static final int SAMPLES_PER_PART = 32;
+    private static final int MAX_REPORTED_REFS = 100;
+    // attachment chunks are 255KB each: a batch of backup.restore.batch-size of them would be hundreds of MB
+    private static final long MAX_BATCH_BYTES = 16L << 20;
+
+    public record Part(String file, long documents, long bytes, String sha256) {
+    }
+
+    public record CollectionBackup(String name, long documents, List<Part> parts) {
+    }
+
+    public record Manifest(String id, Instant createdAt, List<CollectionBackup> collections) {
+    }
+
+    public enum Kind { BACKUP, RESTORE }
+
+    public enum Status { RUNNING, DONE, FAILED }
+
+    @Data
+    public static class Job {
+        private final String id;
+        private final Kind kind;
+        private final String backupId;
+        private final Instant startedAt = Instant.now();
+        private volatile Status status = Status.RUNNING;
+        private volatile String phase;
+        private final AtomicLong documents = new AtomicLong();
+        private volatile long expectedDocuments;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        private volatile long danglingRefsRemoved;
+        private volatile List<String> danglingRefSamples = List.of();
+        private volatile long orphanedEntries;
+        private volatile long deletionJobsRecreated;
+    }
+
+    public static class BusyException extends Exception {
+        BusyException() {
+            super("Another backup or restore is running");
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IndexPlan indexPlan;
+
+    @Autowired
+    private UsernameRegistry usernameRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JournalEntryCache journalEntryCache;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${backup.dir:backups}")
+    private Path dir;
+
+    @Value("${backup.collections:users,journal_entries,journal_revisions,journal_tombstones,tag_counts,metric_rollups,journal_dead_letters,deletion_jobs,attachments.files,attachments.chunks}")
+    private List<String> collections;
+
+    @Value("${backup.threads:0}")
+    private int threads;
+
+    @Value("${backup.parts-per-thread:4}")
+    private int partsPerThread;
+
+    @Value("${backup.restore.batch-size:1000}")
+    private int restoreBatchSize;
+
+    @Value("${backup.keep:7}")
+    private int keep;
+
+    private final AtomicBoolean busy = new AtomicBoolean();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger jobNumber = new AtomicInteger();
+
+    @PostConstruct
+    public void listenForRestores() {
+        cacheInvalidationBus.subscribeAll(this::forgetCachedState);
+    }
+
+    public Job startBackup() throws BusyException {
+        String backupId = BACKUP_ID.format(Instant.now());
+        return start(Kind.BACKUP, backupId, job -> backup(job, dir.resolve(backupId)));
+    }
+
+    // null if there is no complete backup with that id
+    public Job startRestore(String backupId, boolean replace) throws BusyException, IOException {
+        Manifest manifest = readManifest(backupId);
+        if (manifest == null) {
+            return null;
+        }
+        return start(Kind.RESTORE, backupId, job -> restore(job, manifest, replace));
+    }
+
+    public List<Manifest> listBackups() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Manifest> manifests = new ArrayList<>();
+        try (Stream<Path> entries = Files.list(dir)) {
+            for (Path backup : entries.sorted(Comparator.reverseOrder()).toList()) {
+                Manifest manifest = readManifest(backup.getFileName().toString());
+                if (manifest != null) {
+                    manifests.add(manifest);
+                }
+            }
+        }
+        return manifests;
+    }
+
+    public Job findJob(String id) {
+        return jobs.get(id);
+    }
+
+    private interface Work {
+        void run(Job job) throws Exception;
+    }
+
+    private Job start(Kind kind, String backupId, Work work) throws BusyException {
+        if (!busy.compareAndSet(false, true)) {
+            throw new BusyException();
+        }
+        Job job = new Job(backupId + "-" + kind.name().toLowerCase() + "-" + jobNumber.incrementAndGet(), kind, backupId);
+        jobs.put(job.getId(), job);
+        Thread runner = new Thread(() -> {
+            try {
+                work.run(job);
+                job.setStatus(Status.DONE);
+                log.info("{} {} done: {} documents", kind, backupId, job.getDocuments().get());
+            }
+            catch (Exception e) {
+                job.setError(e.getMessage());
+                job.setStatus(Status.FAILED);
+                log.error("{} {} failed", kind, backupId, e);
+            }
+            finally {
+                job.setFinishedAt(Instant.now());
+                busy.set(false);
+            }
+        }, "backup-" + job.getId());
+        runner.setDaemon(true);
+        runner.start();
+        return job;
+    }
+
+    private void backup(Job job, Path target) throws Exception {
+        Files.createDirectories(target);
+        try {
+            int workers = workers();
+            job.setPhase("planning");
+            Map<String, List<Bson>> rangesByCollection = new LinkedHashMap<>();
+            long expected = 0;
+            for (String collection : collections) {
+                rangesByCollection.put(collection, ranges(collection, workers * partsPerThread));
+                expected += mongoTemplate.getCollection(collection).estimatedDocumentCount();
+            }
+            job.setExpectedDocuments(expected);
+
+            job.setPhase("exporting");
+            Map<String, List<Future<Part>>> futures = new LinkedHashMap<>();
+            ExecutorService pool = pool(workers);
+            try {
+                rangesByCollection.forEach((collection, ranges) -> {
+                    List<Future<Part>> parts = new ArrayList<>();
+                    for (int i = 0; i < ranges.size(); i++) {
+                        Path file = target.resolve(String.format("%s-%03d.bson.gz", collection, i));
+                        Bson range = ranges.get(i);
+                        parts.add(pool.submit(() -> exportPart(collection, range, file, job)));
+                    }
+                    futures.put(collection, parts);
+                });
+                List<CollectionBackup> backups = new ArrayList<>();
+                for (Map.Entry<String, List<Future<Part>>> collection : futures.entrySet()) {
+                    List<Part> parts = new ArrayList<>();
+                    for (Future<Part> part : collection.getValue()) {
+                        parts.add(await(part));
+                    }
+                    backups.add(new CollectionBackup(collection.getKey(), parts.stream().mapToLong(Part::documents).sum(), parts));
+                }
+                Manifest manifest = new Manifest(job.getBackupId(), job.getStartedAt(), backups);
+                Path temporary = target.resolve(MANIFEST + ".tmp");
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(temporary.toFile(), manifest);
+                Files.move(temporary, target.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally {
+                pool.shutdownNow();
+            }
+        }
+        catch (Exception e) {
+            deleteRecursively(target);
+            throw e;
+        }
+        pruneOldBackups();
+    }
+
+    // Range filters on _id covering the whole collection, about `parts` of them.
+    private List<Bson> ranges(String collection, int parts) {
+        List<Object> samples = new ArrayList<>();
+        mongoTemplate.getCollection(collection).aggregate(List.of(
+                        new Document("$sample", new Document("size", parts * SAMPLES_PER_PART)),
+                        new Document("$project", new Document("_id", 1)),
+                        new Document("$sort", new Document("_id", 1))))
+                .forEach(document -> samples.add(document.get("_id")));
+        List<Object> bounds = new ArrayList<>();
+        for (int i = 1; i < parts && !samples.isEmpty(); i++) {
+            Object bound = samples.get(i * samples.size() / parts);
+            if (bounds.isEmpty() || !Objects.equals(bounds.get(bounds.size() - 1), bound)) {
+                bounds.add(bound);
+            }
+        }
+        List<Bson> ranges = new ArrayList<>();
+        for (int i = 0; i <= bounds.size(); i++) {
+            List<Bson> conditions = new ArrayList<>();
+            if (i > 0) {
+                conditions.add(Filters.gte("_id", bounds.get(i - 1)));
+            }
+            if (i < bounds.size()) {
+                conditions.add(Filters.lt("_id", bounds.get(i)));
+            }
+            ranges.add(conditions.isEmpty() ? new Document() : Filters.and(conditions));
+        }
+        return ranges;
+    }
+
+    private Part exportPart(String collection, Bson range, Path file, Job job) throws IOException {
+        MessageDigest sha256 = sha256();
+        long documents = 0;
+        MongoCollection<RawBsonDocument> source = mongoTemplate.getDb().getCollection(collection, RawBsonDocument.class);
+        try (OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), sha256);
+             OutputStream gzip = new GZIPOutputStream(out, 1 << 16);
+             WritableByteChannel channel = Channels.newChannel(gzip);
+             MongoCursor<RawBsonDocument> cursor = source.find(range).sort(Sorts.ascending("_id")).batchSize(1000).iterator()) {
+            while (cursor.hasNext()) {
+                channel.write(cursor.next().getByteBuffer().asNIO());
+                documents++;
+                job.getDocuments().incrementAndGet();
+            }
+        }
+        return new Part(file.getFileName().toString(), documents, Files.size(file), HexFormat.of().formatHex(sha256.digest()));
+    }
+
+    private void restore(Job job, Manifest manifest, boolean replace) throws Exception {
+        Path source = dir.resolve(manifest.id());
+        int workers = workers();
+        job.setExpectedDocuments(manifest.collections().stream().mapToLong(CollectionBackup::documents).sum());
+        ExecutorService pool = pool(workers);
+        long issuedVersion;
+        try {
+            job.setPhase("verifying checksums");
+            List<Future<?>> checks = new ArrayList<>();
+            for (CollectionBackup collection : manifest.collections()) {
+                for (Part part : collection.parts()) {
+                    checks.add(pool.submit(() -> { verify(source.resolve(part.file()), part); return null; }));
+                }
+            }
+            for (Future<?> check : checks) {
+                await(check);
+            }
+
+            for (CollectionBackup collection : manifest.collections()) {
+                if (!replace && mongoTemplate.getCollection(collection.name()).estimatedDocumentCount() > 0) {
+                    throw new IllegalStateException(collection.name() + " is not empty; restore with replace=true to overwrite it");
+                }
+            }
+            job.setPhase("loading");
+            issuedVersion = highestJournalVersion();
+            for (CollectionBackup collection : manifest.collections()) {
+                mongoTemplate.getCollection(collection.name()).drop(); // with its indexes, rebuilt once the data is in
+            }
+            List<Future<?>> loads = new ArrayList<>();
+            for (CollectionBackup collection : manifest.collections()) {
+                for (Part part : collection.parts()) {
+                    loads.add(pool.submit(() -> { importPart(collection.name(), source.resolve(part.file()), job); return null; }));
+                }
+            }
+            for (Future<?> load : loads) {
+                await(load);
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        job.setPhase("building indexes");
+        indexPlan.apply();
+        job.setPhase("checking references");
+        checkReferences(job);
+        job.setPhase("renumbering journals");
+        renumberJournals(issuedVersion);
+        forgetCachedState();
+        journalEntryCache.invalidateAll(); // and, through the bus, forgetCachedState() on the other nodes
+    }
+
+    private long highestJournalVersion() {
+        Document highest = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).find()
+                .projection(Projections.include("journalVersion"))
+                .sort(Sorts.descending("journalVersion"))
+                .limit(1)
+                .first();
+        Number version = highest != null ? highest.get("journalVersion", Number.class) : null;
+        return version != null ? version.longValue() : 0;
+    }
+
+    /*
+    The restored journalVersions were handed out before, for other content: "<userId>-<version>" ETags would get 304s
+    for the wrong journal. Every user gets max(restored, highest version issued before the restore) + 1 instead, which
+    no client has seen (the change sequences of the entries stay below it, as they must). Change tokens only carry a
+    sequence, so journalRestoredAt makes JournalChangesService reject the ones issued before now.
+    With replace=false the users collection was empty, so there is no earlier version to stay above.
+     */
+    private void renumberJournals(long issuedVersion) {
+        Document version = new Document("$add", List.of(
+                new Document("$max", List.of(new Document("$ifNull", List.of("$journalVersion", 0L)), issuedVersion)), 1L));
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class)).updateMany(new Document(),
+                List.of(new Document("$set", new Document("journalVersion", version).append("journalRestoredAt", new Date()))));
+    }
+
+    // What this node remembers about the data that was just replaced. Runs on every node after a restore.
+    private void forgetCachedState() {
+        mongoGuard.clearStale();
+        userService.journalsRestored();
+        usernameRegistry.rebuild();
+    }
+
+    private void verify(Path file, Part part) throws IOException {
+        MessageDigest sha256 = sha256();
+        try (InputStream in = new DigestInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), sha256)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        if (!HexFormat.of().formatHex(sha256.digest()).equals(part.sha256())) {
+            throw new IOException("Checksum mismatch in " + part.file() + ", the backup is damaged");
+        }
+    }
+
+    private void importPart(String collection, Path file, Job job) throws IOException {
+        MongoCollection<RawBsonDocument> target = mongoTemplate.getDb().getCollection(collection, RawBsonDocument.class);
+        InsertManyOptions unordered = new InsertManyOptions().ordered(false);
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), 1 << 16)) {
+            BsonFrameReader reader = new BsonFrameReader(in);
+            List<RawBsonDocument> batch = new ArrayList<>(restoreBatchSize);
+            long batchBytes = 0;
+            byte[] document;
+            while ((document = reader.next()) != null) {
+                batch.add(new RawBsonDocument(document));
+                batchBytes += document.length;
+                if (batch.size() == restoreBatchSize || batchBytes >= MAX_BATCH_BYTES) {
+                    target.insertMany(batch, unordered);
+                    job.getDocuments().addAndGet(batch.size());
+                    batch = new ArrayList<>(restoreBatchSize);
+                    batchBytes = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                target.insertMany(batch, unordered);
+                job.getDocuments().addAndGet(batch.size());
+            }
+        }
+    }
+
+    /*
+    Every ref in users.journalEntries must point at an existing entry (a dangling one would resolve to null in every
+    journal read). Users are streamed with only their refs; the refs are checked against journal_entries in chunks
+    of one $in query and the missing ones are $pullAll-ed. Entries whose owner does not exist are only counted.
+    A deleted account (deletedAt set) whose deletion job did not make it into the backup, e.g. because
+    backup.collections leaves out deletion_jobs, gets a new PENDING one: otherwise its data would never be purged.
+     */
+    private void checkReferences(Job job) {
+        String users = mongoTemplate.getCollectionName(User.class);
+        String entries = mongoTemplate.getCollectionName(JournalEntry.class);
+        long removed = 0;
+        List<String> samples = new ArrayList<>();
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(users).find()
+                .projection(Projections.include("journalEntries")).batchSize(500).iterator()) {
+            while (cursor.hasNext()) {
+                Document user = cursor.next();
+                List<DBRef> refs = user.getList("journalEntries", DBRef.class);
+                if (refs == null || refs.isEmpty()) {
+                    continue;
+                }
+                List<DBRef> dangling = new ArrayList<>();
+                for (int from = 0; from < refs.size(); from += restoreBatchSize) {
+                    List<DBRef> chunk = refs.subList(from, Math.min(refs.size(), from + restoreBatchSize));
+                    List<Object> existing = new ArrayList<>();
+                    mongoTemplate.getCollection(entries)
+                            .find(Filters.in("_id", chunk.stream().map(DBRef::getId).toList()))
+                            .projection(Projections.include("_id"))
+                            .forEach(entry -> existing.add(entry.get("_id")));
+                    chunk.stream().filter(ref -> !existing.contains(ref.getId())).forEach(dangling::add);
+                }
+                if (!dangling.isEmpty()) {
+                    mongoTemplate.updateFirst(new Query(where("_id").is(user.get("_id"))),
+                            new Update().pullAll("journalEntries", dangling.toArray()), users);
+                    removed += dangling.size();
+                    for (DBRef ref : dangling) {
+                        if (samples.size() < MAX_REPORTED_REFS) {
+                            samples.add(user.get("_id") + " -> " + ref.getId());
+                        }
+                    }
+                }
+            }
+        }
+        job.setDanglingRefsRemoved(removed);
+        job.setDanglingRefSamples(samples);
+
+        Document orphans = mongoTemplate.getCollection(entries).aggregate(List.of(
+                        new Document("$group", new Document("_id", "$ownerId").append("entries", new Document("$sum", 1))),
+                        new Document("$lookup", new Document("from", users).append("localField", "_id")
+                                .append("foreignField", "_id").append("as", "owner")),
+                        new Document("$match", new Document("owner", new Document("$size", 0))),
+                        new Document("$group", new Document("_id", null).append("entries", new Document("$sum", "$entries")))))
+                .allowDiskUse(true)
+                .first();
+        job.setOrphanedEntries(orphans != null ? orphans.get("entries", Number.class).longValue() : 0);
+
+        long recreated = 0;
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(users).aggregate(List.of(
+                        new Document("$match", new Document("deletedAt", new Document("$ne", null))),
+                        new Document("$project", new Document("username", 1)),
+                        new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(DeletionJob.class))
+                                .append("localField", "_id").append("foreignField", "_id").append("as", "job")),
+                        new Document("$match", new Document("job", new Document("$size", 0)))))
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document user = cursor.next();
+                DeletionJob deletion = new DeletionJob();
+                deletion.setId(user.getObjectId("_id"));
+                deletion.setUsername(user.getString("username"));
+                deletion.setStatus(DeletionJob.Status.PENDING);
+                deletion.setCreatedAt(new Date());
+                deletion.setLeaseUntil(new Date(0));
+                mongoTemplate.insert(deletion);
+                recreated++;
+            }
+        }
+        job.setDeletionJobsRecreated(recreated);
+        if (removed > 0 || job.getOrphanedEntries() > 0 || recreated > 0) {
+            log.warn("Restore {}: removed {} dangling journal refs, {} entries have no owner, recreated {} deletion jobs",
+                    job.getBackupId(), removed, job.getOrphanedEntries(), recreated);
+        }
+    }
+
+    private Manifest readManifest(String backupId) throws IOException {
+        if (!VALID_ID.matcher(backupId).matches()) {
+            return null; // also keeps "../" out of the path
+        }
+        Path manifest = dir.resolve(backupId).resolve(MANIFEST);
+        return Files.exists(manifest) ? objectMapper.readValue(manifest.toFile(), Manifest.class) : null;
+    }
+
+    private void pruneOldBackups() throws IOException {
+        List<Manifest> backups = listBackups(); // newest first
+        for (Manifest old : backups.subList(Math.min(keep, backups.size()), backups.size())) {
+            deleteRecursively(dir.resolve(old.id()));
+        }
+    }
+
+    private int workers() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static ExecutorService pool(int workers) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "backup-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // The first failing part fails the job; the finally blocks of the callers cancel the others.
+    private static <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
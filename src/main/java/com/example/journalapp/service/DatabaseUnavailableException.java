@@ -0,0 +1,14 @@
+package com.example.journalapp.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown by MongoGuard when Mongo is not answering (circuit open, bulkhead full, connection failure) and there is
+// nothing cached to fall back on. Controllers let it through, so the client gets a 503 and can retry later.
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class DatabaseUnavailableException extends RuntimeException {
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
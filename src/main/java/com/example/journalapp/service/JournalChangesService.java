@@ -0,0 +1,137 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.JournalTombstone;
+import com.example.journalapp.entity.User;
+import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.utils.ChangeToken;
+import com.mongodb.DBRef;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Incremental sync for GET /journal/changes.
+Every write in JournalEntryService bumps the owner's journalVersion and stamps the new value on what it wrote:
+changeSeq on created/updated entries, a JournalTombstone for deleted ones. Writes to one journal all update the same
+user document, so they commit one after the other and the sequence only grows. "What changed since n" is then one
+range read on (ownerId, changeSeq) in each collection, O(changes) instead of O(journal).
+Pages hold at most journal.changes.page-size changes; the client keeps asking with the returned token while hasMore.
+ */
+@Component
+@Slf4j
+public class JournalChangesService {
+
+    public record Changes(List<JournalEntry> changed, List<ObjectId> deleted, ChangeToken next, boolean hasMore) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${journal.changes.page-size:1000}")
+    private int pageSize;
+
+    // A token can only be answered while every delete it has not seen still has its tombstone, and not across a
+    // restore: the journal went back to another history, whose sequences are not comparable with the token's.
+    public boolean isExpired(ChangeToken token, UserRepository.JournalVersionView owner) {
+        if (owner.getJournalRestoredAt() != null && token.issuedAt() < owner.getJournalRestoredAt().getTime()) {
+            return true;
+        }
+        return System.currentTimeMillis() - token.issuedAt() > JournalTombstone.RETENTION.toMillis();
+    }
+
+    // since == null: everything (first sync). The owner view must be read before calling this: every change up to its
+    // journalVersion is committed, so a complete page can hand out that version as the next token.
+    public Changes changesSince(UserRepository.JournalVersionView owner, ChangeToken since) {
+        long from = since != null ? since.seq() : 0;
+        Query changedQuery = new Query(where("ownerId").is(owner.getId()).and("changeSeq").gt(from))
+                .with(Sort.by("changeSeq")).limit(pageSize + 1);
+        List<JournalEntry> changed = mongoTemplate.find(changedQuery, JournalEntry.class);
+        Query deletedQuery = new Query(where("ownerId").is(owner.getId()).and("changeSeq").gt(from))
+                .with(Sort.by("changeSeq")).limit(pageSize + 1);
+        deletedQuery.fields().include("changeSeq");
+        List<JournalTombstone> deleted = mongoTemplate.find(deletedQuery, JournalTombstone.class);
+
+        // Merge both by sequence and keep the first pageSize. Sequences are unique per owner, so a page never ends in
+        // the middle of one write.
+        List<JournalEntry> pageChanged = new ArrayList<>();
+        List<ObjectId> pageDeleted = new ArrayList<>();
+        long last = from;
+        int c = 0;
+        int d = 0;
+        while (c + d < pageSize && (c < changed.size() || d < deleted.size())) {
+            if (d == deleted.size() || (c < changed.size() && changed.get(c).getChangeSeq() < deleted.get(d).getChangeSeq())) {
+                last = changed.get(c).getChangeSeq();
+                pageChanged.add(changed.get(c++));
+            }
+            else {
+                last = deleted.get(d).getChangeSeq();
+                pageDeleted.add(deleted.get(d++).getId());
+            }
+        }
+        boolean hasMore = c < changed.size() || d < deleted.size();
+
+        long now = System.currentTimeMillis();
+        long version = owner.getJournalVersion() != null ? owner.getJournalVersion() : 0L;
+        ChangeToken next = hasMore
+                // the client is not caught up yet, so deletes it has not seen may be as old as its previous token
+                ? new ChangeToken(owner.getId().toHexString(), last, since != null ? since.issuedAt() : now)
+                : new ChangeToken(owner.getId().toHexString(), Math.max(version, last), now);
+        return new Changes(pageChanged, pageDeleted, next, hasMore);
+    }
+
+    // One-shot backfill (run by IndexPlanRunner with journal.indexes.apply=true) for entries written before change
+    // sequences existed: each owner's unstamped entries get a fresh range of its journalVersion, so the first sync
+    // returns them too. Entries written meanwhile are stamped by JournalEntryService and skipped; safe to re-run.
+    public long backfillChangeSequences() {
+        String users = mongoTemplate.getCollectionName(User.class);
+        String entries = mongoTemplate.getCollectionName(JournalEntry.class);
+        Query allUsers = new Query().with(Sort.by("_id"));
+        allUsers.fields().include("journalEntries");
+        long stamped = 0;
+        for (Document user : mongoTemplate.find(allUsers, Document.class, users)) {
+            List<DBRef> refs = user.getList("journalEntries", DBRef.class);
+            if (refs == null || refs.isEmpty()) {
+                continue;
+            }
+            List<Object> ids = refs.stream().map(DBRef::getId).toList();
+            Query unstampedQuery = new Query(where("_id").in(ids).and("ownerId").exists(false)).with(Sort.by("_id"));
+            unstampedQuery.fields().include("_id");
+            List<Document> unstamped = mongoTemplate.find(unstampedQuery, Document.class, entries);
+            if (unstamped.isEmpty()) {
+                continue;
+            }
+            ObjectId ownerId = user.getObjectId("_id");
+            Query ownerQuery = new Query(where("_id").is(ownerId));
+            ownerQuery.fields().include("journalVersion");
+            Document owner = mongoTemplate.findAndModify(ownerQuery, new Update().inc("journalVersion", unstamped.size()),
+                    FindAndModifyOptions.options().returnNew(true), Document.class, users);
+            if (owner == null) {
+                continue; // deleted meanwhile
+            }
+            long seq = owner.get("journalVersion", Number.class).longValue() - unstamped.size();
+            BulkOperations stamps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entries);
+            for (Document entry : unstamped) {
+                stamps.updateOne(new Query(where("_id").is(entry.get("_id")).and("ownerId").exists(false)),
+                        new Update().set("ownerId", ownerId).set("changeSeq", ++seq));
+            }
+            stamped += stamps.execute().getModifiedCount();
+        }
+        log.info("Backfilled change sequences of {} journal entries", stamped);
+        return stamped;
+    }
+}
@@ -1,19 +1,46 @@
 package com.example.journalapp.service;
 
+import com.example.journalapp.audit.AuditLog;
+import com.example.journalapp.cache.JournalEntryCache;
 import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.JournalTombstone;
+import com.example.journalapp.entity.MetricPoint;
 import com.example.journalapp.entity.User;
+import com.example.journalapp.events.JournalEvent;
+import com.example.journalapp.events.JournalEventHub;
 import com.example.journalapp.repository.JournalEntryRepository;
+import com.example.journalapp.utils.Metrics;
+import com.example.journalapp.utils.Tags;
+import com.mongodb.DBRef;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Component // For general purpose classes. All other annotations (@Service, @Repository, @Controller) are just specialized
 // versions of @Component.
+@Slf4j
 public class JournalEntryService {
 
     @Autowired
@@ -22,36 +49,182 @@ public class JournalEntryService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JournalEntryCache journalEntryCache;
+
+    @Autowired
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private JournalRevisionService journalRevisionService;
+
+    @Autowired
+    private JournalTagService journalTagService;
+
+    @Autowired
+    private JournalMetricsService journalMetricsService;
+
+    @Autowired
+    private JournalEventHub journalEventHub;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private OnThisDayService onThisDayService;
+
     @Transactional /* It means treat whatever is written in this method as a single operation, if anything fails, then
                       roll back whatever changes were made to all others. */
     public void saveJournalEntry(JournalEntry journalEntry, String userName){
-        User user = userService.findByUserName(userName);
         journalEntry.setDate(LocalDateTime.now());
+        journalEntry.setTags(Tags.normalize(journalEntry.getTags()));
+        journalEntry.setMetrics(Metrics.normalize(journalEntry.getMetrics()));
+        if (journalEntry.getId() == null) {
+            journalEntry.setId(new ObjectId()); // the owner update below needs the ref before the entry is inserted
+        }
+        // $push the reference and $inc the version in one update instead of loading the user (with every @DBRef
+        // resolved) and saving it back. Two concurrent creates can then neither lose an entry nor move the version back.
+        Document owner = updateUser(where("username").is(userName),
+                new Update().push("journalEntries", toRef(journalEntry.getId())), 1);
+        if (owner == null) {
+            throw new IllegalStateException("User not found: " + userName);
+        }
+        stamp(journalEntry, owner, 0);
         JournalEntry saved = journalEntryRepository.save(journalEntry);
-        user.getJournalEntries().add(saved);
-        userService.saveUser(user);
+        journalTagService.adjust(journalEntry.getOwnerId(), List.of(), journalEntry.getTags());
+        recordMetricsAfterCommit(JournalMetricsService.points(journalEntry.getOwnerId(), saved.getId(),
+                Metrics.changes(null, null, journalEntry.getMetrics(), day(journalEntry))));
+        publishAfterCommit(JournalEvent.of(userName, JournalEvent.CREATED, saved.getId()));
     }
 
     public void saveJournalEntry(JournalEntry journalEntry){
         journalEntryRepository.save(journalEntry);
     }
 
+    // Group commit used by JournalWriteBehindService: one bulk write that touches every owner exactly once, one read of
+    // the owners' new versions and one insertMany for the whole batch, instead of a transaction per entry.
+    // Entries must already carry their ids and normalized tags and metrics. An owner with n entries in the batch moves its
+    // journalVersion by n, so every entry still gets a change sequence of its own.
+    @Transactional
+    public void saveJournalEntries(Map<ObjectId, List<JournalEntry>> entriesByUserId){
+        String users = mongoTemplate.getCollectionName(User.class);
+        BulkOperations ownerUpdates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, users);
+        entriesByUserId.forEach((userId, entries) -> {
+            Object[] refs = entries.stream().map(entry -> toRef(entry.getId())).toArray();
+            Update update = new Update().push("journalEntries").each(refs).inc("journalVersion", entries.size());
+            ownerUpdates.updateOne(new Query(where("_id").is(userId)), update);
+        });
+        ownerUpdates.execute();
+
+        // Read inside the same transaction: these are our own increments, no other write can slip in between.
+        Query owners = new Query(where("_id").in(entriesByUserId.keySet()));
+        owners.fields().include("journalVersion");
+        Map<Object, Document> ownerById = new HashMap<>();
+        mongoTemplate.find(owners, Document.class, users).forEach(owner -> ownerById.put(owner.get("_id"), owner));
+
+        List<JournalEntry> all = new ArrayList<>();
+        Map<ObjectId, Map<String, Integer>> tagCounts = new HashMap<>();
+        List<MetricPoint> metricPoints = new ArrayList<>();
+        entriesByUserId.forEach((userId, entries) -> {
+            Document owner = ownerById.get(userId);
+            if (owner == null) {
+                throw new IllegalStateException("User not found: " + userId);
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                stamp(entries.get(i), owner, entries.size() - 1 - i);
+                if (entries.get(i).getTags() != null) {
+                    for (String tag : entries.get(i).getTags()) {
+                        tagCounts.computeIfAbsent(userId, k -> new HashMap<>()).merge(tag, 1, Integer::sum);
+                    }
+                }
+                metricPoints.addAll(JournalMetricsService.points(userId, entries.get(i).getId(),
+                        Metrics.changes(null, null, entries.get(i).getMetrics(), day(entries.get(i)))));
+            }
+            all.addAll(entries);
+        });
+        mongoTemplate.insert(all, JournalEntry.class);
+        journalTagService.added(tagCounts);
+        recordMetricsAfterCommit(metricPoints);
+    }
+
+    /*
+    Saves the edited entry, records the edit as a revision (previous = the entry before the edit) and bumps the
+    owner's journal version so cached copies get invalidated.
+    previous was read before this transaction, so the entry is only replaced while its changeSeq is still previous's:
+    otherwise another edit committed in between, and the revision delta, tag counts and metric changes computed from
+    previous would describe the wrong base (and that edit would be overwritten). OptimisticLockingFailureException
+    then, the caller re-reads and tries again.
+     */
+    @Transactional
+    public void updateJournalEntry(JournalEntry journalEntry, JournalEntry previous, String userName){
+        Document owner = updateUser(where("username").is(userName), new Update(), 1);
+        if (owner == null) {
+            throw new IllegalStateException("User not found: " + userName);
+        }
+        stamp(journalEntry, owner, 0);
+        // entries written before change sequences existed have none stored ("changeSeq": null also matches a missing field)
+        Criteria unchanged = previous.getChangeSeq() != 0 ? where("changeSeq").is(previous.getChangeSeq())
+                : where("changeSeq").in(0L, null);
+        if (mongoTemplate.replace(new Query(where("_id").is(journalEntry.getId()).andOperator(unchanged)), journalEntry)
+                .getMatchedCount() == 0) {
+            throw new OptimisticLockingFailureException("Journal entry " + journalEntry.getId() + " was changed concurrently");
+        }
+        journalTagService.adjust(journalEntry.getOwnerId(), Tags.added(journalEntry.getTags(), previous.getTags()),
+                Tags.added(previous.getTags(), journalEntry.getTags()));
+        recordMetricsAfterCommit(JournalMetricsService.points(journalEntry.getOwnerId(), journalEntry.getId(),
+                Metrics.changes(previous.getMetrics(), day(previous), journalEntry.getMetrics(), day(journalEntry))));
+        journalRevisionService.recordUpdate(previous, journalEntry);
+        onThisDayService.entryUpdated(journalEntry);
+        journalEntryCache.invalidate(journalEntry.getId());
+        publishAfterCommit(JournalEvent.of(userName, JournalEvent.UPDATED, journalEntry.getId()));
+    }
+
     public List<JournalEntry> getAllJournalEntries(){
         return journalEntryRepository.findAll();
     }
 
+    // Served from JournalEntryCache; the returned entry is shared, so do not modify it (see getJournalEntryForUpdate).
     public Optional<JournalEntry> getJournalEntryById(ObjectId id){
-        return journalEntryRepository.findById(id);
+        return journalEntryCache.get(id, key -> mongoGuard.read(MongoGuard.READ, "entry:" + key,
+                () -> journalEntryRepository.findById(key)));
+    }
+
+    // Bypasses the cache and returns a private copy that the caller may change and pass to updateJournalEntry.
+    public Optional<JournalEntry> getJournalEntryForUpdate(ObjectId id){
+        return mongoGuard.call(MongoGuard.READ, () -> journalEntryRepository.findById(id)); // never stale: it is about to be written
     }
 
     @Transactional
     public void deleteJournalEntryById(ObjectId id, String userName){
         try {
-            User user = userService.findByUserName(userName);
-            boolean removed = user.getJournalEntries().removeIf(j -> j.getId().equals(id));
-            if(removed) {
-                userService.saveUser(user);
-                journalEntryRepository.deleteById(id);
+            // Only matches when the user really owns the entry, so a null result means there was nothing to remove.
+            Document owner = updateUser(where("username").is(userName).and("journalEntries").is(toRef(id)),
+                    new Update().pull("journalEntries", toRef(id)), 1);
+            if(owner != null) {
+                Query entry = new Query(where("_id").is(id));
+                entry.fields().include("tags", "metrics", "date");
+                JournalEntry removed = mongoTemplate.findAndRemove(entry, JournalEntry.class);
+                if (removed != null && removed.getTags() != null) {
+                    journalTagService.adjust(owner.getObjectId("_id"), removed.getTags(), List.of());
+                }
+                if (removed != null) {
+                    recordMetricsAfterCommit(JournalMetricsService.points(owner.getObjectId("_id"), id,
+                            Metrics.changes(removed.getMetrics(), day(removed), null, null)));
+                    onThisDayService.entryDeleted(owner.getObjectId("_id"), id, removed.getDate());
+                }
+                // tells GET /journal/changes clients to drop their copy
+                mongoTemplate.save(new JournalTombstone(id, owner.getObjectId("_id"),
+                        owner.get("journalVersion", Number.class).longValue()));
+                journalRevisionService.deleteAllFor(id);
+                journalEntryCache.invalidate(id);
+                deleteAttachmentsAfterCommit(id);
+                publishAfterCommit(JournalEvent.of(userName, JournalEvent.DELETED, id));
             }
         }
         catch(Exception e){
@@ -59,4 +232,72 @@ public class JournalEntryService {
             throw new RuntimeException("An error occurred while deleting the journal entry", e);
         }
     }
+
+    // Every write to a user's journal goes through here so that journalVersion is always bumped together with it.
+    // Returns the owner's _id and journalVersion after the update, or null when the criteria matched nobody.
+    private Document updateUser(Criteria criteria, Update update, int changes) {
+        update.inc("journalVersion", changes);
+        Query query = new Query(criteria);
+        query.fields().include("journalVersion");
+        // Using the collection name (not User.class) keeps the DBRef values exactly as we built them.
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                Document.class, mongoTemplate.getCollectionName(User.class));
+    }
+
+    // The change sequence of an entry is its owner's journalVersion after the write, minus `before` for entries that
+    // share one version bump (saveJournalEntries).
+    private static void stamp(JournalEntry entry, Document owner, int before) {
+        entry.setOwnerId(owner.getObjectId("_id"));
+        entry.setChangeSeq(owner.get("journalVersion", Number.class).longValue() - before);
+        entry.setMonthDay(entry.getDate() != null ? entry.getDate().format(OnThisDayService.MONTH_DAY) : null);
+    }
+
+    // GridFS is not part of the Mongo transaction, so only drop the files once the entry is really gone.
+    private void deleteAttachmentsAfterCommit(ObjectId id) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                attachmentService.deleteAllFor(id);
+            }
+        });
+    }
+
+    private static LocalDate day(JournalEntry entry) {
+        return entry.getDate() != null ? entry.getDate().toLocalDate() : null;
+    }
+
+    // Time-series collections cannot be written in a transaction; the points go in once the entries are committed.
+    // The write already succeeded at that point, so a failure here is only logged (the trends miss those changes).
+    private void recordMetricsAfterCommit(List<MetricPoint> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    journalMetricsService.record(points);
+                }
+                catch (Exception e) {
+                    log.warn("Could not record {} metric changes: {}", points.size(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Clients must never hear about a write that is then rolled back.
+    private void publishAfterCommit(JournalEvent event) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userService.journalChanged(event.username());
+                journalEventHub.publish(event);
+                auditLog.journalChanged(event.auditAction(), event.username(), event.entryId());
+            }
+        });
+    }
+
+    private DBRef toRef(ObjectId id) {
+        return new DBRef(mongoTemplate.getCollectionName(JournalEntry.class), id);
+    }
 }
@@ -0,0 +1,377 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.audit.AuditAction;
+import com.example.journalapp.audit.AuditLog;
+import com.example.journalapp.entity.ImportJob;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.events.JournalEvent;
+import com.example.journalapp.events.JournalEventHub;
+import com.example.journalapp.utils.BoundedLineReader;
+import com.example.journalapp.utils.MarkdownEntry;
+import com.example.journalapp.utils.Metrics;
+import com.example.journalapp.utils.Tags;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+POST /journal/import: many entries in one upload, as NDJSON (one JSON object per line) or as a zip of Markdown files.
+The body is parsed while it streams in: one line / one zip entry at a time, each at most journal.import.max-record-size.
+Valid records collect in a batch that is written with JournalEntryService.saveJournalEntries (one transaction: $push
+of the refs + $inc of the journal version on the owner, insertMany of the entries, tag counts) once it holds
+journal.import.batch-size entries or journal.import.batch-chars characters. The request thread waits for that write
+before it reads on, so the upload only streams as fast as Mongo takes the entries (TCP flow control does the rest)
+and memory stays at one batch, however large the upload.
+Invalid records are skipped and reported in the ImportJob; a failed batch write or a broken upload stops the import,
+the batches written before it stay. At most journal.import.max-concurrent imports run per node.
+Every written batch sends one "imported" event to the owner's open GET /journal/events streams. Imported entries keep
+their own dates, which the incremental admin stats refresh never looks back at, so once the import ends the days it
+filled are recounted (AdminStatsService.recountDays).
+ */
+@Component
+@Slf4j
+public class JournalImportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String MARKDOWN_ZIP = "markdown-zip";
+    private static final int RECENT_JOBS = 20;
+
+    // One NDJSON line. date: ISO date, date-time or date-time with offset; missing = the time of the import.
+    public record ImportRecord(String title, String content, String date, List<String> tags, Map<String, Double> metrics) {
+    }
+
+    public static class BusyException extends Exception {
+        BusyException() {
+            super("Too many imports running, try again later");
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JournalEventHub journalEventHub;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${journal.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${journal.import.batch-chars:4000000}")
+    private long batchChars;
+
+    @Value("${journal.import.max-record-size:1MB}")
+    private DataSize maxRecordSize;
+
+    @Value("${journal.import.max-errors:100}")
+    private int maxErrors;
+
+    private final Semaphore permits;
+
+    public JournalImportService(@Value("${journal.import.max-concurrent:2}") int maxConcurrent) {
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    public ImportJob importNdjson(ObjectId ownerId, String username, InputStream body) throws BusyException {
+        return run(ownerId, username, NDJSON, batch -> {
+            BoundedLineReader lines = new BoundedLineReader(new InputStreamReader(body, StandardCharsets.UTF_8),
+                    (int) maxRecordSize.toBytes());
+            long number = 0;
+            String line;
+            while ((line = lines.readLine()) != null) {
+                number++;
+                if (line == BoundedLineReader.TOO_LONG) {
+                    batch.error(number, null, "Record is larger than " + maxRecordSize);
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                ImportRecord record;
+                try {
+                    record = objectMapper.readValue(line, ImportRecord.class);
+                }
+                catch (JsonProcessingException e) {
+                    batch.error(number, null, "Invalid JSON: " + e.getOriginalMessage());
+                    continue;
+                }
+                batch.add(number, null, record, null);
+            }
+        });
+    }
+
+    // Every .md / .markdown / .txt file of the zip is one entry (see MarkdownEntry); directories and hidden files are skipped.
+    public ImportJob importMarkdownZip(ObjectId ownerId, String username, InputStream body) throws BusyException {
+        return run(ownerId, username, MARKDOWN_ZIP, batch -> {
+            ZipInputStream zip = new ZipInputStream(body, StandardCharsets.UTF_8);
+            long number = 0;
+            ZipEntry file;
+            while ((file = zip.getNextEntry()) != null) {
+                String name = file.getName();
+                String baseName = name.substring(name.lastIndexOf('/') + 1);
+                if (file.isDirectory() || name.startsWith("__MACOSX/") || baseName.startsWith(".")) {
+                    continue;
+                }
+                number++;
+                String lowerCase = baseName.toLowerCase(Locale.ROOT);
+                if (!lowerCase.endsWith(".md") && !lowerCase.endsWith(".markdown") && !lowerCase.endsWith(".txt")) {
+                    batch.error(number, name, "Not a Markdown file");
+                    continue;
+                }
+                byte[] bytes = readAtMost(zip, maxRecordSize.toBytes());
+                if (bytes == null) {
+                    batch.error(number, name, "File is larger than " + maxRecordSize);
+                    continue;
+                }
+                MarkdownEntry markdown = MarkdownEntry.parse(name, new String(bytes, StandardCharsets.UTF_8));
+                LocalDateTime modified = file.getLastModifiedTime() != null
+                        ? LocalDateTime.ofInstant(file.getLastModifiedTime().toInstant(), ZoneId.systemDefault()) : null;
+                batch.add(number, name, new ImportRecord(markdown.title(), markdown.content(), markdown.date(), markdown.tags(), null),
+                        modified);
+            }
+        });
+    }
+
+    public List<ImportJob> recentJobs(ObjectId ownerId) {
+        Query query = new Query(where("ownerId").is(ownerId)).with(Sort.by(Sort.Direction.DESC, "startedAt")).limit(RECENT_JOBS);
+        query.fields().exclude("errors");
+        return mongoTemplate.find(query, ImportJob.class);
+    }
+
+    // null unless the job exists and belongs to the owner
+    public ImportJob findJob(ObjectId ownerId, ObjectId jobId) {
+        return mongoTemplate.findOne(new Query(where("_id").is(jobId).and("ownerId").is(ownerId)), ImportJob.class);
+    }
+
+    private interface RecordSource {
+        void readInto(Batch batch) throws IOException;
+    }
+
+    private ImportJob run(ObjectId ownerId, String username, String format, RecordSource source) throws BusyException {
+        if (!permits.tryAcquire()) {
+            throw new BusyException();
+        }
+        try {
+            ImportJob job = new ImportJob();
+            job.setOwnerId(ownerId);
+            job.setFormat(format);
+            job.setStatus(ImportJob.Status.RUNNING);
+            job.setStartedAt(new Date());
+            job.setUpdatedAt(job.getStartedAt());
+            mongoGuard.run(MongoGuard.WRITE, () -> mongoTemplate.insert(job));
+
+            Batch batch = new Batch(job, username);
+            String failure = null;
+            try {
+                source.readInto(batch);
+                batch.flush();
+            }
+            catch (IOException e) {
+                failure = "Could not read the upload: " + e.getMessage();
+            }
+            catch (RuntimeException e) {
+                log.warn("Import {} of {} stopped after {} entries", job.getId(), username, job.getImported(), e);
+                failure = "Could not store the entries: " + e.getMessage();
+            }
+            job.setStatus(failure == null ? ImportJob.Status.DONE : ImportJob.Status.FAILED);
+            job.setLastError(failure);
+            job.setFinishedAt(new Date());
+            try {
+                batch.saveProgress(new Update().set("status", job.getStatus()).set("lastError", failure)
+                        .set("finishedAt", job.getFinishedAt()));
+            }
+            catch (RuntimeException e) {
+                log.warn("Could not record the outcome of import {}: {}", job.getId(), e.getMessage());
+            }
+            if (batch.earliest != null) {
+                try {
+                    // the stats count days in UTC, entry dates are server-local
+                    adminStatsService.recountDays(utcDay(batch.earliest), utcDay(batch.latest));
+                }
+                catch (RuntimeException e) {
+                    log.warn("Could not recount the admin stats after import {}: {}", job.getId(), e.getMessage());
+                }
+            }
+            auditLog.record(AuditAction.JOURNAL_IMPORTED, username, job.getId().toHexString(), job.getImported() + " entries");
+            return job;
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    // The entries waiting for the next write, and the job counters / errors not saved yet.
+    private class Batch {
+        private final ImportJob job;
+        private final String username;
+        private final List<JournalEntry> entries = new ArrayList<>();
+        private final List<ImportJob.RecordError> newErrors = new ArrayList<>();
+        private long chars;
+        private long recordsSinceSave;
+        // date range of the entries written so far
+        private LocalDateTime earliest;
+        private LocalDateTime latest;
+
+        Batch(ImportJob job, String username) {
+            this.job = job;
+            this.username = username;
+        }
+
+        void add(long number, String name, ImportRecord record, LocalDateTime fallbackDate) {
+            JournalEntry entry;
+            try {
+                entry = toEntry(record, fallbackDate);
+            }
+            catch (IllegalArgumentException e) {
+                error(number, name, e.getMessage());
+                return;
+            }
+            job.setRecords(job.getRecords() + 1);
+            entries.add(entry);
+            chars += entry.getTitle().length() + (entry.getContent() != null ? entry.getContent().length() : 0);
+            if (entries.size() >= batchSize || chars >= batchChars) {
+                flush();
+            }
+        }
+
+        void error(long number, String name, String error) {
+            job.setRecords(job.getRecords() + 1);
+            job.setFailed(job.getFailed() + 1);
+            if (job.getErrors().size() < maxErrors) {
+                ImportJob.RecordError recordError = new ImportJob.RecordError(number, name, error);
+                job.getErrors().add(recordError);
+                newErrors.add(recordError);
+            }
+            if (++recordsSinceSave >= batchSize) {
+                flush(); // an upload of nothing but bad records still shows progress
+            }
+        }
+
+        void flush() {
+            if (!entries.isEmpty()) {
+                mongoGuard.run(MongoGuard.WRITE, () -> journalEntryService.saveJournalEntries(Map.of(job.getOwnerId(), entries)));
+                job.setImported(job.getImported() + entries.size());
+                for (JournalEntry entry : entries) {
+                    earliest = earliest == null || entry.getDate().isBefore(earliest) ? entry.getDate() : earliest;
+                    latest = latest == null || entry.getDate().isAfter(latest) ? entry.getDate() : latest;
+                }
+                userService.journalChanged(username);
+                journalEventHub.publish(JournalEvent.of(username, JournalEvent.IMPORTED, job.getId()));
+                entries.clear();
+                chars = 0;
+            }
+            saveProgress(new Update());
+        }
+
+        void saveProgress(Update update) {
+            job.setUpdatedAt(new Date());
+            update.set("records", job.getRecords()).set("imported", job.getImported()).set("failed", job.getFailed())
+                    .set("updatedAt", job.getUpdatedAt());
+            if (!newErrors.isEmpty()) {
+                update.push("errors").each(newErrors.toArray());
+            }
+            mongoTemplate.updateFirst(new Query(where("_id").is(job.getId())), update, ImportJob.class);
+            newErrors.clear();
+            recordsSinceSave = 0;
+        }
+    }
+
+    private static JournalEntry toEntry(ImportRecord record, LocalDateTime fallbackDate) {
+        if (record.title() == null || record.title().isBlank()) {
+            throw new IllegalArgumentException("Missing title");
+        }
+        JournalEntry entry = new JournalEntry();
+        entry.setId(new ObjectId());
+        entry.setTitle(record.title());
+        entry.setContent(record.content());
+        LocalDateTime date = parseDate(record.date());
+        entry.setDate(date != null ? date : fallbackDate != null ? fallbackDate : LocalDateTime.now());
+        entry.setTags(Tags.normalize(record.tags()));
+        entry.setMetrics(Metrics.normalize(record.metrics()));
+        return entry;
+    }
+
+    private static LocalDate utcDay(LocalDateTime serverTime) {
+        return serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    }
+
+    // Entry dates are local to the server (LocalDateTime.now() on create), so an offset is converted to that zone.
+    private static LocalDateTime parseDate(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            if (date.length() == 10) {
+                return LocalDate.parse(date).atStartOfDay();
+            }
+            if (date.endsWith("Z") || date.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return OffsetDateTime.parse(date).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return LocalDateTime.parse(date);
+        }
+        catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+    }
+
+    // The rest of the current zip entry, or null (and the entry skipped) if it is longer than `limit` bytes.
+    private static byte[] readAtMost(InputStream in, long limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            if (out.size() + read > limit) {
+                return null; // getNextEntry() skips the remaining bytes
+            }
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
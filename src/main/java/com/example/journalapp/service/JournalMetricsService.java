@@ -0,0 +1,294 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.config.IndexPlan;
+import com.example.journalapp.entity.MetricPoint;
+import com.example.journalapp.entity.MetricRollup;
+import com.example.journalapp.utils.Metrics;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Metrics of journal entries (mood, sleep, ...) as time series, and the day / week / month rollups GET /journal/trends
+reads.
+- record: JournalEntryService hands over the changes of a write (utils/Metrics.changes) once it has committed;
+  time-series collections cannot be written inside a transaction. A node that dies between the commit and this
+  insert loses those points (the entry itself is saved).
+- rollUp (every journal.metrics.rollup-interval-ms, one node at a time through a lease in metric_rollup_runs):
+  folds the points recorded since the checkpoint into metric_rollups, window by window (journal.metrics.rollup-window-ms
+  of recording time). Each window is one $group in Mongo, then one $inc per touched rollup document, guarded by
+  appliedThrough so a window that is re-run after a crash is not counted twice. The window's bounds are written to
+  the run document (pending) before it is folded and a resumed run re-folds exactly those, since the guard only
+  holds for the same upper bound; the checkpoint moves (and pending is cleared) after each window. Points younger
+  than journal.metrics.settle-ms are left for the next run, so a write that commits late is not skipped.
+- trends: one indexed range read of at most max-trend-points rollup documents, however much data they summarize.
+ */
+@Component
+@Slf4j
+public class JournalMetricsService {
+
+    private static final String RUNS = "metric_rollup_runs";
+    private static final String RUN_ID = "rollups";
+    private static final int DUPLICATE_KEY = 11000;
+
+    // One chart point; average is sum / count of the values set on entries of that day, week or month.
+    public record TrendPoint(LocalDate start, double average, double sum, long count) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IndexPlan indexPlan;
+
+    // Entry dates are LocalDateTime.now() of the server and LocalDate is stored as midnight in the server zone.
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Value("${journal.metrics.rollup-window-ms:3600000}")
+    private long windowMs;
+
+    @Value("${journal.metrics.settle-ms:30000}")
+    private long settleMs;
+
+    @Value("${journal.metrics.rollup-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${journal.metrics.lease-ms:300000}")
+    private long leaseMs;
+
+    private final String workerId = UUID.randomUUID().toString();
+    private volatile boolean collectionReady;
+
+    public static List<MetricPoint> points(ObjectId ownerId, ObjectId entryId, List<Metrics.Change> changes) {
+        List<MetricPoint> points = new ArrayList<>(changes.size());
+        for (Metrics.Change change : changes) {
+            MetricPoint point = new MetricPoint();
+            point.setMeta(new MetricPoint.Meta(ownerId, change.metric()));
+            point.setDay(change.day());
+            point.setValue(change.value());
+            point.setCount(change.count());
+            point.setEntryId(entryId);
+            points.add(point);
+        }
+        return points;
+    }
+
+    public void record(List<MetricPoint> points) {
+        if (points.isEmpty()) {
+            return;
+        }
+        if (!collectionReady) {
+            indexPlan.createCollections(); // a first insert would create journal_metrics as a plain collection
+            collectionReady = true;
+        }
+        Date now = new Date();
+        points.forEach(point -> point.setRecordedAt(now));
+        mongoTemplate.insert(points, MetricPoint.class);
+    }
+
+    // At most maxPoints buckets of [from, to], oldest first; buckets whose values were all removed again are left out.
+    public List<TrendPoint> trends(ObjectId ownerId, String metric, Metrics.Granularity granularity,
+                                   LocalDate from, LocalDate to, int maxPoints) {
+        Query query = new Query(where("ownerId").is(ownerId).and("metric").is(metric).and("granularity").is(granularity)
+                .and("start").gte(granularity.start(from)).lte(to))
+                .with(Sort.by(Sort.Direction.DESC, "start"))
+                .limit(maxPoints);
+        query.fields().include("start", "sum", "count");
+        List<MetricRollup> newestFirst = mongoTemplate.find(query, MetricRollup.class);
+        List<TrendPoint> points = new ArrayList<>(newestFirst.size());
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            MetricRollup rollup = newestFirst.get(i);
+            if (rollup.getCount() > 0) {
+                points.add(new TrendPoint(rollup.getStart(), rollup.getSum() / rollup.getCount(), rollup.getSum(), rollup.getCount()));
+            }
+        }
+        return points;
+    }
+
+    @Scheduled(initialDelayString = "${journal.metrics.initial-delay-ms:30000}", fixedDelayString = "${journal.metrics.rollup-interval-ms:60000}")
+    public void rollUp() {
+        try {
+            Document run = claim();
+            if (run == null) {
+                return;
+            }
+            Date through = run.getDate("through");
+            Document pending = run.get("pending", Document.class);
+            Date until = new Date(System.currentTimeMillis() - settleMs);
+            long started = System.currentTimeMillis();
+            long rollups = 0;
+            while (true) {
+                Date from;
+                Date to;
+                if (pending != null) {
+                    // A run died inside this window. `until` has moved on since, so recomputing the bound would give
+                    // a later `to` that passes the appliedThrough guard of rollups the window already reached.
+                    from = pending.getDate("from");
+                    to = pending.getDate("to");
+                    pending = null;
+                }
+                else {
+                    Date first = firstPointAfter(through);
+                    to = first == null || first.after(until) ? until
+                            : new Date(Math.min(first.getTime() - 1 + windowMs, until.getTime()));
+                    if (through != null && !to.after(through)) {
+                        break;
+                    }
+                    from = first != null && !first.after(until) ? new Date(first.getTime() - 1) : null;
+                }
+                if (from != null) {
+                    if (!begin(from, to)) {
+                        log.info("Lost the lease on the metric rollups, another node continues them");
+                        return;
+                    }
+                    rollups += fold(from, to);
+                }
+                if (!checkpoint(to)) {
+                    log.info("Lost the lease on the metric rollups, another node continues them");
+                    return;
+                }
+                through = to;
+                if (!to.before(until)) {
+                    break;
+                }
+            }
+            mongoTemplate.updateFirst(new Query(where("_id").is(RUN_ID).and("leaseOwner").is(workerId)),
+                    new Update().set("leaseUntil", new Date()), RUNS); // claimable by any node at its next poll
+            if (rollups > 0) {
+                log.debug("Folded {} metric rollup updates in {} ms", rollups, System.currentTimeMillis() - started);
+            }
+        }
+        catch (Exception e) {
+            log.warn("Metric rollup failed, resuming from the last checkpoint: {}", e.getMessage());
+        }
+    }
+
+    // Points first, so a later rollup run finds nothing of this owner to fold back in.
+    public void deleteAllFor(ObjectId ownerId) {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(MetricPoint.class))
+                .deleteMany(Filters.eq("meta.ownerId", ownerId));
+        mongoTemplate.remove(new Query(where("ownerId").is(ownerId)), MetricRollup.class);
+    }
+
+    // The run document with our lease on it, or null if another node holds the lease.
+    private Document claim() {
+        Date now = new Date();
+        Query claimable = new Query(where("_id").is(RUN_ID)
+                .orOperator(where("leaseUntil").lt(now), where("leaseUntil").exists(false)));
+        Update lease = new Update().set("leaseOwner", workerId).set("leaseUntil", new Date(now.getTime() + leaseMs));
+        try {
+            return mongoTemplate.findAndModify(claimable, lease, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, RUNS);
+        }
+        catch (DuplicateKeyException e) {
+            return null; // leased: the upsert tried to create a second run document
+        }
+    }
+
+    // Records the window about to be folded, so a run that resumes after a crash folds exactly this one again.
+    private boolean begin(Date from, Date to) {
+        return mongoTemplate.updateFirst(new Query(where("_id").is(RUN_ID).and("leaseOwner").is(workerId)),
+                new Update().set("pending", new Document("from", from).append("to", to))
+                        .set("leaseUntil", new Date(System.currentTimeMillis() + leaseMs)),
+                RUNS).getMatchedCount() > 0;
+    }
+
+    private boolean checkpoint(Date through) {
+        return mongoTemplate.updateFirst(new Query(where("_id").is(RUN_ID).and("leaseOwner").is(workerId)),
+                new Update().set("through", through).unset("pending")
+                        .set("leaseUntil", new Date(System.currentTimeMillis() + leaseMs)),
+                RUNS).getMatchedCount() > 0;
+    }
+
+    // Recording time of the oldest point after `after` (of all points if null), or null; skips idle stretches.
+    private Date firstPointAfter(Date after) {
+        Document filter = after != null ? new Document("recordedAt", new Document("$gt", after)) : new Document();
+        Document first = mongoTemplate.getCollection(mongoTemplate.getCollectionName(MetricPoint.class))
+                .find(filter)
+                .sort(new Document("recordedAt", 1))
+                .projection(new Document("recordedAt", 1).append("_id", 0))
+                .first();
+        return first != null ? first.getDate("recordedAt") : null;
+    }
+
+    // Folds the points recorded in (from, to] into the rollups; returns the number of rollup documents touched.
+    private long fold(Date from, Date to) {
+        Map<String, Document> deltas = new HashMap<>();
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("recordedAt", new Document("$gt", from).append("$lte", to))),
+                new Document("$group", new Document("_id", new Document("ownerId", "$meta.ownerId")
+                        .append("metric", "$meta.metric").append("day", "$day"))
+                        .append("sum", new Document("$sum", "$value"))
+                        .append("count", new Document("$sum", "$count"))));
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(MetricPoint.class))
+                .aggregate(pipeline).allowDiskUse(true).batchSize(batchSize).iterator()) {
+            while (cursor.hasNext()) {
+                Document group = cursor.next();
+                Document key = group.get("_id", Document.class);
+                ObjectId ownerId = key.getObjectId("ownerId");
+                String metric = key.getString("metric");
+                LocalDate day = LocalDate.ofInstant(key.getDate("day").toInstant(), zone);
+                for (Metrics.Granularity granularity : Metrics.Granularity.values()) {
+                    LocalDate start = granularity.start(day);
+                    Document delta = deltas.computeIfAbsent(MetricRollup.idFor(ownerId, metric, granularity, start),
+                            id -> new Document("ownerId", ownerId).append("metric", metric)
+                                    .append("granularity", granularity).append("start", start)
+                                    .append("sum", 0.0).append("count", 0L));
+                    delta.put("sum", delta.getDouble("sum") + group.get("sum", Number.class).doubleValue());
+                    delta.put("count", delta.getLong("count") + group.get("count", Number.class).longValue());
+                }
+            }
+        }
+
+        List<Map.Entry<String, Document>> updates = new ArrayList<>(deltas.entrySet());
+        for (int offset = 0; offset < updates.size(); offset += batchSize) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MetricRollup.class);
+            for (Map.Entry<String, Document> update : updates.subList(offset, Math.min(updates.size(), offset + batchSize))) {
+                Document delta = update.getValue();
+                bulk.upsert(new Query(where("_id").is(update.getKey()).and("appliedThrough").lt(to)), new Update()
+                        .inc("sum", delta.getDouble("sum"))
+                        .inc("count", delta.getLong("count"))
+                        .set("appliedThrough", to)
+                        .setOnInsert("ownerId", delta.get("ownerId"))
+                        .setOnInsert("metric", delta.get("metric"))
+                        .setOnInsert("granularity", delta.get("granularity"))
+                        .setOnInsert("start", delta.get("start")));
+            }
+            try {
+                bulk.execute();
+            }
+            catch (BulkOperationException e) {
+                // a rollup that already has this window: the filter misses it and the upsert collides with its _id
+                if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                    throw e;
+                }
+            }
+        }
+        return updates.size();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.JournalRevision;
+import com.example.journalapp.repository.JournalRevisionRepository;
+import com.example.journalapp.utils.TextDelta;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/*
+Edit history of journal entries, stored in journal_revisions (see JournalRevision).
+Revision 0 (the entry as it was before its first edit) is written together with revision 1, so entries that are
+never edited cost nothing. After that each edit stores a TextDelta against the previous version and every
+journal.revisions.snapshot-every-th revision stores the full content, so rebuilding any version reads one snapshot
+plus at most snapshot-every - 1 deltas.
+ */
+@Component
+public class JournalRevisionService {
+
+    @Autowired
+    private JournalRevisionRepository journalRevisionRepository;
+
+    @Value("${journal.revisions.snapshot-every:10}")
+    private int snapshotEvery;
+
+    // Called inside the update transaction, with the entry before and after the edit.
+    public void recordUpdate(JournalEntry before, JournalEntry after) {
+        if (Objects.equals(before.getTitle(), after.getTitle()) && Objects.equals(before.getContent(), after.getContent())) {
+            return;
+        }
+        JournalRevision latest = journalRevisionRepository.findFirstByEntryIdOrderByRevisionDesc(after.getId());
+        if (latest == null) {
+            JournalRevision original = new JournalRevision();
+            original.setEntryId(before.getId());
+            original.setRevision(0);
+            original.setTitle(before.getTitle());
+            original.setDate(before.getDate());
+            original.setSnapshot(true);
+            original.setContent(before.getContent());
+            journalRevisionRepository.insert(original);
+        }
+        int number = latest != null ? latest.getRevision() + 1 : 1;
+
+        JournalRevision revision = new JournalRevision();
+        revision.setEntryId(after.getId());
+        revision.setRevision(number);
+        revision.setTitle(after.getTitle());
+        revision.setDate(LocalDateTime.now());
+        if (number % snapshotEvery == 0) {
+            revision.setSnapshot(true);
+            revision.setContent(after.getContent());
+        }
+        else {
+            TextDelta delta = TextDelta.between(before.getContent(), after.getContent());
+            revision.setDeltaPrefix(delta.prefix());
+            revision.setDeltaSuffix(delta.suffix());
+            revision.setDeltaInserted(delta.inserted());
+        }
+        // (entryId, revision) is unique: of two concurrent edits one fails here and its transaction rolls back
+        journalRevisionRepository.insert(revision);
+    }
+
+    public List<JournalRevisionRepository.RevisionSummary> listRevisions(ObjectId entryId) {
+        return journalRevisionRepository.findSummariesByEntryId(entryId);
+    }
+
+    // The entry as it was at that revision (content rebuilt from the nearest snapshot), or null if there is none.
+    public JournalRevision getRevision(ObjectId entryId, int number) {
+        JournalRevision snapshot = journalRevisionRepository
+                .findFirstByEntryIdAndRevisionLessThanEqualAndSnapshotTrueOrderByRevisionDesc(entryId, number);
+        if (snapshot == null) {
+            return null;
+        }
+        String content = snapshot.getContent();
+        JournalRevision last = snapshot;
+        for (JournalRevision next : journalRevisionRepository.findRevisionsAfter(entryId, snapshot.getRevision(), number)) {
+            content = next.isSnapshot() ? next.getContent()
+                    : new TextDelta(next.getDeltaPrefix(), next.getDeltaSuffix(), next.getDeltaInserted()).applyTo(content);
+            last = next;
+        }
+        if (last.getRevision() != number) {
+            return null;
+        }
+        JournalRevision result = new JournalRevision();
+        result.setEntryId(entryId);
+        result.setRevision(number);
+        result.setTitle(last.getTitle());
+        result.setDate(last.getDate());
+        result.setSnapshot(true);
+        result.setContent(content);
+        return result;
+    }
+
+    public void deleteAllFor(ObjectId entryId) {
+        journalRevisionRepository.deleteByEntryId(entryId);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.TagCount;
+import com.example.journalapp.utils.PageCursor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Tag lookups and the per-tag counts in tag_counts.
+    entriesWithTag  one range of the (ownerId, tags, date, _id) multikey index, newest first, continued by a PageCursor
+    tagCounts       the owner's tag_counts documents, in tag order
+    adjust          $inc of the counts; called by JournalEntryService inside the write's transaction, so the counts
+                    move together with the entries
+ */
+@Component
+public class JournalTagService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    public record Page(List<JournalEntry> entries, PageCursor next) {
+    }
+
+    public record Count(String tag, long count) {
+    }
+
+    // `after` null for the first page; next is null on the last page.
+    public Page entriesWithTag(ObjectId ownerId, String tag, PageCursor after, int limit) {
+        Criteria criteria = where("ownerId").is(ownerId).and("tags").is(tag);
+        if (after != null) {
+            // date <= cursor date, minus the entries of that same date we already returned (ids >= cursor id)
+            criteria = criteria.and("date").lte(after.date())
+                    .norOperator(where("date").is(after.date()).and("_id").gte(after.id()));
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.DESC, "date", "_id")).limit(limit + 1);
+        List<JournalEntry> entries = mongoTemplate.find(query, JournalEntry.class);
+        if (entries.size() <= limit) {
+            return new Page(entries, null);
+        }
+        entries = entries.subList(0, limit);
+        JournalEntry last = entries.get(limit - 1);
+        return new Page(entries, new PageCursor(last.getDate(), last.getId()));
+    }
+
+    public List<Count> tagCounts(ObjectId ownerId) {
+        Query query = new Query(where("ownerId").is(ownerId).and("count").gt(0)).with(Sort.by("tag"));
+        query.fields().include("tag", "count").exclude("_id");
+        return mongoTemplate.find(query, TagCount.class).stream().map(count -> new Count(count.getTag(), count.getCount())).toList();
+    }
+
+    public void adjust(ObjectId ownerId, List<String> removed, List<String> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagCount.class);
+        removed.forEach(tag -> bulk.updateOne(new Query(where("_id").is(TagCount.idFor(ownerId, tag))),
+                new Update().inc("count", -1)));
+        added.forEach(tag -> bulk.upsert(new Query(where("_id").is(TagCount.idFor(ownerId, tag))),
+                new Update().inc("count", 1).setOnInsert("ownerId", ownerId).setOnInsert("tag", tag)));
+        bulk.execute();
+    }
+
+    // Increments for a whole batch of new entries: owner → tag → number of entries carrying it.
+    public void added(Map<ObjectId, Map<String, Integer>> countsByOwner) {
+        if (countsByOwner.values().stream().allMatch(Map::isEmpty)) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TagCount.class);
+        countsByOwner.forEach((ownerId, counts) -> counts.forEach((tag, n) ->
+                bulk.upsert(new Query(where("_id").is(TagCount.idFor(ownerId, tag))),
+                        new Update().inc("count", n).setOnInsert("ownerId", ownerId).setOnInsert("tag", tag))));
+        bulk.execute();
+    }
+
+    public void deleteAllFor(ObjectId ownerId) {
+        mongoTemplate.remove(new Query(where("ownerId").is(ownerId)), TagCount.class);
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.audit.AuditAction;
+import com.example.journalapp.audit.AuditLog;
+import com.example.journalapp.entity.JournalDeadLetter;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.events.JournalEvent;
+import com.example.journalapp.events.JournalEventHub;
+import com.example.journalapp.utils.Metrics;
+import com.example.journalapp.utils.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+Opt-in write-behind mode for POST /journal (journal.write-behind.enabled=true).
+    Request thread: validate → assign ObjectId → put into a bounded queue → answer 202.
+    Writer thread: wait for the first entry, collect more for up to flush-interval-ms (or until batch-size is reached),
+    then commit the whole batch with JournalEntryService.saveJournalEntries (one insertMany + one bulk owner update).
+So instead of one Mongo transaction per request we pay one transaction per batch.
+
+Trade-offs to keep in mind:
+    - A 202 means "queued", not "stored". If the process is killed hard (not a graceful shutdown) queued entries are lost.
+    - Entries whose commit keeps failing are never dropped: they are parked in journal_dead_letters until an admin
+      retries them. While Mongo cannot even take those the writer waits, the queue fills and submit() answers 503.
+    - When the queue is full, submit() gives up after offer-timeout-ms and the controller answers 503 (backpressure).
+    - Until an entry is committed it only exists here, so the controller merges pendingFor(username) into reads
+      (read-your-writes for the user who submitted it). Other nodes will not see it until it is committed.
+ */
+@Component
+@Slf4j
+public class JournalWriteBehindService {
+
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
+    private static final long MAX_DEAD_LETTER_BACKOFF_MS = 5000;
+
+    @Autowired
+    private JournalEntryService journalEntryService;
+
+    @Autowired
+    private JournalEventHub journalEventHub;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${journal.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${journal.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${journal.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${journal.write-behind.flush-interval-ms:5}")
+    private long flushIntervalMs;
+
+    @Value("${journal.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    private BlockingQueue<PendingEntry> queue;
+    // username → (entry id → entry) for everything queued but not committed yet
+    private final Map<String, Map<ObjectId, JournalEntry>> pendingByUser = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private Thread writer;
+
+    private record PendingEntry(JournalEntry entry, ObjectId userId, String username) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writer = new Thread(this::runWriter, "journal-write-behind");
+        // stop() gives up after 30s (e.g. Mongo is down for good); a writer still waiting must not keep the JVM alive
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+    Validates the entry, stamps id and date, and queues it.
+    Returns false when the queue stayed full for offer-timeout-ms (caller should answer 503).
+    Throws IllegalArgumentException for an invalid entry.
+     */
+    public boolean submit(JournalEntry entry, ObjectId userId, String username) throws InterruptedException {
+        if (entry.getTitle() == null || entry.getTitle().isBlank()) {
+            throw new IllegalArgumentException("Journal entry needs a title");
+        }
+        entry.setTags(Tags.normalize(entry.getTags()));
+        entry.setMetrics(Metrics.normalize(entry.getMetrics()));
+        if (!running) {
+            return false; // shutting down
+        }
+        entry.setId(new ObjectId());
+        entry.setDate(LocalDateTime.now());
+
+        // Register as pending BEFORE queueing, otherwise the writer could commit it before we can see it.
+        pendingByUser.computeIfAbsent(username, k -> new ConcurrentHashMap<>()).put(entry.getId(), entry);
+        if (!queue.offer(new PendingEntry(entry, userId, username), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+            removePending(username, entry.getId());
+            return false;
+        }
+        return true;
+    }
+
+    public Collection<JournalEntry> pendingFor(String username) {
+        Map<ObjectId, JournalEntry> pending = pendingByUser.get(username);
+        return pending != null ? List.copyOf(pending.values()) : List.of();
+    }
+
+    public JournalEntry findPending(String username, ObjectId id) {
+        Map<ObjectId, JournalEntry> pending = pendingByUser.get(username);
+        return pending != null ? pending.get(id) : null;
+    }
+
+    // Graceful shutdown: stop accepting, let the writer drain whatever is still queued, then exit.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (writer.isAlive()) {
+            log.error("Write-behind writer did not finish within 30s, {} journal entries were not flushed", queue.size());
+        }
+    }
+
+    private void runWriter() {
+        List<PendingEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            }
+            catch (InterruptedException e) {
+                // Nothing in the app interrupts the writer, so this is the end: commit what is left once and exit.
+                // Looping on with the flag set would make every poll throw again (busy spin).
+                running = false;
+                flushRemaining(batch);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining(List<PendingEntry> batch) {
+        queue.drainTo(batch);
+        try {
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                commit(batch.subList(from, Math.min(from + batchSize, batch.size())));
+            }
+        }
+        catch (InterruptedException e) {
+            log.error("Write-behind writer interrupted twice, {} journal entries were not flushed", queue.size() + batch.size());
+        }
+    }
+
+    private void commit(List<PendingEntry> batch) throws InterruptedException {
+        try {
+            Exception failure = tryCommit(batch, MAX_COMMIT_ATTEMPTS);
+            if (failure == null) {
+                return;
+            }
+            Map<ObjectId, List<PendingEntry>> byUser = new LinkedHashMap<>();
+            for (PendingEntry pending : batch) {
+                byUser.computeIfAbsent(pending.userId(), k -> new ArrayList<>()).add(pending);
+            }
+            if (byUser.size() == 1) {
+                deadLetter(batch, failure);
+                return;
+            }
+            // One owner can fail the whole batch (e.g. the account was deleted meanwhile): commit the owners one by one
+            // so only what still fails on its own is parked.
+            for (List<PendingEntry> entries : byUser.values()) {
+                Exception ownerFailure = tryCommit(entries, 1);
+                if (ownerFailure != null) {
+                    deadLetter(entries, ownerFailure);
+                }
+            }
+        }
+        finally {
+            for (PendingEntry pending : batch) {
+                removePending(pending.username(), pending.entry().getId());
+            }
+        }
+    }
+
+    // Returns null once the entries are committed (and announced), otherwise the last failure.
+    private Exception tryCommit(List<PendingEntry> batch, int attempts) throws InterruptedException {
+        Map<ObjectId, List<JournalEntry>> byUser = new LinkedHashMap<>();
+        for (PendingEntry pending : batch) {
+            byUser.computeIfAbsent(pending.userId(), k -> new ArrayList<>()).add(pending.entry());
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                journalEntryService.saveJournalEntries(byUser);
+                batch.forEach(pending -> {
+                    userService.journalChanged(pending.username());
+                    journalEventHub.publish(JournalEvent.of(pending.username(), JournalEvent.CREATED, pending.entry().getId()));
+                    auditLog.journalChanged(AuditAction.JOURNAL_CREATED, pending.username(), pending.entry().getId().toHexString());
+                });
+                return null;
+            }
+            catch (Exception e) {
+                if (attempt >= attempts) {
+                    return e;
+                }
+                log.warn("Group commit of {} journal entries failed (attempt {}), retrying", batch.size(), attempt);
+                Thread.sleep(100L * attempt);
+            }
+        }
+    }
+
+    /*
+    The client already got a 202 for these, so they are kept until Mongo takes them. save() is an upsert by the
+    entry id, so starting over after a partial failure does not duplicate anything.
+     */
+    private void deadLetter(List<PendingEntry> entries, Exception cause) throws InterruptedException {
+        log.error("Parking {} journal entries in journal_dead_letters after failed commits", entries.size(), cause);
+        for (long backoff = 100; ; backoff = Math.min(backoff * 2, MAX_DEAD_LETTER_BACKOFF_MS)) {
+            try {
+                for (PendingEntry pending : entries) {
+                    mongoTemplate.save(new JournalDeadLetter(pending.entry(), pending.userId(), pending.username(), cause));
+                }
+                return;
+            }
+            catch (Exception e) {
+                log.warn("Could not park {} journal entries, retrying in {} ms", entries.size(), backoff, e);
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    public List<JournalDeadLetter> recentDeadLetters() {
+        return mongoTemplate.find(new Query().with(Sort.by(Sort.Direction.DESC, "failedAt")).limit(100),
+                JournalDeadLetter.class);
+    }
+
+    /*
+    Commits a parked entry again. Returns false when there is no such dead letter; a commit that fails again throws and
+    leaves the dead letter in place. An entry that is already stored (an earlier retry committed it but did not get
+    to remove the dead letter) only has its dead letter removed.
+     */
+    public boolean retryDeadLetter(ObjectId id) {
+        JournalDeadLetter letter = mongoTemplate.findById(id, JournalDeadLetter.class);
+        if (letter == null) {
+            return false;
+        }
+        try {
+            journalEntryService.saveJournalEntries(Map.of(letter.getOwnerId(), List.of(letter.getEntry())));
+            userService.journalChanged(letter.getUsername());
+            journalEventHub.publish(JournalEvent.of(letter.getUsername(), JournalEvent.CREATED, id));
+            auditLog.journalChanged(AuditAction.JOURNAL_CREATED, letter.getUsername(), id.toHexString());
+        }
+        catch (DuplicateKeyException e) {
+            log.info("Dead-lettered journal entry {} is already stored", id);
+        }
+        mongoTemplate.remove(letter);
+        return true;
+    }
+
+    private void removePending(String username, ObjectId id) {
+        pendingByUser.computeIfPresent(username, (k, pending) -> {
+            pending.remove(id);
+            return pending.isEmpty() ? null : pending;
+        });
+    }
+}
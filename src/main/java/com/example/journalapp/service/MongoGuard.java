@@ -0,0 +1,118 @@
+package com.example.journalapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/*
+Wraps Mongo calls on the request path so a slow or dead database costs a fast 503 instead of every Tomcat thread.
+    bulkhead         AUTH (JwtFilter's user lookup), READ, WRITE: each pool has its own concurrency limit
+    circuit breaker  opens when too many calls fail or are slow; while open, calls fail at once without touching
+                     Mongo, and after wait-in-open a few trial calls decide whether it closes again
+    stale reads      read() remembers the last result per key for mongo.stale-read.max-age; if the call fails
+                     because Mongo is unavailable, that result is served instead (counted in mongo.stale.reads)
+Everything that means "Mongo is unavailable" surfaces as DatabaseUnavailableException; other exceptions (duplicate
+key, validation, ...) pass through unchanged. Limits and thresholds: mongo.* in application.properties.
+ */
+@Component
+public class MongoGuard {
+
+    public static final String CIRCUIT_BREAKER = "mongo";
+    public static final String AUTH = "mongo-auth";
+    public static final String READ = "mongo-read";
+    public static final String WRITE = "mongo-write";
+
+    private final CircuitBreaker circuitBreaker;
+    private final BulkheadRegistry bulkheads;
+    private final Cache<String, Object> lastGood;
+    private final Counter staleReads;
+
+    public MongoGuard(CircuitBreakerRegistry circuitBreakers,
+                      BulkheadRegistry bulkheads,
+                      MeterRegistry meterRegistry,
+                      @Value("${mongo.stale-read.max-size:10000}") long maxSize,
+                      @Value("${mongo.stale-read.max-age:10m}") Duration maxAge) {
+        this.circuitBreaker = circuitBreakers.circuitBreaker(CIRCUIT_BREAKER);
+        this.bulkheads = bulkheads;
+        this.lastGood = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(maxAge).build();
+        this.staleReads = Counter.builder("mongo.stale.reads")
+                .description("Reads answered from the last good result because Mongo was unavailable")
+                .register(meterRegistry);
+    }
+
+    // Only cache immutable results (or copies): the same instance is handed to every request that falls back to it.
+    @SuppressWarnings("unchecked")
+    public <T> T read(String bulkhead, String key, Supplier<T> call) {
+        try {
+            T result = call(bulkhead, call);
+            if (result != null) {
+                lastGood.put(key, result);
+            }
+            else {
+                lastGood.invalidate(key); // gone now (e.g. a deleted user): must not come back during an outage
+            }
+            return result;
+        }
+        catch (DatabaseUnavailableException e) {
+            Object stale = lastGood.getIfPresent(key);
+            if (stale == null) {
+                throw e;
+            }
+            staleReads.increment();
+            return (T) stale;
+        }
+    }
+
+    public <T> T call(String bulkhead, Supplier<T> call) {
+        Bulkhead pool = bulkheads.bulkhead(bulkhead);
+        try {
+            return circuitBreaker.executeSupplier(Bulkhead.decorateSupplier(pool, call));
+        }
+        catch (CallNotPermittedException e) {
+            throw new DatabaseUnavailableException("Database circuit breaker is open", e);
+        }
+        catch (BulkheadFullException e) {
+            throw new DatabaseUnavailableException("Too many concurrent database calls (" + bulkhead + ")", e);
+        }
+        catch (DataAccessResourceFailureException | TransientDataAccessException | MongoSocketException | MongoTimeoutException e) {
+            throw new DatabaseUnavailableException("Database unavailable: " + e.getMessage(), e);
+        }
+    }
+
+    public void run(String bulkhead, Runnable call) {
+        call(bulkhead, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    // Forget the last good result of key, e.g. once the data behind it was changed in a way readers must not miss.
+    public void evict(String key) {
+        lastGood.invalidate(key);
+    }
+
+    // Forget every last good result, e.g. once a restore made them describe data that no longer exists.
+    public void clearStale() {
+        lastGood.invalidateAll();
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+}
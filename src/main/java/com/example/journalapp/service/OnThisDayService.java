@@ -0,0 +1,259 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.OnThisDay;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/*
+Precomputes the "on this day" lists (entries written on the same month and day in earlier years) for the coming day.
+From on-this-day.start-hour on, the job builds the lists for tomorrow, before that for today (so a fresh deploy or
+a node that was down at night still catches up). For that date it streams the matching entries through the
+(monthDay, ownerId, date) index, so each user's entries arrive together and nothing else is read. Every
+on-this-day.batch-users users the lists are written by on-this-day.threads writers in parallel, each with one bulk
+upsert, and the last finished owner id is checkpointed in on_this_day_runs. A run that dies (or a node that loses
+its lease) is resumed from that checkpoint by the next poll on any node; rewriting a list is harmless.
+Entries edited or deleted after their list was written are patched in place by JournalEntryService (entryUpdated,
+entryDeleted), inside the write's transaction. A run that streamed the entry just before the write can still put the
+old version back until its next run for that date.
+ */
+@Component
+@Slf4j
+public class OnThisDayService {
+
+    public static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MM-dd");
+    private static final String RUNS = "on_this_day_runs";
+    private static final int EXCERPT_LENGTH = 200;
+    private static final ObjectId MIN_OBJECT_ID = new ObjectId("000000000000000000000000");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Entry dates are LocalDateTime.now() of the server (and monthDay is taken from them), so "today" is too.
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    @Value("${on-this-day.start-hour:21}")
+    private int startHour;
+
+    @Value("${on-this-day.batch-users:200}")
+    private int batchUsers;
+
+    @Value("${on-this-day.lease-ms:300000}")
+    private long leaseMs;
+
+    private final int threads;
+    private final ExecutorService writers;
+    private final String workerId = UUID.randomUUID().toString();
+
+    public OnThisDayService(@Value("${on-this-day.threads:4}") int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "on-this-day-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.threads = threads;
+    }
+
+    // The list for today, or an empty list.
+    public List<OnThisDay.Memory> memoriesFor(ObjectId ownerId) {
+        LocalDate today = LocalDate.now(zone);
+        OnThisDay found = mongoTemplate.findById(OnThisDay.idFor(ownerId, today.format(MONTH_DAY)), OnThisDay.class);
+        return found != null && today.equals(found.getForDate()) ? List.copyOf(found.getMemories()) : List.of();
+    }
+
+    @Scheduled(initialDelayString = "${on-this-day.initial-delay-ms:60000}", fixedDelayString = "${on-this-day.poll-interval-ms:900000}")
+    public void generatePending() {
+        LocalDateTime now = LocalDateTime.now(zone);
+        LocalDate day = now.getHour() >= startHour ? now.toLocalDate().plusDays(1) : now.toLocalDate();
+        try {
+            generate(day);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (Exception e) {
+            log.warn("On-this-day run for {} failed, resuming after the lease expires: {}", day, e.getMessage());
+        }
+    }
+
+    // Title and excerpt of the entry in the list of its date, if it is in one.
+    public void entryUpdated(JournalEntry entry) {
+        if (entry.getOwnerId() == null || entry.getMonthDay() == null) {
+            return;
+        }
+        Query list = new Query(where("_id").is(OnThisDay.idFor(entry.getOwnerId(), entry.getMonthDay()))
+                .and("memories.id").is(entry.getId().toHexString()));
+        mongoTemplate.updateFirst(list, new Update().set("memories.$.title", entry.getTitle())
+                .set("memories.$.excerpt", excerpt(entry.getContent())), OnThisDay.class);
+    }
+
+    // Takes the entry out of the list of its date, if it is in one.
+    public void entryDeleted(ObjectId ownerId, ObjectId entryId, LocalDateTime date) {
+        if (date == null) {
+            return;
+        }
+        mongoTemplate.updateFirst(new Query(where("_id").is(OnThisDay.idFor(ownerId, date.format(MONTH_DAY)))),
+                new Update().pull("memories", new Query(where("id").is(entryId.toHexString()))), OnThisDay.class);
+    }
+
+    // Sets monthDay on entries written before it existed (same rule as JournalEntryService.stamp, evaluated by Mongo).
+    public long backfillMonthDays() {
+        Document monthDay = new Document("$dateToString", new Document("format", "%m-%d").append("date", "$date")
+                .append("timezone", zone.getId())); // LocalDateTime is stored as a Date in the server zone
+        long updated = mongoTemplate.getCollection(mongoTemplate.getCollectionName(JournalEntry.class)).updateMany(
+                new Document("monthDay", new Document("$exists", false)).append("date", new Document("$ne", null)),
+                List.of(new Document("$set", new Document("monthDay", monthDay)))).getModifiedCount();
+        log.info("Backfilled the month and day of {} journal entries", updated);
+        return updated;
+    }
+
+    @PreDestroy
+    public void stop() {
+        writers.shutdownNow();
+    }
+
+    // The run document of that day with our lease on it, or null if it is done or another node holds the lease.
+    private Document claim(LocalDate day) {
+        Date now = new Date();
+        Query claimable = new Query(where("_id").is(day.toString()).and("done").ne(true)
+                .orOperator(where("leaseUntil").lt(now), where("leaseUntil").exists(false)));
+        Update lease = new Update().set("leaseOwner", workerId).set("leaseUntil", new Date(now.getTime() + leaseMs))
+                .setOnInsert("startedAt", now);
+        try {
+            return mongoTemplate.findAndModify(claimable, lease, FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, RUNS);
+        }
+        catch (DuplicateKeyException e) {
+            return null; // the run exists and is done or leased: the upsert tried to create a second one
+        }
+    }
+
+    // Claims the run for that day and writes its lists; false if it is done or another node holds the lease.
+    boolean generate(LocalDate day) throws InterruptedException, ExecutionException {
+        Document run = claim(day);
+        if (run == null) {
+            return false;
+        }
+        generate(day, run.getObjectId("lastOwnerId"));
+        return true;
+    }
+
+    private void generate(LocalDate day, ObjectId resumeAfter) throws InterruptedException, ExecutionException {
+        String monthDay = day.format(MONTH_DAY);
+        LocalDateTime yearStart = LocalDate.of(day.getYear(), 1, 1).atStartOfDay();
+        Date expiresAt = Date.from(day.plusDays(2).atStartOfDay(zone).toInstant());
+
+        // entries without an owner (never stamped, see JournalChangesService) belong to no list
+        var criteria = where("monthDay").is(monthDay).and("date").lt(yearStart)
+                .and("ownerId").gt(resumeAfter != null ? resumeAfter : MIN_OBJECT_ID);
+        Query entries = new Query(criteria).with(Sort.by("monthDay", "ownerId", "date"));
+        entries.fields().include("ownerId", "title", "content", "date");
+
+        long started = System.currentTimeMillis();
+        int users = 0;
+        List<OnThisDay> batch = new ArrayList<>();
+        OnThisDay current = null;
+        ObjectId currentOwner = null;
+        try (Stream<JournalEntry> stream = mongoTemplate.stream(entries, JournalEntry.class)) {
+            for (JournalEntry entry : (Iterable<JournalEntry>) stream::iterator) {
+                if (!entry.getOwnerId().equals(currentOwner)) {
+                    if (batch.size() == batchUsers) {
+                        // never split a user: `current` (still being filled) is not in the batch yet
+                        if (!write(day, batch, currentOwner)) {
+                            return;
+                        }
+                        users += batch.size();
+                        batch = new ArrayList<>();
+                    }
+                    currentOwner = entry.getOwnerId();
+                    current = new OnThisDay();
+                    current.setId(OnThisDay.idFor(currentOwner, monthDay));
+                    current.setForDate(day);
+                    current.setMemories(new ArrayList<>());
+                    current.setExpiresAt(expiresAt);
+                    batch.add(current);
+                }
+                current.getMemories().add(new OnThisDay.Memory(entry.getId().toHexString(), entry.getTitle(),
+                        entry.getDate(), excerpt(entry.getContent())));
+            }
+        }
+        if (!batch.isEmpty() && !write(day, batch, currentOwner)) {
+            return;
+        }
+        users += batch.size();
+        mongoTemplate.updateFirst(new Query(where("_id").is(day.toString()).and("leaseOwner").is(workerId)),
+                new Update().set("done", true).set("finishedAt", new Date()).unset("leaseUntil"), RUNS);
+        log.info("On-this-day lists for {} written for {} users in {} ms", day, users, System.currentTimeMillis() - started);
+    }
+
+    // Writes the batch with `threads` parallel bulk upserts, then checkpoints; false if we lost the lease meanwhile.
+    private boolean write(LocalDate day, List<OnThisDay> batch, ObjectId lastOwner) throws InterruptedException, ExecutionException {
+        int chunkSize = (batch.size() + threads - 1) / threads;
+        List<Future<?>> writes = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<OnThisDay> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+            writes.add(writers.submit(() -> {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OnThisDay.class);
+                chunk.forEach(list -> bulk.replaceOne(new Query(where("_id").is(list.getId())), list,
+                        FindAndReplaceOptions.options().upsert()));
+                bulk.execute();
+            }));
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        UpdateResult checkpoint = mongoTemplate.updateFirst(
+                new Query(where("_id").is(day.toString()).and("leaseOwner").is(workerId)),
+                new Update().set("lastOwnerId", lastOwner).set("leaseUntil", new Date(System.currentTimeMillis() + leaseMs)),
+                RUNS);
+        if (checkpoint.getMatchedCount() == 0) {
+            log.info("Lost the lease on the on-this-day run for {}, another node continues it", day);
+            return false;
+        }
+        return true;
+    }
+
+    private static String excerpt(String content) {
+        if (content == null || content.length() <= EXCERPT_LENGTH) {
+            return content;
+        }
+        int end = EXCERPT_LENGTH;
+        if (Character.isHighSurrogate(content.charAt(end - 1))) {
+            end--;
+        }
+        return content.substring(0, end) + "…";
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.RevokedToken;
+import com.example.journalapp.repository.RevokedTokenRepository;
+import com.example.journalapp.utils.BloomFilter;
+import com.example.journalapp.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+Token revocation (logout, password change, account deletion).
+Revocations are stored in revoked_tokens (see RevokedToken). Checking Mongo on every request would add a round trip
+to every authenticated call, so each node keeps a Bloom filter of all revoked ids:
+    filter says "no"    → token is not revoked, done (a few ns, the case for ~all requests)
+    filter says "maybe" → confirm with one findById
+The filter is rebuilt from the collection every jwt.revocation.refresh-interval-ms, which is also how revocations
+made on OTHER nodes reach this one (so they take effect there within one interval). Revocations made on this node
+are added to the filter immediately.
+ */
+@Component
+@Slf4j
+public class TokenRevocationService {
+
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String USER_PREFIX = "sub:";
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Value("${jwt.revocation.expected-revocations:100000}")
+    private long expectedRevocations;
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Keys revoked on this node while a refresh may be running; re-added to the new filter so they are not lost.
+    private final Map<String, Long> recentKeys = new ConcurrentHashMap<>();
+
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null) {
+            return; // tokens issued before we added ids; they expire within the hour anyway
+        }
+        revoke(TOKEN_PREFIX + claims.getId(), claims.getExpiration());
+    }
+
+    public void revokeAllTokensOf(String username) {
+        revoke(USER_PREFIX + username, new Date(System.currentTimeMillis() + JwtUtil.TOKEN_VALIDITY_MS));
+    }
+
+    // The DB lookups after a filter hit go through MongoGuard's AUTH bulkhead: DatabaseUnavailableException (503)
+    // while Mongo is unavailable.
+    public boolean isRevoked(Claims claims) {
+        BloomFilter current = filter;
+        String tokenKey = claims.getId() != null ? TOKEN_PREFIX + claims.getId() : null;
+        String userKey = USER_PREFIX + claims.getSubject();
+
+        // current == null means the first load has not finished yet: skip the filter and ask the DB.
+        if (tokenKey != null && (current == null || current.mightContain(tokenKey))
+                && mongoGuard.call(MongoGuard.AUTH, () -> revokedTokenRepository.existsById(tokenKey))) {
+            return true;
+        }
+        if (current == null || current.mightContain(userKey)) {
+            RevokedToken revoked = mongoGuard.call(MongoGuard.AUTH, () -> revokedTokenRepository.findById(userKey).orElse(null));
+            return revoked != null && issuedUpTo(claims, revoked.getRevokedAt());
+        }
+        return false;
+    }
+
+    /*
+    Tokens carry their issue time in milliseconds (JwtUtil.ISSUED_AT_MS), so the re-login that usually follows a
+    password change within the same second gets a token that works. Tokens issued before that claim existed only have
+    the whole-second "iat", which can be up to 999 ms below the real issue time: "<=" on it also refuses a token issued
+    later in the revocation's second (those expire within the hour).
+     */
+    static boolean issuedUpTo(Claims claims, Date revokedAt) {
+        if (claims.get(JwtUtil.ISSUED_AT_MS) instanceof Number issuedAtMs) {
+            return issuedAtMs.longValue() <= revokedAt.getTime();
+        }
+        return claims.getIssuedAt() != null && claims.getIssuedAt().getTime() <= revokedAt.getTime();
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation.refresh-interval-ms:30000}")
+    public void refresh() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            long count = mongoTemplate.estimatedCount(RevokedToken.class);
+            BloomFilter fresh = new BloomFilter(Math.max(expectedRevocations, count * 2), falsePositiveRate);
+            // sorted by _id with only _id returned: answered from the _id index alone (see QueryPlanTests)
+            Query idsOnly = new Query().with(Sort.by("_id"));
+            idsOnly.fields().include("_id");
+            try (Stream<RevokedToken> ids = mongoTemplate.stream(idsOnly, RevokedToken.class)) {
+                ids.forEach(token -> fresh.add(token.getId()));
+            }
+            // Swap first, then re-add local revocations: revoke() records the key before it reads `filter`, so every
+            // key is either already in recentKeys here or is added by revoke() to the filter we just published.
+            filter = fresh;
+            recentKeys.keySet().forEach(fresh::add);
+            // Anything revoked before this refresh started is in the collection and therefore in the new filter.
+            recentKeys.values().removeIf(revokedAt -> revokedAt < startedAt - 1000);
+        }
+        catch (Exception e) {
+            log.warn("Could not refresh the token revocation filter: {}", e.getMessage());
+        }
+    }
+
+    private void revoke(String key, Date expiresAt) {
+        long now = System.currentTimeMillis();
+        revokedTokenRepository.save(new RevokedToken(key, new Date(now), expiresAt));
+        recentKeys.put(key, now);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+        }
+    }
+}
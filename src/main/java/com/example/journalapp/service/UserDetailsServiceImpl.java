@@ -1,12 +1,18 @@
 package com.example.journalapp.service;
 
-import com.example.journalapp.entity.User;
+import com.example.journalapp.cache.CacheInvalidationBus;
 import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.utils.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Component
 public class UserDetailsServiceImpl implements UserDetailsService {
@@ -14,10 +20,82 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    // A page load fires several requests at once, each authenticating the same user: they share one lookup.
+    private final SingleFlight<String, UserDetails> loads = new SingleFlight<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("singleflight.coalesced", loads, SingleFlight::coalesced)
+                .description("Loads answered by a concurrent identical load").tag("load", "user-details")
+                .register(meterRegistry);
+        cacheInvalidationBus.subscribeStale(mongoGuard::evict);
+    }
+
+    // The login: the password is checked against what Mongo holds right now, never against a remembered copy (which
+    // may still have the old password, or belong to a renamed or deleted account). Mongo down → 503.
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username); // If found, then build Spring Security's own internal User object:
-        if(user != null){
+        return copyOrThrow(username, mongoGuard.call(MongoGuard.AUTH,
+                () -> toUserDetails(userRepository.findCredentialsByUsername(username))));
+    }
+
+    // JwtFilter calls this on every authenticated request: guarded by its own bulkhead, and during a short Mongo outage
+    // the user's last loaded details keep already issued tokens working (see MongoGuard).
+    public UserDetails loadUserForToken(String username) throws UsernameNotFoundException {
+        return copyOrThrow(username, loads.load(username, key -> mongoGuard.read(MongoGuard.AUTH, authKey(key),
+                () -> toUserDetails(userRepository.findCredentialsByUsername(key)))));
+    }
+
+    /*
+    Call when the credentials of username change (new password, rename, deletion): drops the details remembered for
+    stale reads, here and on the other nodes. Inside a transaction it is done again after the commit, otherwise a read
+    between now and the commit could remember the old details once more.
+     */
+    public void forget(String username) {
+        String key = authKey(username);
+        mongoGuard.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mongoGuard.evict(key);
+                    cacheInvalidationBus.publishStale(key);
+                }
+            });
+        }
+        else {
+            cacheInvalidationBus.publishStale(key);
+        }
+    }
+
+    private static String authKey(String username) {
+        return "auth:" + username;
+    }
+
+    private static UserDetails copyOrThrow(String username, UserDetails userDetails) {
+        if (userDetails != null) {
+            // a copy: the login flow erases the password of the instance it gets, and the guard shares this one
+            return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+        }
+        /*
+        Earlier: You searched for a user only when you needed it.
+        Now: Spring Security needs to search for a user automatically when someone tries to log in.
+        To do that, Spring calls: loadUserByUsername(username)
+         */
+        throw new UsernameNotFoundException("User not found with username: " + username);
+    }
+
+    private static UserDetails toUserDetails(UserRepository.CredentialsView user) {
+        if(user != null && user.getDeletedAt() == null){ // deleted accounts wait for their purge under "deleted:<id>"; never log them in
             // Here, we are returning: “An object of class User, but typed as UserDetails.” So, who implemented UserDetails methods?
             // Spring Security developers already did it in: org.springframework.security.core.userdetails.User
             // This class implements UserDetails.
@@ -27,11 +105,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                     .roles(user.getRoles().toArray(new String[0])) // convert List<String> → array
                     .build();
         }
-        /*
-        Earlier: You searched for a user only when you needed it.
-        Now: Spring Security needs to search for a user automatically when someone tries to log in.
-        To do that, Spring calls: loadUserByUsername(username)
-         */
-        throw new UsernameNotFoundException("User not found with username: " + username);
+        return null;
     }
 }
@@ -1,18 +1,29 @@
 package com.example.journalapp.service;
 
+import com.example.journalapp.entity.JournalEntry;
 import com.example.journalapp.entity.User;
-import com.example.journalapp.repository.JournalEntryRepository;
 import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.utils.SingleFlight;
+import com.mongodb.DBRef;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Component
 public class UserService {
 
@@ -23,28 +34,61 @@ public class UserService {
     private PasswordEncoder passwordEncoder;
 
     @Autowired
-    private JournalEntryRepository journalEntryRepository;
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UsernameRegistry usernameRegistry;
+
+    @Autowired
+    private MongoGuard mongoGuard;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Parallel requests of one page load ask for the same journal at the same moment: one query answers all of them.
+    private final SingleFlight<String, List<JournalEntry>> journalLoads = new SingleFlight<>();
+    private final SingleFlight<String, UserRepository.JournalVersionView> versionLoads = new SingleFlight<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        FunctionCounter.builder("singleflight.coalesced", journalLoads, SingleFlight::coalesced)
+                .description("Loads answered by a concurrent identical load").tag("load", "journal")
+                .register(meterRegistry);
+        FunctionCounter.builder("singleflight.coalesced", versionLoads, SingleFlight::coalesced)
+                .description("Loads answered by a concurrent identical load").tag("load", "journal-version")
+                .register(meterRegistry);
+    }
 
     public void saveAdmin(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setRoles(Arrays.asList("USER", "ADMIN"));
         userRepository.save(user);
+        usernameRegistry.added(user.getUsername());
     }
 
     public void saveUser(User user){
         userRepository.save(user);
+        usernameRegistry.added(user.getUsername()); // may be a rename
     }
 
     public void saveNewUser(User user){
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setRoles(Arrays.asList("USER"));
         userRepository.save(user);
+        usernameRegistry.added(user.getUsername());
     }
 
     public List<User> getAllUsers(){
         return userRepository.findAll();
     }
 
+    public List<UserRepository.UserSummary> getAllUserSummaries(){
+        return userRepository.findAllSummariesBy();
+    }
+
     public Optional<User> getUsersByID(ObjectId id){
         return userRepository.findById(id);
     }
@@ -57,20 +101,66 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
-    @Transactional
-    public void deleteUserAndJournals(String username) {
+    public UserRepository.CredentialsView findCredentials(String username) {
+        return userRepository.findCredentialsByUsername(username);
+    }
 
-        // 1. Get user from DB
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
+    // $set of just the changed fields (null = unchanged). Saving a loaded User instead would also write back its
+    // journalEntries and journalVersion, undoing journal writes made since it was loaded.
+    public void updateCredentials(String username, String newUsername, String newPasswordHash) {
+        Update update = new Update();
+        if (newUsername != null) {
+            update.set("username", newUsername);
+        }
+        if (newPasswordHash != null) {
+            update.set("password", newPasswordHash);
+        }
+        if (update.getUpdateObject().isEmpty()) {
             return;
         }
-        // 2. Delete all journal entries for this user
-        user.getJournalEntries().forEach(journal -> {
-            journalEntryRepository.deleteById(journal.getId());
-        });
+        mongoTemplate.updateFirst(new Query(where("username").is(username)), update, User.class);
+        userDetailsService.forget(username); // the old password / name must not log in from a stale copy
+        if (newUsername != null) {
+            usernameRegistry.added(newUsername);
+        }
+    }
+
+    // Called once a write to the user's journal is committed: loads already running may have read the journal before
+    // it, so later reads (the writer's next GET above all) must not join them and see a stale version or list.
+    public void journalChanged(String username) {
+        versionLoads.forget(username);
+        journalLoads.forget(username);
+    }
+
+    // Every journal may have changed (a backup was restored).
+    public void journalsRestored() {
+        versionLoads.forgetAll();
+        journalLoads.forgetAll();
+    }
+
+    // Journal read paths below go through MongoGuard: bulkheaded, and served from the last good result during short
+    // Mongo outages.
+    public UserRepository.JournalVersionView findJournalVersion(String username) {
+        return versionLoads.load(username, key -> mongoGuard.read(MongoGuard.READ, "version:" + key,
+                () -> userRepository.findJournalVersionByUsername(key)));
+    }
+
+    // The user's journal with every @DBRef resolved (an unmodifiable copy), or null if there is no such user.
+    public List<JournalEntry> findJournalEntries(String username) {
+        return journalLoads.load(username, key -> mongoGuard.read(MongoGuard.READ, "journal:" + key, () -> {
+            User user = userRepository.findByUsername(key);
+            if (user == null) {
+                return null;
+            }
+            return user.getJournalEntries() != null ? Collections.unmodifiableList(new ArrayList<>(user.getJournalEntries())) : List.of();
+        }));
+    }
 
-        // 3. Delete the user itself
-        userRepository.deleteByUsername(username);
+    // Ownership check that does not resolve the user's @DBRef list: one indexed exists() on the users collection.
+    public boolean ownsJournalEntry(String username, ObjectId journalEntryId) {
+        DBRef ref = new DBRef(mongoTemplate.getCollectionName(JournalEntry.class), journalEntryId);
+        Query query = new Query(where("username").is(username).and("journalEntries").is(ref));
+        return mongoGuard.read(MongoGuard.READ, "owns:" + username + ":" + journalEntryId,
+                () -> mongoTemplate.exists(query, mongoTemplate.getCollectionName(User.class)));
     }
 }
@@ -0,0 +1,98 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.User;
+import com.example.journalapp.repository.UserRepository;
+import com.example.journalapp.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+Answers "is this username taken?" for GET /public/username-available and the signup pre-check without a query for
+the common case of a free name. Same scheme as TokenRevocationService: a node-local Bloom filter of every username,
+    filter says "no"    → free, done
+    filter says "maybe" → confirm with one lookup on the unique username index
+Built when the app is ready by streaming only the usernames (a covered read of the username index) and rebuilt every
+usernames.filter.refresh-interval-ms, which drops names freed by renames / deletions (Bloom filters cannot remove)
+and picks up signups made on other nodes. Names created on this node are added right away.
+A name taken on another node since the last rebuild can still look free here; the unique index stays the final word.
+ */
+@Component
+@Slf4j
+public class UsernameRegistry {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${usernames.filter.expected-users:100000}")
+    private long expectedUsers;
+
+    @Value("${usernames.filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Names added on this node while a rebuild may be running; re-added to the new filter so they are not lost.
+    private final Map<String, Long> recentNames = new ConcurrentHashMap<>();
+
+    public boolean isTaken(String username) {
+        BloomFilter current = filter;
+        // current == null: not built yet (or Mongo was down at startup), so ask the DB
+        if (current != null && !current.mightContain(username)) {
+            return false;
+        }
+        return userRepository.existsByUsername(username);
+    }
+
+    // Call after a user got this name (signup, admin creation, rename). Freed names need no call, see above.
+    public void added(String username) {
+        recentNames.put(username, System.currentTimeMillis());
+        BloomFilter current = filter;
+        if (current != null) {
+            current.add(username);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${usernames.filter.refresh-interval-ms:600000}",
+            fixedDelayString = "${usernames.filter.refresh-interval-ms:600000}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        try {
+            long count = mongoTemplate.estimatedCount(User.class);
+            BloomFilter fresh = new BloomFilter(Math.max(expectedUsers, count * 2), falsePositiveRate);
+            // sorted by username, only username returned: answered from the username index alone (see QueryPlanTests)
+            Query namesOnly = new Query().with(Sort.by("username"));
+            namesOnly.fields().include("username").exclude("_id");
+            try (Stream<Document> names = mongoTemplate.stream(namesOnly, Document.class, mongoTemplate.getCollectionName(User.class))) {
+                names.forEach(user -> fresh.add(user.getString("username")));
+            }
+            // Swap first, then re-add local names: added() records the name before it reads `filter`.
+            filter = fresh;
+            recentNames.keySet().forEach(fresh::add);
+            recentNames.values().removeIf(addedAt -> addedAt < startedAt - 1000);
+            log.debug("Username filter built from {} users in {} ms", count, System.currentTimeMillis() - startedAt);
+        }
+        catch (Exception e) {
+            log.warn("Could not build the username filter: {}", e.getMessage());
+        }
+    }
+}
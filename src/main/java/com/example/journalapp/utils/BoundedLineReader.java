@@ -0,0 +1,70 @@
+package com.example.journalapp.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/*
+readLine() with a length cap, for reading untrusted line-based uploads (NDJSON import): BufferedReader.readLine
+would happily build a multi-gigabyte String out of a file without newlines. A line longer than maxChars is skipped
+up to its newline and returned as TOO_LONG, so the caller can report it and carry on with the next one.
+Accepts \n and \r\n line ends.
+ */
+public class BoundedLineReader {
+
+    public static final String TOO_LONG = new String("<line too long>"); // compared by identity
+
+    private final Reader reader;
+    private final int maxChars;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private final StringBuilder line = new StringBuilder();
+
+    public BoundedLineReader(Reader reader, int maxChars) {
+        this.reader = reader;
+        this.maxChars = maxChars;
+    }
+
+    // The next line without its line end, TOO_LONG, or null at the end of the input.
+    public String readLine() throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return !any ? null : tooLong ? TOO_LONG : finish();
+                }
+            }
+            any = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n') {
+                position++;
+            }
+            if (!tooLong) {
+                if (line.length() + (position - start) > maxChars + 1) { // + 1: a trailing \r is not content
+                    tooLong = true;
+                    line.setLength(0);
+                }
+                else {
+                    line.append(buffer, start, position - start);
+                }
+            }
+            if (position < limit) {
+                position++; // the \n
+                return tooLong ? TOO_LONG : finish();
+            }
+        }
+    }
+
+    private String finish() {
+        int length = line.length();
+        if (length > 0 && line.charAt(length - 1) == '\r') {
+            length--;
+        }
+        return length > maxChars ? TOO_LONG : line.substring(0, length);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.journalapp.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+Splits a .bson dump (documents back to back, the mongodump format) into the raw bytes of each document without
+decoding them. A BSON document starts with its total length as a little-endian int32, that is all we need.
+Lengths outside [5, maxDocumentSize] mean the file is corrupt (or not BSON) and fail with an IOException instead of
+allocating whatever the garbage says.
+ */
+public class BsonFrameReader {
+
+    public static final int MAX_BSON_SIZE = 16 * 1024 * 1024 + 16 * 1024; // server limit plus headroom, like mongodump
+
+    private final InputStream in;
+    private final int maxDocumentSize;
+
+    public BsonFrameReader(InputStream in) {
+        this(in, MAX_BSON_SIZE);
+    }
+
+    public BsonFrameReader(InputStream in, int maxDocumentSize) {
+        this.in = in;
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    // The next document including its length prefix, or null at a clean end of the stream.
+    public byte[] next() throws IOException {
+        int b0 = in.read();
+        if (b0 < 0) {
+            return null;
+        }
+        int length = b0 | readByte() << 8 | readByte() << 16 | readByte() << 24;
+        if (length < 5 || length > maxDocumentSize) {
+            throw new IOException("Corrupt BSON stream: document length " + length);
+        }
+        byte[] document = new byte[length];
+        document[0] = (byte) length;
+        document[1] = (byte) (length >>> 8);
+        document[2] = (byte) (length >>> 16);
+        document[3] = (byte) (length >>> 24);
+        int offset = 4;
+        while (offset < length) {
+            int read = in.read(document, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Truncated BSON stream: document of " + length + " bytes ends after " + offset);
+            }
+            offset += read;
+        }
+        if (document[length - 1] != 0) {
+            throw new IOException("Corrupt BSON stream: document does not end with a 0 byte");
+        }
+        return document;
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Truncated BSON stream: incomplete length");
+        }
+        return b;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.journalapp.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+The `since` token of GET /journal/changes: "<owner id>:<change sequence>:<issued at millis>", base64url encoded.
+Clients treat it as opaque and send back whatever the last response gave them.
+    owner     the token only works for the account it was issued to (a recreated account gets a new id)
+    seq       everything up to this change sequence has been delivered
+    issuedAt  deletes are only remembered for a retention window, older tokens must do a full resync
+ */
+public record ChangeToken(String owner, long seq, long issuedAt) {
+
+    public String encode() {
+        String raw = owner + ":" + seq + ":" + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null if the token was not produced by encode()
+    public static ChangeToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3 || parts[0].isEmpty()) {
+                return null;
+            }
+            long seq = Long.parseLong(parts[1]);
+            long issuedAt = Long.parseLong(parts[2]);
+            return seq >= 0 ? new ChangeToken(parts[0], seq, issuedAt) : null;
+        }
+        catch (IllegalArgumentException e) { // bad base64 or NumberFormatException
+            return null;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.journalapp.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+Compression format for long journal content:
+    [1 byte format marker][payload]
+    marker 0x01 → payload is raw DEFLATE of the UTF-8 text
+The marker lets us switch algorithms later (e.g. LZ4 as 0x02) while still reading what is already stored.
+Plain strings are never passed through here; see CompressedContentConverter for when we compress at all.
+ */
+public final class ContentCompression {
+
+    public static final byte DEFLATE = 0x01;
+
+    // Below this many chars the deflate header + marker eat most of the gain, so we keep plain strings.
+    public static final int THRESHOLD_CHARS = 1024;
+
+    private ContentCompression() {
+    }
+
+    public static byte[] compress(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+            out.write(DEFLATE);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    public static String decompress(byte[] packed) {
+        if (packed.length == 0 || packed[0] != DEFLATE) {
+            throw new IllegalArgumentException("Unknown content compression format");
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(packed, 1, packed.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed content");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        }
+        catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt compressed content", e);
+        }
+        finally {
+            inflater.end();
+        }
+    }
+}
@@ -9,10 +9,15 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    public static final long TOKEN_VALIDITY_MS = 1000 * 60 * 60; // 1 hour
+    // "iat" only has whole seconds; revocation checks need to tell apart tokens issued in the same second
+    public static final String ISSUED_AT_MS = "iat_ms";
+
     @Value("${jwt.secret}") // “Take the value from application.properties where key = jwt.secret.”
     private String SECRET_KEY;
 
@@ -30,7 +35,7 @@ public class JwtUtil {
         return extractAllClaims(token).getExpiration();
     }
 
-    private Claims extractAllClaims(String token) {
+    public Claims extractAllClaims(String token) {
         return Jwts.parser() // Creates a parser object (similar to builder but for reading tokens). But this parser doesn't know your secret key yet.
                 .verifyWith(getSigningKey())
                 .build()
@@ -56,13 +61,16 @@ public class JwtUtil {
 
     // Payload = “claims + subject + issuedAt + expiration”.
     public String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()   // A "builder" is just a normal object that helps you build another thing step-by-step, using a clean chain of methods.
                 .claims(claims) // Whatever is inside the claims map will be added to the payload of the token.
                 .subject(subject)
+                .id(UUID.randomUUID().toString()) // "jti": lets us revoke this one token on logout (see TokenRevocationService)
                 .header().empty().add("typ","JWT")
                 .and() // .header() → go into header section, .empty() → start with empty header, .add("typ","JWT") → add type, .and() → go back to main builder
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
+                .issuedAt(new Date(now))
+                .claim(ISSUED_AT_MS, now)
+                .expiration(new Date(now + TOKEN_VALIDITY_MS))
                 .signWith(getSigningKey()) // Signature = HMACSHA256(header + payload + SECRET_KEY)
                 .compact(); // FINALLY when you do this step, the library encodes header, payload, signs it, combines them and return a JWT string
     }
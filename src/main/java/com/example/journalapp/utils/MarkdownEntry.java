@@ -0,0 +1,107 @@
+package com.example.journalapp.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+One Markdown file of an import (what Obsidian, Day One, Joplin and friends export) turned into entry fields.
+    front matter   an optional leading block between "---" lines with title:, date: and tags: (either [a, b] or a, b);
+                   other keys are ignored
+    title          front matter, else a first "# heading" line (removed from the content), else the file name
+                   without directories, extension and a leading date
+    date           front matter, else a yyyy-MM-dd prefix of the file name, else null (the caller decides)
+Values are returned as found; validation (date format, tag rules) is the importer's job.
+ */
+public record MarkdownEntry(String title, String content, String date, List<String> tags) {
+
+    private static final Pattern FILE_DATE = Pattern.compile("^(\\d{4}-\\d{2}-\\d{2})[\\s_.-]*(.*)$");
+
+    public static MarkdownEntry parse(String fileName, String text) {
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        List<String> lines = new ArrayList<>(Arrays.asList(text.split("\r?\n", -1)));
+        String title = null;
+        String date = null;
+        List<String> tags = null;
+
+        if (!lines.isEmpty() && lines.get(0).strip().equals("---")) {
+            int end = 1;
+            while (end < lines.size() && !lines.get(end).strip().equals("---")) {
+                end++;
+            }
+            if (end < lines.size()) {
+                for (String line : lines.subList(1, end)) {
+                    int colon = line.indexOf(':');
+                    if (colon < 0) {
+                        continue;
+                    }
+                    String key = line.substring(0, colon).strip().toLowerCase();
+                    String value = unquote(line.substring(colon + 1).strip());
+                    switch (key) {
+                        case "title" -> title = value;
+                        case "date" -> date = value;
+                        case "tags" -> tags = parseTags(value);
+                        default -> { }
+                    }
+                }
+                lines = lines.subList(end + 1, lines.size());
+            }
+        }
+
+        int first = 0;
+        while (first < lines.size() && lines.get(first).isBlank()) {
+            first++;
+        }
+        if (title == null && first < lines.size() && lines.get(first).startsWith("# ")) {
+            title = lines.get(first).substring(2).strip();
+            lines = lines.subList(first + 1, lines.size());
+        }
+
+        String baseName = fileName.substring(fileName.lastIndexOf('/') + 1);
+        int dot = baseName.lastIndexOf('.');
+        if (dot > 0) {
+            baseName = baseName.substring(0, dot);
+        }
+        Matcher dated = FILE_DATE.matcher(baseName);
+        if (dated.matches()) {
+            if (date == null) {
+                date = dated.group(1);
+            }
+            if (title == null || title.isEmpty()) {
+                title = dated.group(2).isEmpty() ? dated.group(1) : dated.group(2);
+            }
+        }
+        if (title == null || title.isEmpty()) {
+            title = baseName;
+        }
+        return new MarkdownEntry(title, String.join("\n", lines).strip(), date, tags);
+    }
+
+    private static List<String> parseTags(String value) {
+        if (value.startsWith("[") && value.endsWith("]")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        List<String> tags = new ArrayList<>();
+        for (String tag : value.split(",")) {
+            String stripped = unquote(tag.strip());
+            if (stripped.startsWith("#")) {
+                stripped = stripped.substring(1);
+            }
+            if (!stripped.isEmpty()) {
+                tags.add(stripped);
+            }
+        }
+        return tags;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"") || value.startsWith("'") && value.endsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.journalapp.utils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/*
+Numeric metrics of a journal entry (mood, sleep, ...): names follow the tag rules (trimmed, lower case,
+letters/digits/'-'/'_', at most MAX_NAME_LENGTH characters), at most MAX_METRICS per entry, finite values only.
+What JournalMetricsService records is not the metrics themselves but their changes: a new value adds (value, +1)
+to the entry's day, a removed one adds (-value, -1), so the rollups stay correct with plain $inc whatever the order
+in which edits are folded in.
+ */
+public final class Metrics {
+
+    public static final int MAX_METRICS = 10;
+    public static final int MAX_NAME_LENGTH = 32;
+    private static final Pattern ALLOWED = Pattern.compile("[\\p{L}\\p{N}_-]+");
+
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        // First day of the bucket that contains `day`; weeks start on Monday (ISO).
+        public LocalDate start(LocalDate day) {
+            return switch (this) {
+                case DAY -> day;
+                case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> day.withDayOfMonth(1);
+            };
+        }
+
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case DAY -> start.plusDays(1);
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+
+        // Start of the bucket `buckets - 1` buckets before the one of `day`, so [result, day] spans `buckets` buckets.
+        public LocalDate startBefore(LocalDate day, int buckets) {
+            LocalDate start = start(day);
+            return switch (this) {
+                case DAY -> start.minus(buckets - 1L, ChronoUnit.DAYS);
+                case WEEK -> start.minus(buckets - 1L, ChronoUnit.WEEKS);
+                case MONTH -> start.minus(buckets - 1L, ChronoUnit.MONTHS);
+            };
+        }
+
+        // null for an unknown name
+        public static Granularity parse(String name) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(name)) {
+                    return granularity;
+                }
+            }
+            return null;
+        }
+    }
+
+    // One signed contribution to the rollups of a day: value and count are negative for a value that went away.
+    public record Change(String metric, LocalDate day, double value, int count) {
+    }
+
+    private Metrics() {
+    }
+
+    // Sorted by name. Throws IllegalArgumentException for an invalid name or value or too many metrics; null means none.
+    public static Map<String, Double> normalize(Map<String, Double> metrics) {
+        if (metrics == null) {
+            return Map.of();
+        }
+        Map<String, Double> normalized = new TreeMap<>();
+        metrics.forEach((name, value) -> {
+            if (value == null || !Double.isFinite(value)) {
+                throw new IllegalArgumentException("Invalid value for metric " + name);
+            }
+            if (normalized.put(normalizeName(name), value) != null) {
+                throw new IllegalArgumentException("Duplicate metric: " + name);
+            }
+        });
+        if (normalized.size() > MAX_METRICS) {
+            throw new IllegalArgumentException("At most " + MAX_METRICS + " metrics per entry");
+        }
+        return Collections.unmodifiableMap(normalized);
+    }
+
+    public static String normalizeName(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Empty metric name");
+        }
+        String normalized = name.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > MAX_NAME_LENGTH || !ALLOWED.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid metric name: " + name);
+        }
+        return normalized;
+    }
+
+    // What an entry going from (before, beforeDay) to (after, afterDay) changes in the rollups; null maps count as
+    // none and a null day as an entry that does not exist. Unchanged values on an unchanged day cost nothing.
+    public static List<Change> changes(Map<String, Double> before, LocalDate beforeDay, Map<String, Double> after, LocalDate afterDay) {
+        Map<String, Double> old = before != null && beforeDay != null ? before : Map.of();
+        Map<String, Double> current = after != null && afterDay != null ? after : Map.of();
+        List<Change> changes = new ArrayList<>();
+        old.forEach((metric, value) -> {
+            if (!Objects.equals(beforeDay, afterDay) || !value.equals(current.get(metric))) {
+                changes.add(new Change(metric, beforeDay, -value, -1));
+            }
+        });
+        current.forEach((metric, value) -> {
+            if (!Objects.equals(beforeDay, afterDay) || !value.equals(old.get(metric))) {
+                changes.add(new Change(metric, afterDay, value, 1));
+            }
+        });
+        return changes;
+    }
+}
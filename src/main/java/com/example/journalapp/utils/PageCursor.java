@@ -0,0 +1,36 @@
+package com.example.journalapp.utils;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+The `cursor` of paged journal lists (newest first): the date and id of the last entry of the previous page,
+"<entry id>:<date>" base64url encoded. The next page continues right after that entry in (date, id) order, so entries
+written meanwhile neither shift the pages nor appear twice. Opaque to clients.
+ */
+public record PageCursor(LocalDateTime date, ObjectId id) {
+
+    public String encode() {
+        String raw = id.toHexString() + ":" + date;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null if the cursor was not produced by encode()
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 2);
+            if (parts.length != 2 || !ObjectId.isValid(parts[0])) {
+                return null;
+            }
+            return new PageCursor(LocalDateTime.parse(parts[1]), new ObjectId(parts[0]));
+        }
+        catch (IllegalArgumentException | DateTimeParseException e) { // bad base64 or date
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.journalapp.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/*
+Token bucket per key, implemented as GCRA ("generic cell rate algorithm").
+Instead of storing (tokens, lastRefill) we store ONE number per key: the "theoretical arrival time" (tat), i.e. the
+moment at which the bucket would be full again. A request at time `now` is allowed when
+    max(tat, now) - now <= burstTolerance            (burstTolerance = (capacity - 1) * interval)
+and then tat moves forward by one interval. Because it is a single long, a bucket is just an AtomicLong updated with
+CAS: no locks, no synchronized, and a rejected request costs a couple of volatile reads.
+
+Keys live in a fixed number of ConcurrentHashMap stripes, each with a size cap. When a stripe is full we drop keys
+whose bucket is already full again (forgetting them changes nothing) and, if that does not free space, new keys share
+one overflow bucket per stripe, so a flood of random IPs cannot grow the map or bypass the limit.
+ */
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long intervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeysPerStripe;
+    private final LongSupplier clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private static final class Stripe {
+        final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        final AtomicLong overflow;
+        final AtomicLong nextSweep;
+
+        Stripe(long now) {
+            overflow = new AtomicLong(now);
+            nextSweep = new AtomicLong(now);
+        }
+    }
+
+    public RateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this(capacity, refillPerMinute, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, int refillPerMinute, int maxKeys, LongSupplier clock) {
+        if (capacity < 1 || refillPerMinute < 1) {
+            throw new IllegalArgumentException("capacity and refillPerMinute must be positive");
+        }
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+        this.burstToleranceNanos = (capacity - 1) * intervalNanos;
+        this.maxKeysPerStripe = Math.max(1, maxKeys / STRIPES);
+        this.clock = clock;
+        long now = clock.getAsLong();
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(now);
+        }
+    }
+
+    // Returns 0 when the request may go through, otherwise how many nanoseconds until the next token is available.
+    public long tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicLong tat = bucket(key, now);
+        while (true) {
+            long current = tat.get();
+            long start = Math.max(current, now);
+            long waitNanos = start - now - burstToleranceNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (tat.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        Stripe stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+        AtomicLong bucket = stripe.buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.buckets.size() >= maxKeysPerStripe && !sweep(stripe, now)) {
+            return stripe.overflow;
+        }
+        return stripe.buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    // Drops idle keys (bucket full again). At most one sweep per stripe per second, so a flood cannot make us sweep
+    // on every request. Returns true if there is room for a new key afterwards.
+    private boolean sweep(Stripe stripe, long now) {
+        long next = stripe.nextSweep.get();
+        if (now - next < 0 || !stripe.nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_NANOS)) {
+            return false;
+        }
+        stripe.buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        return stripe.buckets.size() < maxKeysPerStripe;
+    }
+}
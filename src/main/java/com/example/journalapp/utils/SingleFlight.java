@@ -0,0 +1,75 @@
+package com.example.journalapp.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+Deduplicates loads that are in flight at the same moment: the first caller for a key runs the loader, callers that
+arrive before it finishes wait for that same result (or exception) instead of sending the same query again.
+    load("ved") ──runs query──────────────▶ result
+    load("ved")   └─ waits on the future ─▶ same result   (coalesced++)
+Nothing is kept once the load completes, so this is not a cache: a call after completion loads again.
+A load that started before a write may return what was there before it; after the write, forget(key) so the next
+caller (typically the writer reading its own write) starts a fresh load instead of joining that one.
+Lock-free: one putIfAbsent decides who loads, the loader always runs on the caller's thread.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V load(K key, Function<K, V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            V value = loader.apply(key);
+            mine.complete(value);
+            return value;
+        }
+        catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // The next load of key runs its own query; callers already waiting keep the result of the running one.
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    // forget(key) for every key.
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    // Loads that were answered by another caller's query.
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            // rethrow what the loader threw, so waiters see the same exception as the caller that ran it
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.journalapp.utils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/*
+Tags as they are stored and queried: trimmed, lower case, letters/digits/'-'/'_' only, at most MAX_LENGTH characters,
+at most MAX_TAGS per entry, no duplicates (first occurrence wins the position). "Work", " work " and "WORK" are the same
+tag, so a GET /journal?tag= lookup and the counts in tag_counts never split over spelling.
+ */
+public final class Tags {
+
+    public static final int MAX_TAGS = 20;
+    public static final int MAX_LENGTH = 32;
+    private static final Pattern ALLOWED = Pattern.compile("[\\p{L}\\p{N}_-]+");
+
+    private Tags() {
+    }
+
+    // Throws IllegalArgumentException for an invalid tag or too many of them; null means no tags.
+    public static List<String> normalize(List<String> tags) {
+        if (tags == null) {
+            return List.of();
+        }
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String tag : tags) {
+            normalized.add(normalize(tag));
+        }
+        if (normalized.size() > MAX_TAGS) {
+            throw new IllegalArgumentException("At most " + MAX_TAGS + " tags per entry");
+        }
+        return List.copyOf(normalized);
+    }
+
+    public static String normalize(String tag) {
+        if (tag == null) {
+            throw new IllegalArgumentException("Empty tag");
+        }
+        String normalized = tag.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.length() > MAX_LENGTH || !ALLOWED.matcher(normalized).matches()) {
+            throw new IllegalArgumentException("Invalid tag: " + tag);
+        }
+        return normalized;
+    }
+
+    // Tags in `after` but not in `before` (both normalized; null counts as none).
+    public static List<String> added(List<String> before, List<String> after) {
+        List<String> added = new ArrayList<>(after != null ? after : List.of());
+        if (before != null) {
+            added.removeAll(before);
+        }
+        return added;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.journalapp.utils;
+
+/*
+Edit between two versions of a text as "keep the first `prefix` chars, keep the last `suffix` chars, put `inserted`
+in between":
+    from = "Today was good. I ran 5k."      to = "Today was great. I ran 5k."
+    → prefix 11 ("Today was g"), suffix 11 (". I ran 5k."), inserted "reat"   (the old "ood" is dropped)
+Journal edits are nearly always one region (appending, fixing a typo, rewriting a paragraph), and for those this is
+as small as a real diff while costing only two linear scans to compute and one concatenation to apply.
+Edits in several places still round-trip correctly, the delta just spans from the first to the last change.
+ */
+public record TextDelta(int prefix, int suffix, String inserted) {
+
+    public static TextDelta between(String from, String to) {
+        from = from != null ? from : "";
+        to = to != null ? to : "";
+        int max = Math.min(from.length(), to.length());
+
+        int prefix = 0;
+        while (prefix < max && from.charAt(prefix) == to.charAt(prefix)) {
+            prefix++;
+        }
+        // never cut a surrogate pair in half: the inserted part would start with half an emoji and not survive UTF-8
+        if (prefix > 0 && Character.isHighSurrogate(to.charAt(prefix - 1))) {
+            prefix--;
+        }
+
+        int suffix = 0;
+        while (suffix < max - prefix
+                && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(to.charAt(to.length() - suffix))) {
+            suffix--;
+        }
+        return new TextDelta(prefix, suffix, to.substring(prefix, to.length() - suffix));
+    }
+
+    public String applyTo(String from) {
+        from = from != null ? from : "";
+        if (prefix + suffix > from.length()) {
+            throw new IllegalArgumentException("Delta does not fit a text of " + from.length() + " chars");
+        }
+        return from.substring(0, prefix) + inserted + from.substring(from.length() - suffix);
+    }
+}
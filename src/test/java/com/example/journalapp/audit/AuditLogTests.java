@@ -0,0 +1,62 @@
+package com.example.journalapp.audit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogTests {
+
+    // Counts the idle() calls, i.e. the writer's wakeups while the ring is empty.
+    private static class CountingSink implements AuditSink {
+        final AtomicInteger idles = new AtomicInteger();
+        volatile CountDownLatch written = new CountDownLatch(1);
+
+        @Override
+        public void write(AuditRingBuffer.Slot slot) {
+            written.countDown();
+        }
+
+        @Override
+        public void endBatch() {
+        }
+
+        @Override
+        public void idle() {
+            idles.incrementAndGet();
+        }
+    }
+
+    private final CountingSink sink = new CountingSink();
+    private final AuditLog auditLog = new AuditLog(sink, new SimpleMeterRegistry(), 1024, 64);
+
+    @AfterEach
+    public void stop() throws InterruptedException {
+        auditLog.stop();
+    }
+
+    @Test
+    public void anIdleWriterDoesNotSpin() throws InterruptedException {
+        Thread.sleep(500);
+        assertTrue(sink.idles.get() <= 10, sink.idles.get() + " wakeups in 500 ms");
+    }
+
+    @Test
+    public void aRecordWakesTheParkedWriter() throws InterruptedException {
+        Thread.sleep(200); // the writer is parked now
+        for (int i = 0; i < 5; i++) {
+            sink.written = new CountDownLatch(1);
+            long start = System.nanoTime();
+            auditLog.loginSucceeded("ved", "127.0.0.1");
+            assertTrue(sink.written.await(5, TimeUnit.SECONDS));
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(waitedMs < 50, "written after " + waitedMs + " ms"); // not at the end of the 100 ms park
+            Thread.sleep(150);
+        }
+    }
+}
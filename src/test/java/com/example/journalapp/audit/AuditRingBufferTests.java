@@ -0,0 +1,111 @@
+package com.example.journalapp.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditRingBufferTests {
+
+    @Test
+    public void drainsInPublishOrder() {
+        AuditRingBuffer ring = new AuditRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.publish(i, AuditAction.LOGIN_SUCCEEDED, "user" + i, null, null));
+        }
+        List<String> actors = new ArrayList<>();
+        assertEquals(3, ring.drain(slot -> actors.add(slot.actor()), 3));
+        assertEquals(2, ring.drain(slot -> actors.add(slot.actor()), 10));
+        assertEquals(0, ring.drain(slot -> actors.add(slot.actor()), 10));
+        assertEquals(List.of("user0", "user1", "user2", "user3", "user4"), actors);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void dropsAndCountsWhenFull() {
+        AuditRingBuffer ring = new AuditRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.publish(i, AuditAction.LOGIN_FAILED, "a", null, null));
+        }
+        assertFalse(ring.publish(4, AuditAction.LOGIN_FAILED, "a", null, null));
+        assertEquals(1, ring.dropped());
+
+        // draining frees the slots again, and the wrapped-around slots are read in order
+        ring.drain(slot -> { }, 2);
+        assertTrue(ring.publish(5, AuditAction.LOGIN_FAILED, "b", null, null));
+        assertTrue(ring.publish(6, AuditAction.LOGIN_FAILED, "c", null, null));
+        List<Long> times = new ArrayList<>();
+        ring.drain(slot -> times.add(slot.time()), 10);
+        assertEquals(List.of(2L, 3L, 5L, 6L), times);
+    }
+
+    @Test
+    public void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new AuditRingBuffer(1000));
+    }
+
+    @Test
+    public void concurrentProducersLoseNothingThatWasAccepted() throws Exception {
+        AuditRingBuffer ring = new AuditRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int p = 0; p < producers; p++) {
+                String actor = "producer" + p;
+                pool.execute(() -> {
+                    await(start);
+                    for (int i = 0; i < perProducer; i++) {
+                        ring.publish(i, AuditAction.JOURNAL_CREATED, actor, Integer.toString(i), null);
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+
+            Set<String> seen = new HashSet<>();
+            long[] lastTimeByProducer = new long[producers];
+            Arrays.fill(lastTimeByProducer, -1);
+            boolean[] ordered = {true};
+            long consumed = 0;
+            while (!pool.isTerminated() || ring.size() > 0) {
+                consumed += ring.drain(slot -> {
+                    int producer = slot.actor().charAt("producer".length()) - '0';
+                    ordered[0] &= slot.time() > lastTimeByProducer[producer];
+                    lastTimeByProducer[producer] = slot.time();
+                    assertEquals(Long.toString(slot.time()), slot.target()); // never a half-written slot
+                    seen.add(slot.actor() + ":" + slot.target());
+                }, 256);
+            }
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals((long) producers * perProducer, consumed + ring.dropped());
+            assertEquals(consumed, seen.size());
+            assertTrue(ordered[0], "records of one producer must come out in the order it published them");
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.journalapp.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FileAuditSinkTests {
+
+    @TempDir
+    Path dir;
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+
+    @Test
+    public void writesOneEscapedJsonLinePerRecord() throws Exception {
+        FileAuditSink sink = new FileAuditSink(dir, 1 << 20, 3, 0, 0, now::get);
+        write(sink, AuditAction.LOGIN_FAILED, "ved \"the\" user\n", null, "10.0.0.7");
+        sink.close();
+
+        List<String> lines = Files.readAllLines(dir.resolve(FileAuditSink.CURRENT));
+        assertEquals(List.of("{\"time\":\"2023-11-14T22:13:20Z\",\"action\":\"LOGIN_FAILED\","
+                + "\"actor\":\"ved \\\"the\\\" user\\n\",\"target\":null,\"detail\":\"10.0.0.7\"}"), lines);
+    }
+
+    @Test
+    public void rotatesBySizeAndKeepsMaxFiles() throws Exception {
+        FileAuditSink sink = new FileAuditSink(dir, 300, 2, 0, 0, now::get);
+        for (int i = 0; i < 20; i++) {
+            write(sink, AuditAction.JOURNAL_CREATED, "user", "entry" + i, null);
+            sink.endBatch();
+            now.addAndGet(1000);
+        }
+        sink.close();
+
+        List<String> rotated;
+        try (Stream<Path> files = Files.list(dir)) {
+            rotated = files.map(path -> path.getFileName().toString()).filter(name -> name.startsWith("audit-")).toList();
+        }
+        assertEquals(2, rotated.size());
+        assertTrue(Files.size(dir.resolve(FileAuditSink.CURRENT)) <= 300);
+        // the newest records are in the current file
+        assertTrue(Files.readString(dir.resolve(FileAuditSink.CURRENT)).contains("\"target\":\"entry19\""));
+    }
+
+    private static void write(FileAuditSink sink, AuditAction action, String actor, String target, String detail) {
+        AuditRingBuffer ring = new AuditRingBuffer(2);
+        ring.publish(1_700_000_000_000L, action, actor, target, detail);
+        ring.drain(sink::write, 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.journalapp.benchmark;
+
+import com.example.journalapp.audit.AuditAction;
+import com.example.journalapp.audit.AuditLog;
+import com.example.journalapp.audit.FileAuditSink;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/*
+End to end through AuditLog: 4 request threads record login events as fast as they can while the audit-writer
+thread drains the ring into a FileAuditSink in a temp directory. The score is what request threads see (records
+offered per second, GC profiler shows they allocate nothing); each trial also prints how many records reached the
+file and how many were dropped because the writer fell behind, for
+    fsyncEvery   0 = leave flushing to the OS, 1000 = batched (the default), 1 = force after every batch
+    bufferSize   ring capacity
+Run: mvn -q test-compile exec:java -Dexec.classpathScope=test
+         -Dexec.mainClass=com.example.journalapp.benchmark.AuditLogBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AuditLogBenchmark {
+
+    @Param({"0", "1000", "1"})
+    private int fsyncEvery;
+
+    @Param({"4096", "65536"})
+    private int bufferSize;
+
+    private Path dir;
+    private AuditLog auditLog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("audit-bench");
+        FileAuditSink sink = new FileAuditSink(dir, 100L * 1024 * 1024, 5, fsyncEvery, fsyncEvery > 0 ? 1000 : 0);
+        auditLog = new AuditLog(sink, new SimpleMeterRegistry(), bufferSize, 1024);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        auditLog.stop();
+        long written = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                try (Stream<String> lines = Files.lines(file)) {
+                    written += lines.count();
+                }
+            }
+        }
+        System.out.printf("%n  fsyncEvery=%d bufferSize=%d: %,d records written, %,d dropped%n",
+                fsyncEvery, bufferSize, written, auditLog.dropped());
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public boolean record() {
+        return auditLog.record(AuditAction.LOGIN_SUCCEEDED, "ved", null, "10.0.0.7");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AuditLogBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.journalapp.benchmark;
+
+import com.example.journalapp.utils.ContentCompression;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Size/latency trade-off of the content compression used by CompressedContentConverter.
+Prints the stored size for each content length once per trial, then measures compress (save path) and decompress
+(read path). Run: mvn -q test-compile exec:java -Dexec.classpathScope=test
+                      -Dexec.mainClass=com.example.journalapp.benchmark.ContentCompressionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentCompressionBenchmark {
+
+    private static final String[] WORDS = ("today i went to the office and had a long meeting about the new project "
+            + "then i met my friends for dinner we talked about life plans travel family work music and books "
+            + "i feel tired but happy tomorrow i want to wake up early go for a run and write more").split(" ");
+
+    @Param({"512", "4096", "65536", "1048576"})
+    private int chars;
+
+    private String content;
+    private byte[] compressed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        content = journalText(chars);
+        compressed = ContentCompression.compress(content);
+        int utf8 = content.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%n[size] %d chars: %d bytes plain, %d bytes compressed (%.1f%%)%n",
+                chars, utf8, compressed.length, 100.0 * compressed.length / utf8);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return ContentCompression.compress(content);
+    }
+
+    @Benchmark
+    public String decompress() {
+        return ContentCompression.decompress(compressed);
+    }
+
+    // Word salad from a small vocabulary: roughly as compressible as real diary text.
+    static String journalText(int chars) {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(chars + 16);
+        while (text.length() < chars) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return text.substring(0, chars);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ContentCompressionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.journalapp.benchmark;
+
+import com.example.journalapp.dto.JournalEntryResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*
+GET /journal in each format clients can ask for with Accept (see JacksonConfig): time to write and to read back the
+list, for 10 / 1k / 10k entries. The mappers are set up like the app's (java.time as ISO strings, Blackbird).
+Payload sizes, raw and gzipped, are printed once per trial since they do not depend on timing.
+Run: mvn -q test-compile exec:java -Dexec.classpathScope=test
+         -Dexec.mainClass=com.example.journalapp.benchmark.PayloadFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"10", "1000", "10000"})
+    private int entries;
+
+    private ObjectMapper mapper;
+    private List<JournalEntryResponse> journal;
+    private byte[] encoded;
+
+    // Discards the bytes, like a socket we never wait on; only the serializer's own cost is measured.
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = new ObjectMapper(factory).registerModule(new JavaTimeModule()).registerModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<JournalEntryResponse> list = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            list.add(new JournalEntryResponse(new ObjectId().toHexString(), "Day " + i,
+                    ContentCompressionBenchmark.journalText(600), LocalDateTime.of(2025, 1, 1, 9, 0).plusMinutes(i),
+                    List.of(), Map.of()));
+        }
+        journal = list;
+        encoded = mapper.writeValueAsBytes(journal);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(encoded);
+        }
+        System.out.printf("%n%s, %d entries: %d bytes, %d gzipped%n", format, entries, encoded.length, gzipped.size());
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        mapper.writeValue(sink, journal);
+    }
+
+    @Benchmark
+    public List<JournalEntryResponse> read() throws IOException {
+        return mapper.readValue(encoded, new TypeReference<List<JournalEntryResponse>>() { });
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PayloadFormatBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.journalapp.benchmark;
+
+import com.example.journalapp.utils.TextDelta;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+Revision history as JournalRevisionService stores it: a snapshot every `snapshotEvery` revisions, TextDeltas between.
+Per trial it prints the storage of REVISIONS edits (typo fixes, appended paragraphs, rewritten sentences) compared
+to keeping a full copy per edit. The benchmarks measure the worst-case rebuild (snapshot + snapshotEvery - 1 deltas;
+the Mongo reads it needs are not included) and computing one delta on save.
+Run: mvn -q test-compile exec:java -Dexec.classpathScope=test
+         -Dexec.mainClass=com.example.journalapp.benchmark.RevisionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RevisionBenchmark {
+
+    private static final int REVISIONS = 100;
+
+    @Param({"4096", "65536"})
+    private int chars;
+
+    @Param({"5", "10", "20"})
+    private int snapshotEvery;
+
+    private String snapshot;
+    private List<TextDelta> chain; // the deltas following one snapshot
+    private String beforeEdit;
+    private String afterEdit;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<String> versions = new ArrayList<>();
+        versions.add(ContentCompressionBenchmark.journalText(chars));
+        for (int i = 1; i <= REVISIONS; i++) {
+            versions.add(edit(versions.get(i - 1), random));
+        }
+
+        long fullCopies = 0;
+        long stored = 0;
+        for (int i = 1; i <= REVISIONS; i++) {
+            fullCopies += utf8(versions.get(i));
+            if (i % snapshotEvery == 0) {
+                stored += utf8(versions.get(i));
+            }
+            else {
+                stored += utf8(TextDelta.between(versions.get(i - 1), versions.get(i)).inserted()) + 8; // + two ints
+            }
+        }
+        System.out.printf("%n[storage] %d edits of a %d char entry: %d KB as full copies, %d KB with deltas (%.1f%%)%n",
+                REVISIONS, chars, fullCopies / 1024, stored / 1024, 100.0 * stored / fullCopies);
+
+        snapshot = versions.get(snapshotEvery);
+        chain = new ArrayList<>();
+        for (int i = snapshotEvery + 1; i < 2 * snapshotEvery; i++) {
+            chain.add(TextDelta.between(versions.get(i - 1), versions.get(i)));
+        }
+        beforeEdit = versions.get(REVISIONS - 1);
+        afterEdit = versions.get(REVISIONS);
+    }
+
+    @Benchmark
+    public String rebuildWorstCase() {
+        String content = snapshot;
+        for (TextDelta delta : chain) {
+            content = delta.applyTo(content);
+        }
+        return content;
+    }
+
+    @Benchmark
+    public TextDelta computeDelta() {
+        return TextDelta.between(beforeEdit, afterEdit);
+    }
+
+    private static String edit(String text, Random random) {
+        int kind = random.nextInt(3);
+        if (kind == 0) { // append a paragraph
+            return text + "\n" + ContentCompressionBenchmark.journalText(200 + random.nextInt(400));
+        }
+        int at = random.nextInt(text.length() - 100);
+        if (kind == 1) { // fix a typo
+            return text.substring(0, at) + "x" + text.substring(at + 1);
+        }
+        // rewrite a sentence
+        return text.substring(0, at) + ContentCompressionBenchmark.journalText(80) + text.substring(at + 60);
+    }
+
+    private static long utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RevisionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
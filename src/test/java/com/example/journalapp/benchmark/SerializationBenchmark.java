@@ -0,0 +1,118 @@
+package com.example.journalapp.benchmark;
+
+import com.example.journalapp.dto.JournalEntryResponse;
+import com.example.journalapp.dto.UserResponse;
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+GET /journal and GET /admin/all-users payloads: what we used to serialize (the entities, plain ObjectMapper) against
+what the controllers send now (response records, ObjectMapper with Blackbird). Both write straight into an
+OutputStream the way the message converter does, so no intermediate String or byte[] is built.
+Runs with the GC profiler: compare "gc.alloc.rate.norm" (bytes allocated per call) next to the throughput.
+Run: mvn -q test-compile exec:java -Dexec.classpathScope=test
+         -Dexec.mainClass=com.example.journalapp.benchmark.SerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int entries;
+
+    private ObjectMapper entityMapper;
+    private ObjectMapper responseMapper;
+
+    private List<JournalEntry> journal;
+    private List<JournalEntryResponse> journalResponse;
+    private List<User> users;
+    private List<UserResponse> usersResponse;
+
+    // Discards the bytes, like a socket we never wait on; only the serializer's own cost is measured.
+    // (Not OutputStream.nullOutputStream(): writeValue closes its target and that one rejects writes once closed.)
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        entityMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        responseMapper = new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        journal = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setId(new ObjectId());
+            entry.setTitle("Day " + i);
+            entry.setContent(ContentCompressionBenchmark.journalText(600));
+            entry.setDate(LocalDateTime.of(2025, 1, 1, 9, 0).plusDays(i));
+            journal.add(entry);
+        }
+        journalResponse = JournalEntryResponse.fromAll(journal);
+
+        users = new ArrayList<>();
+        usersResponse = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            User user = new User("user" + i, "$2a$10$abcdefghijklmnopqrstuv0123456789ABCDEFGHIJKLMNOPQRS");
+            user.setId(new ObjectId());
+            user.setRoles(List.of("USER"));
+            user.setJournalEntries(journal.subList(0, Math.min(5, journal.size())));
+            users.add(user);
+            usersResponse.add(new UserResponse(user.getId().toHexString(), user.getUsername(), user.getRoles()));
+        }
+    }
+
+    @Benchmark
+    public void journalAsEntities() throws IOException {
+        entityMapper.writeValue(sink, journal);
+    }
+
+    @Benchmark
+    public void journalAsResponses() throws IOException {
+        responseMapper.writeValue(sink, journalResponse);
+    }
+
+    @Benchmark
+    public void usersAsEntities() throws IOException {
+        entityMapper.writeValue(sink, users);
+    }
+
+    @Benchmark
+    public void usersAsResponses() throws IOException {
+        responseMapper.writeValue(sink, usersResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.journalapp.cache;
+
+import com.example.journalapp.entity.JournalEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalEntryCacheTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+    private final JournalEntryCache cache = new JournalEntryCache(bus, meterRegistry, 100, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Optional<JournalEntry> load(ObjectId id) {
+        loads.incrementAndGet();
+        JournalEntry entry = new JournalEntry();
+        entry.setId(id);
+        entry.setTitle("title");
+        return Optional.of(entry);
+    }
+
+    @Test
+    public void secondReadIsAHit() {
+        ObjectId id = new ObjectId();
+        cache.get(id, this::load);
+        cache.get(id, this::load);
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    public void invalidationFromAnotherNodeForcesReload() {
+        ObjectId id = new ObjectId();
+        cache.get(id, this::load);
+        bus.publish(id); // what another instance's write looks like from here
+        cache.get(id, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void invalidateAllFromAnotherNodeEmptiesTheCache() {
+        ObjectId a = new ObjectId();
+        ObjectId b = new ObjectId();
+        cache.get(a, this::load);
+        cache.get(b, this::load);
+        bus.publishAll(); // what a restore on another instance looks like from here
+        cache.get(a, this::load);
+        cache.get(b, this::load);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    public void missingEntriesAreNotCached() {
+        ObjectId id = new ObjectId();
+        assertTrue(cache.get(id, key -> Optional.empty()).isEmpty());
+        cache.get(id, this::load);
+        assertEquals(1, loads.get());
+    }
+}
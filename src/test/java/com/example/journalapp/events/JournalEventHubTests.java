@@ -0,0 +1,143 @@
+package com.example.journalapp.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The hub with the in-process relay and emitters that count (or hold up) their sends instead of writing to a socket.
+public class JournalEventHubTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JournalEventHub hub = new JournalEventHub(new LocalJournalEventRelay(), meterRegistry,
+            2, 10, Duration.ofMinutes(30), 1, 100, 50, 8);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Counts what it is sent; blocks in send() while `blocking`, like a client whose TCP window is full.
+    private class TestEmitter extends SseEmitter {
+        final AtomicInteger sent = new AtomicInteger();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final boolean blocking;
+        volatile boolean completed;
+
+        TestEmitter(boolean blocking) {
+            this.blocking = blocking;
+        }
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            sending.countDown();
+            if (blocking) {
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+
+    @AfterEach
+    public void stop() {
+        release.countDown();
+        hub.stop();
+    }
+
+    @Test
+    public void eventsOnlyReachTheStreamsOfTheirUser() throws Exception {
+        TestEmitter mine = new TestEmitter(false);
+        TestEmitter other = new TestEmitter(false);
+        hub.subscribe("ved", mine);
+        hub.subscribe("ram", other);
+
+        hub.publish(JournalEvent.of("ved", JournalEvent.CREATED, new ObjectId()));
+        await(() -> mine.sent.get() == 1);
+        Thread.sleep(50);
+        assertEquals(0, other.sent.get());
+    }
+
+    @Test
+    public void aSubscriberThatDoesNotKeepUpIsEvicted() throws Exception {
+        TestEmitter slow = new TestEmitter(true);
+        hub.subscribe("ved", slow);
+        hub.publish(JournalEvent.of("ved", JournalEvent.CREATED, new ObjectId()));
+        assertTrue(slow.sending.await(5, TimeUnit.SECONDS));
+
+        // one event is being sent, the queue holds two more, the fourth does not fit
+        for (int i = 0; i < 3; i++) {
+            hub.publish(JournalEvent.of("ved", JournalEvent.CREATED, new ObjectId()));
+        }
+        await(() -> meterRegistry.get("journal.events.evictions").counter().count() == 1);
+        assertEquals(0.0, meterRegistry.get("journal.events.subscribers").gauge().value());
+
+        release.countDown();
+        await(() -> slow.completed); // completed once its running send returned, never while it was blocked
+    }
+
+    @Test
+    public void aStalledSendIsEvictedAndGetsAThreadOfItsOwn() throws Exception {
+        TestEmitter stalled = new TestEmitter(true);
+        TestEmitter healthy = new TestEmitter(false);
+        hub.subscribe("ved", stalled);
+        hub.subscribe("ram", healthy);
+        hub.publish(JournalEvent.of("ved", JournalEvent.CREATED, new ObjectId()));
+        assertTrue(stalled.sending.await(5, TimeUnit.SECONDS)); // the only sender thread is stuck now
+
+        Thread.sleep(100); // past send-timeout-ms
+        hub.evictStalledSends();
+        assertEquals(1.0, meterRegistry.get("journal.events.stalled-sends").gauge().value());
+        assertEquals(1.0, meterRegistry.get("journal.events.evictions").counter().count());
+
+        hub.publish(JournalEvent.of("ram", JournalEvent.CREATED, new ObjectId()));
+        await(() -> healthy.sent.get() == 1); // delivered by the extra sender
+
+        release.countDown();
+        await(() -> meterRegistry.get("journal.events.stalled-sends").gauge().value() == 0.0);
+        await(() -> stalled.completed);
+    }
+
+    @Test
+    public void heartbeatsReachTensOfThousandsOfIdleStreams() throws Exception {
+        List<TestEmitter> emitters = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            TestEmitter emitter = new TestEmitter(false);
+            emitters.add(emitter);
+            assertNotNull(hub.subscribe("user" + i, emitter));
+        }
+
+        hub.sendHeartbeats();
+        await(() -> emitters.stream().allMatch(emitter -> emitter.sent.get() == 1));
+        assertEquals(0.0, meterRegistry.get("journal.events.evictions").counter().count());
+        assertEquals(20_000.0, meterRegistry.get("journal.events.subscribers").gauge().value());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.journalapp.repository;
+
+import com.example.journalapp.config.IndexPlan;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Runs explain on the filter/sort/projection of every query the app sends and fails if the winning plan contains a
+COLLSCAN (no usable index) or a SORT stage (sorting in memory instead of reading an index in order).
+One test per query; keep them in sync with config/IndexPlan.
+ */
+@SpringBootTest
+public class QueryPlanTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IndexPlan indexPlan;
+
+    @BeforeEach
+    public void applyIndexPlan() {
+        indexPlan.apply(); // also creates the collections, so explain never degenerates into an EOF plan
+    }
+
+    @Test
+    public void allPlannedIndexesExist() {
+        assertTrue(indexPlan.missing().isEmpty());
+    }
+
+    // UserRepository.findByUsername / deleteByUsername / existsByUsername / findJournalVersionByUsername / findCredentialsByUsername, journal $push/$inc updates
+    @Test
+    public void userByUsername() {
+        assertIndexed("users", new Document("username", "someone"), null, null);
+    }
+
+    // UsernameRegistry.rebuild: must be covered by the username index (no document fetch)
+    @Test
+    public void allUsernames() {
+        assertIndexed("users", new Document(), new Document("username", 1), new Document("username", 1).append("_id", 0));
+    }
+
+    // UserService.ownsJournalEntry, JournalEntryService.deleteJournalEntryById ($pull)
+    @Test
+    public void userByUsernameAndJournalEntry() {
+        assertIndexed("users", new Document("username", "someone")
+                .append("journalEntries", new DBRef("journal_entries", new ObjectId())), null, null);
+    }
+
+    // JournalEntryService.saveJournalEntries bulk updates, findById
+    @Test
+    public void userById() {
+        assertIndexed("users", new Document("_id", new ObjectId()), null, null);
+    }
+
+    // UserRepository.findAllSummariesBy (admin user list)
+    @Test
+    public void allUserSummaries() {
+        assertIndexed("users", new Document("deletedAt", null), new Document("_id", 1),
+                new Document("_id", 1).append("username", 1).append("roles", 1));
+    }
+
+    // AccountDeletionService.claimJob
+    @Test
+    public void claimableDeletionJobs() {
+        assertIndexed("deletion_jobs", new Document("status", new Document("$in", List.of("PENDING", "RUNNING")))
+                .append("leaseUntil", new Document("$lt", new Date())), null, null);
+    }
+
+    // DeletionJobRepository.findTop100ByOrderByCreatedAtDesc
+    @Test
+    public void recentDeletionJobs() {
+        assertIndexed("deletion_jobs", new Document(), new Document("createdAt", -1), null);
+    }
+
+    // JournalEntryRepository.findById / deleteById
+    @Test
+    public void journalEntryById() {
+        assertIndexed("journal_entries", new Document("_id", new ObjectId()), null, null);
+    }
+
+    // AdminStatsService.refreshEntries ($match stage of the daily recount)
+    @Test
+    public void entriesSinceDay() {
+        assertIndexed("journal_entries", new Document("date", new Document("$gte", new Date())), null, null);
+    }
+
+    // OnThisDayService.generate (resumed after a checkpoint)
+    @Test
+    public void entriesOnMonthDay() {
+        assertIndexed("journal_entries", new Document("monthDay", "10-20").append("date", new Document("$lt", new Date()))
+                        .append("ownerId", new Document("$gt", new ObjectId())),
+                new Document("monthDay", 1).append("ownerId", 1).append("date", 1),
+                new Document("ownerId", 1).append("title", 1).append("content", 1).append("date", 1));
+    }
+
+    // JournalTagService.entriesWithTag, first page
+    @Test
+    public void entriesWithTag() {
+        assertIndexed("journal_entries", new Document("ownerId", new ObjectId()).append("tags", "work"),
+                new Document("date", -1).append("_id", -1), null);
+    }
+
+    // JournalTagService.entriesWithTag, after a cursor
+    @Test
+    public void entriesWithTagAfterCursor() {
+        Date date = new Date();
+        assertIndexed("journal_entries", new Document("ownerId", new ObjectId()).append("tags", "work")
+                        .append("date", new Document("$lte", date))
+                        .append("$nor", List.of(new Document("date", date).append("_id", new Document("$gte", new ObjectId())))),
+                new Document("date", -1).append("_id", -1), null);
+    }
+
+    // JournalTagService.tagCounts / deleteAllFor
+    @Test
+    public void tagCountsOfOwner() {
+        assertIndexed("tag_counts", new Document("ownerId", new ObjectId()).append("count", new Document("$gt", 0)),
+                new Document("tag", 1), new Document("tag", 1).append("count", 1).append("_id", 0));
+    }
+
+    // JournalImportService.recentJobs, AccountDeletionService.purge
+    @Test
+    public void importJobsOfOwner() {
+        assertIndexed("import_jobs", new Document("ownerId", new ObjectId()), new Document("startedAt", -1), null);
+    }
+
+    // JournalWriteBehindService.recentDeadLetters
+    @Test
+    public void recentDeadLetters() {
+        assertIndexed("journal_dead_letters", new Document(), new Document("failedAt", -1), null);
+    }
+
+    // AccountDeletionService.purge
+    @Test
+    public void deadLettersOfOwner() {
+        assertIndexed("journal_dead_letters", new Document("ownerId", new ObjectId()), null, null);
+    }
+
+    // JournalImportService.findJob
+    @Test
+    public void importJobByIdAndOwner() {
+        assertIndexed("import_jobs", new Document("_id", new ObjectId()).append("ownerId", new ObjectId()), null, null);
+    }
+
+    // JournalMetricsService.trends
+    @Test
+    public void trendBuckets() {
+        assertIndexed("metric_rollups", new Document("ownerId", new ObjectId()).append("metric", "mood")
+                        .append("granularity", "WEEK").append("start", new Document("$gte", new Date()).append("$lte", new Date())),
+                new Document("start", -1), new Document("start", 1).append("sum", 1).append("count", 1));
+    }
+
+    // JournalMetricsService.deleteAllFor (rollups)
+    @Test
+    public void rollupsOfOwner() {
+        assertIndexed("metric_rollups", new Document("ownerId", new ObjectId()), null, null);
+    }
+
+    // JournalMetricsService.rollUp: the first point after the checkpoint ($match of the fold uses the same range)
+    @Test
+    public void metricPointsAfterCheckpoint() {
+        assertIndexed("journal_metrics", new Document("recordedAt", new Document("$gt", new Date())),
+                new Document("recordedAt", 1), new Document("recordedAt", 1).append("_id", 0));
+    }
+
+    // JournalMetricsService.deleteAllFor (points)
+    @Test
+    public void metricPointsOfOwner() {
+        assertIndexed("journal_metrics", new Document("meta.ownerId", new ObjectId()), null, null);
+    }
+
+    // JournalRevisionRepository.findFirstByEntryIdOrderByRevisionDesc
+    @Test
+    public void latestRevision() {
+        assertIndexed("journal_revisions", new Document("entryId", new ObjectId()), new Document("revision", -1), null);
+    }
+
+    // JournalRevisionRepository.findFirstByEntryIdAndRevisionLessThanEqualAndSnapshotTrueOrderByRevisionDesc
+    @Test
+    public void nearestSnapshot() {
+        assertIndexed("journal_revisions", new Document("entryId", new ObjectId())
+                .append("revision", new Document("$lte", 7)).append("snapshot", true), new Document("revision", -1), null);
+    }
+
+    // JournalRevisionRepository.findRevisionsAfter
+    @Test
+    public void revisionsAfterSnapshot() {
+        assertIndexed("journal_revisions", new Document("entryId", new ObjectId())
+                .append("revision", new Document("$gt", 0).append("$lte", 7)), new Document("revision", 1), null);
+    }
+
+    // JournalRevisionRepository.findSummariesByEntryId
+    @Test
+    public void revisionList() {
+        assertIndexed("journal_revisions", new Document("entryId", new ObjectId()), new Document("revision", 1),
+                new Document("revision", 1).append("title", 1).append("date", 1));
+    }
+
+    // JournalChangesService.changesSince: entries
+    @Test
+    public void changedEntriesAfterSequence() {
+        assertIndexed("journal_entries", new Document("ownerId", new ObjectId()).append("changeSeq", new Document("$gt", 5)),
+                new Document("changeSeq", 1), null);
+    }
+
+    // JournalChangesService.changesSince: deletes
+    @Test
+    public void tombstonesAfterSequence() {
+        assertIndexed("journal_tombstones", new Document("ownerId", new ObjectId()).append("changeSeq", new Document("$gt", 5)),
+                new Document("changeSeq", 1), new Document("changeSeq", 1));
+    }
+
+    // AccountDeletionService.purge
+    @Test
+    public void tombstonesOfOwner() {
+        assertIndexed("journal_tombstones", new Document("ownerId", new ObjectId()), null, null);
+    }
+
+    // JournalChangesService.backfillChangeSequences
+    @Test
+    public void allUsersInIdOrder() {
+        assertIndexed("users", new Document(), new Document("_id", 1), new Document("journalEntries", 1));
+    }
+
+    // JournalChangesService.backfillChangeSequences
+    @Test
+    public void unstampedEntries() {
+        assertIndexed("journal_entries", new Document("_id", new Document("$in", List.of(new ObjectId(), new ObjectId())))
+                .append("ownerId", new Document("$exists", false)), new Document("_id", 1), new Document("_id", 1));
+    }
+
+    // TokenRevocationService.isRevoked
+    @Test
+    public void revokedTokenById() {
+        assertIndexed("revoked_tokens", new Document("_id", "jti:x"), null, null);
+    }
+
+    // TokenRevocationService.refresh
+    @Test
+    public void allRevokedTokenIds() {
+        assertIndexed("revoked_tokens", new Document(), new Document("_id", 1), new Document("_id", 1));
+    }
+
+    // AttachmentService.list / deleteAllFor
+    @Test
+    public void attachmentsByEntry() {
+        assertIndexed("attachments.files", new Document("metadata.entryId", new ObjectId()), null, null);
+    }
+
+    // AttachmentService.find
+    @Test
+    public void attachmentByIdAndEntry() {
+        assertIndexed("attachments.files", new Document("_id", new ObjectId())
+                .append("metadata.entryId", new ObjectId()), null, null);
+    }
+
+    // GridFS download: chunks of one file in order
+    @Test
+    public void attachmentChunks() {
+        assertIndexed("attachments.chunks", new Document("files_id", new ObjectId()), new Document("n", 1), null);
+    }
+
+    private void assertIndexed(String collection, Document filter, Document sort, Document projection) {
+        Document find = new Document("find", collection).append("filter", filter);
+        if (sort != null) {
+            find.append("sort", sort);
+        }
+        if (projection != null) {
+            find.append("projection", projection);
+        }
+        Document explain = mongoTemplate.executeCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+        Object winningPlan = findWinningPlan(explain);
+        assertTrue(winningPlan != null, "no winning plan in " + explain.toJson());
+
+        List<String> stages = new ArrayList<>();
+        collectStages(winningPlan, stages);
+        assertFalse(stages.contains("COLLSCAN"), collection + " " + find.toJson() + " scans the collection: " + stages);
+        assertFalse(stages.contains("SORT"), collection + " " + find.toJson() + " sorts in memory: " + stages);
+    }
+
+    // Top level for plain collections; time-series finds run as an aggregation over the buckets and nest it in a stage.
+    private static Object findWinningPlan(Object node) {
+        if (node instanceof Document document) {
+            if (document.containsKey("winningPlan")) {
+                return document.get("winningPlan");
+            }
+            for (Object value : document.values()) {
+                Object found = findWinningPlan(value);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                Object found = findWinningPlan(value);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Walks inputStage / inputStages / queryPlan (the slot-based engine nests the classic plan there).
+    private static void collectStages(Object node, List<String> stages) {
+        if (node instanceof Document document) {
+            if (document.get("stage") instanceof String stage) {
+                stages.add(stage);
+            }
+            document.values().forEach(value -> collectStages(value, stages));
+        }
+        else if (node instanceof List<?> list) {
+            list.forEach(value -> collectStages(value, stages));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.DeletionJob;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Batches of two, so five entries take three batches (and lease renewals). The scheduled poll only runs at startup.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "account-deletion.batch-size=2",
+        "account-deletion.batch-pause-ms=0",
+        "account-deletion.poll-interval-ms=3600000"
+})
+public class AccountDeletionServiceTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AccountDeletionService accountDeletionService;
+
+    private final ObjectId userId = new ObjectId();
+    private final String username = "deletion-test-" + userId;
+    private final List<ObjectId> entryIds = new ArrayList<>();
+
+    @AfterEach
+    public void clean() {
+        mongoTemplate.getCollection("users").deleteOne(new Document("_id", userId));
+        mongoTemplate.getCollection("journal_entries").deleteMany(new Document("ownerId", userId));
+        mongoTemplate.getCollection("deletion_jobs").deleteOne(new Document("_id", userId));
+    }
+
+    @Test
+    public void aRequestedDeletionIsPurgedInBatches() {
+        user(5);
+        assertTrue(accountDeletionService.requestDeletion(username));
+        assertFalse(accountDeletionService.requestDeletion(username)); // the name is gone already
+        Document renamed = user();
+        assertEquals("deleted:" + userId.toHexString(), renamed.getString("username"));
+        assertNotNull(renamed.getDate("deletedAt"));
+        assertEquals(DeletionJob.Status.PENDING, job().getStatus());
+
+        accountDeletionService.purgePendingJobs();
+        DeletionJob job = job();
+        assertEquals(DeletionJob.Status.DONE, job.getStatus());
+        assertEquals(5L, job.getTotalEntries());
+        assertEquals(5, job.getPurgedEntries());
+        assertNull(user());
+        assertEquals(0, entries());
+    }
+
+    @Test
+    public void aJobWhoseLeaseRanOutIsResumedWhereItStopped() {
+        user(5);
+        // a worker purged the first two entries (and pulled their refs), then died
+        mongoTemplate.getCollection("journal_entries").deleteMany(new Document("_id", new Document("$in", entryIds.subList(0, 2))));
+        mongoTemplate.getCollection("users").updateOne(new Document("_id", userId), new Document("$set",
+                new Document("deletedAt", new Date()).append("journalEntries", refs(entryIds.subList(2, 5)))));
+        Date startedAt = new Date(System.currentTimeMillis() - 60_000);
+        mongoTemplate.insert(job(DeletionJob.Status.RUNNING, "dead worker", new Date(0), startedAt, 2));
+
+        accountDeletionService.purgePendingJobs();
+        DeletionJob job = job();
+        assertEquals(DeletionJob.Status.DONE, job.getStatus());
+        assertEquals(5, job.getPurgedEntries());
+        assertEquals(startedAt, job.getStartedAt()); // claimed again, not started over
+        assertNull(user());
+        assertEquals(0, entries());
+    }
+
+    @Test
+    public void aJobLeasedByALiveWorkerIsLeftAlone() {
+        user(3);
+        mongoTemplate.getCollection("users").updateOne(new Document("_id", userId),
+                new Document("$set", new Document("deletedAt", new Date())));
+        mongoTemplate.insert(job(DeletionJob.Status.RUNNING, "live worker",
+                new Date(System.currentTimeMillis() + 60_000), new Date(), 0));
+
+        accountDeletionService.purgePendingJobs();
+        assertEquals("live worker", job().getLeaseOwner());
+        assertEquals(3, entries());
+    }
+
+    private void user(int entries) {
+        for (int i = 0; i < entries; i++) {
+            ObjectId entryId = new ObjectId();
+            entryIds.add(entryId);
+            mongoTemplate.getCollection("journal_entries").insertOne(new Document("_id", entryId)
+                    .append("ownerId", userId).append("title", "entry " + i));
+        }
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", userId)
+                .append("username", username)
+                .append("password", "x")
+                .append("journalEntries", refs(entryIds)));
+    }
+
+    private static List<DBRef> refs(List<ObjectId> ids) {
+        return ids.stream().map(id -> new DBRef("journal_entries", id)).toList();
+    }
+
+    private DeletionJob job(DeletionJob.Status status, String leaseOwner, Date leaseUntil, Date startedAt, long purged) {
+        DeletionJob job = new DeletionJob();
+        job.setId(userId);
+        job.setUsername(username);
+        job.setStatus(status);
+        job.setCreatedAt(startedAt);
+        job.setStartedAt(startedAt);
+        job.setTotalEntries((long) entryIds.size());
+        job.setPurgedEntries(purged);
+        job.setLeaseOwner(leaseOwner);
+        job.setLeaseUntil(leaseUntil);
+        return job;
+    }
+
+    private DeletionJob job() {
+        return mongoTemplate.findById(userId, DeletionJob.class);
+    }
+
+    private Document user() {
+        return mongoTemplate.getCollection("users").find(new Document("_id", userId)).first();
+    }
+
+    private long entries() {
+        return mongoTemplate.getCollection("journal_entries").countDocuments(new Document("ownerId", userId));
+    }
+}
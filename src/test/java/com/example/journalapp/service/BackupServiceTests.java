@@ -0,0 +1,150 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.cache.JournalEntryCache;
+import com.example.journalapp.entity.DeletionJob;
+import com.example.journalapp.entity.JournalEntry;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against a database of its own: a restore drops and reloads the collections it covers.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "backup.collections=users,journal_entries",
+        "backup.threads=2"
+})
+public class BackupServiceTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private JournalEntryCache journalEntryCache;
+
+    @TempDir
+    private Path dir;
+
+    private final ObjectId userId = new ObjectId();
+    private final ObjectId entryId = new ObjectId();
+    private final ObjectId missingId = new ObjectId();
+    private final ObjectId deletedUserId = new ObjectId();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(backupService, "dir", dir); // backup ids have second precision, one dir per test
+        mongoTemplate.getCollection("users").drop();
+        mongoTemplate.getCollection("journal_entries").drop();
+        mongoTemplate.getCollection("journal_entries").insertOne(new Document("_id", entryId)
+                .append("ownerId", userId).append("title", "kept"));
+        mongoTemplate.getCollection("journal_entries").insertOne(new Document("_id", new ObjectId())
+                .append("ownerId", new ObjectId()).append("title", "no owner"));
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", userId)
+                .append("username", "backup-test-" + userId)
+                .append("password", "x")
+                .append("journalVersion", 5L)
+                .append("journalEntries", List.of(new DBRef("journal_entries", entryId), new DBRef("journal_entries", missingId))));
+    }
+
+    @Test
+    public void restoreRemovesDanglingRefsAndCountsOrphans() throws Exception {
+        BackupService.Job restore = restore(backup());
+
+        assertEquals(BackupService.Status.DONE, restore.getStatus(), restore.getError());
+        assertEquals(1, restore.getDanglingRefsRemoved());
+        assertEquals(List.of(userId + " -> " + missingId), restore.getDanglingRefSamples());
+        assertEquals(1, restore.getOrphanedEntries());
+        Document user = user();
+        assertEquals(List.of(entryId), user.getList("journalEntries", DBRef.class).stream().map(DBRef::getId).toList());
+    }
+
+    @Test
+    public void deletedAccountsWithoutAJobGetOneBack() throws Exception {
+        // deletion_jobs is not in backup.collections here, like a backup taken before it was added
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", deletedUserId)
+                .append("username", "deleted:" + deletedUserId)
+                .append("password", "x")
+                .append("deletedAt", new Date()));
+
+        BackupService.Job restore = restore(backup());
+        assertEquals(1, restore.getDeletionJobsRecreated());
+        DeletionJob job = mongoTemplate.findById(deletedUserId, DeletionJob.class);
+        assertNotNull(job);
+        assertEquals(DeletionJob.Status.PENDING, job.getStatus());
+        mongoTemplate.remove(job); // not for the purge worker of this context
+    }
+
+    @Test
+    public void restoredVersionsStayAboveEveryVersionIssuedBefore() throws Exception {
+        String backupId = backup();
+        // writes after the backup: version 9 (and its ETag) was handed out for content the backup does not have
+        mongoTemplate.getCollection("users").updateOne(new Document("_id", userId),
+                new Document("$set", new Document("journalVersion", 9L)));
+        long before = System.currentTimeMillis();
+
+        restore(backupId);
+        Document user = user();
+        assertEquals(10L, user.get("journalVersion", Number.class).longValue());
+        assertNotNull(user.getDate("journalRestoredAt"));
+        assertTrue(user.getDate("journalRestoredAt").getTime() >= before); // tokens issued before the restore are 410
+    }
+
+    @Test
+    public void restoreEmptiesTheEntryCache() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        journalEntryCache.get(entryId, id -> { loads.incrementAndGet(); return Optional.of(new JournalEntry()); });
+
+        restore(backup());
+        journalEntryCache.get(entryId, id -> { loads.incrementAndGet(); return Optional.of(new JournalEntry()); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void refusesToOverwriteDataWithoutReplace() throws Exception {
+        BackupService.Job restore = await(backupService.startRestore(backup(), false));
+        assertEquals(BackupService.Status.FAILED, restore.getStatus());
+        assertEquals(5L, user().get("journalVersion", Number.class).longValue()); // nothing was touched
+    }
+
+    private String backup() throws Exception {
+        BackupService.Job backup = await(backupService.startBackup());
+        assertEquals(BackupService.Status.DONE, backup.getStatus(), backup.getError());
+        return backup.getBackupId();
+    }
+
+    private BackupService.Job restore(String backupId) throws Exception {
+        BackupService.Job restore = await(backupService.startRestore(backupId, true));
+        assertEquals(BackupService.Status.DONE, restore.getStatus(), restore.getError());
+        return restore;
+    }
+
+    private BackupService.Job await(BackupService.Job job) throws InterruptedException {
+        for (int i = 0; i < 300 && job.getStatus() == BackupService.Status.RUNNING; i++) {
+            Thread.sleep(100);
+        }
+        return job;
+    }
+
+    private Document user() {
+        return mongoTemplate.getCollection("users").find(new Document("_id", userId)).first();
+    }
+}
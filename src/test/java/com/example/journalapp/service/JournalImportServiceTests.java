@@ -0,0 +1,135 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.ImportJob;
+import com.example.journalapp.entity.JournalEntry;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Batches of two entries, so an upload of a few records already takes several writes.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "journal.import.batch-size=2",
+        "journal.import.max-record-size=1KB"
+})
+public class JournalImportServiceTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JournalImportService journalImportService;
+
+    private final ObjectId userId = new ObjectId();
+    private final String username = "import-test-" + userId;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", userId)
+                .append("username", username)
+                .append("password", "x")
+                .append("journalVersion", 0L)
+                .append("journalEntries", List.of()));
+    }
+
+    @AfterEach
+    public void clean() {
+        mongoTemplate.getCollection("users").deleteOne(new Document("_id", userId));
+        mongoTemplate.remove(new Query(where("ownerId").is(userId)), JournalEntry.class);
+        mongoTemplate.remove(new Query(where("ownerId").is(userId)), ImportJob.class);
+    }
+
+    @Test
+    public void ndjsonImportsValidLinesAndReportsTheOthers() throws Exception {
+        String upload = String.join("\n",
+                "{\"title\":\"first\",\"content\":\"a\",\"date\":\"2020-01-02\"}",
+                "{\"title\":\"second\",\"date\":\"2020-01-03T08:30:00\"}",
+                "not json",
+                "",
+                "{\"content\":\"no title\"}",
+                "{\"title\":\"bad date\",\"date\":\"yesterday\"}",
+                "{\"title\":\"third\",\"date\":\"2020-01-04\"}",
+                "{\"title\":\"" + "x".repeat(2000) + "\"}",
+                "{\"title\":\"fourth\",\"date\":\"2020-01-05\"}",
+                "{\"title\":\"fifth\",\"date\":\"2020-01-06\"}");
+
+        ImportJob job = journalImportService.importNdjson(userId, username, utf8(upload));
+        assertEquals(ImportJob.Status.DONE, job.getStatus());
+        assertEquals(9, job.getRecords()); // the blank line is not a record
+        assertEquals(5, job.getImported());
+        assertEquals(4, job.getFailed());
+        assertEquals(List.of(3L, 5L, 6L, 8L), job.getErrors().stream().map(ImportJob.RecordError::record).toList());
+
+        ImportJob saved = journalImportService.findJob(userId, job.getId());
+        assertEquals(5, saved.getImported());
+        assertEquals(4, saved.getErrors().size());
+        assertImported(List.of("first", "second", "third", "fourth", "fifth"));
+        assertEquals(LocalDateTime.of(2020, 1, 3, 8, 30), entry("second").getDate());
+    }
+
+    @Test
+    public void markdownZipSkipsDirectoriesAndReportsOtherFiles() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes, StandardCharsets.UTF_8)) {
+            zip.putNextEntry(new ZipEntry("notes/"));
+            file(zip, "notes/2021-05-01 walk.md", "# By the river\nIt rained.");
+            file(zip, "notes/plain.txt", "---\ntitle: From front matter\ndate: 2021-05-02\n---\nbody");
+            file(zip, "__MACOSX/notes/._plain.txt", "resource fork");
+            file(zip, "notes/.hidden.md", "hidden");
+            file(zip, "notes/photo.png", "png");
+            file(zip, "notes/huge.md", "y".repeat(2000));
+        }
+
+        ImportJob job = journalImportService.importMarkdownZip(userId, username, new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(ImportJob.Status.DONE, job.getStatus());
+        assertEquals(2, job.getImported());
+        assertEquals(List.of("notes/photo.png", "notes/huge.md"),
+                job.getErrors().stream().map(ImportJob.RecordError::name).toList());
+        assertImported(List.of("By the river", "From front matter"));
+        assertEquals("It rained.", entry("By the river").getContent());
+    }
+
+    // Every imported entry is referenced by the user, and the journal version counted each one.
+    private void assertImported(List<String> titles) {
+        List<JournalEntry> entries = mongoTemplate.find(new Query(where("ownerId").is(userId)), JournalEntry.class);
+        assertEquals(titles.stream().sorted().toList(), entries.stream().map(JournalEntry::getTitle).sorted().toList());
+        Document user = mongoTemplate.getCollection("users").find(new Document("_id", userId)).first();
+        assertEquals(entries.stream().map(JournalEntry::getId).sorted().toList(),
+                user.getList("journalEntries", DBRef.class).stream().map(ref -> (ObjectId) ref.getId()).sorted().toList());
+        assertEquals(titles.size(), user.get("journalVersion", Number.class).longValue());
+    }
+
+    private JournalEntry entry(String title) {
+        return mongoTemplate.findOne(new Query(where("ownerId").is(userId).and("title").is(title)), JournalEntry.class);
+    }
+
+    private static void file(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static InputStream utf8(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
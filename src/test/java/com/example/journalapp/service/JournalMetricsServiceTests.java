@@ -0,0 +1,141 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.MetricPoint;
+import com.example.journalapp.entity.MetricRollup;
+import com.example.journalapp.utils.Metrics;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Runs against a database of its own; every test uses a new owner, so points other tests left behind never count.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "journal.metrics.initial-delay-ms=3600000",
+        "journal.metrics.settle-ms=0"
+})
+public class JournalMetricsServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 14);
+    private static final String RUNS = "metric_rollup_runs";
+    private static final String RUN_ID = "rollups";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JournalMetricsService journalMetricsService;
+
+    private final ObjectId owner = new ObjectId();
+
+    @BeforeEach
+    public void clean() {
+        mongoTemplate.getCollection(RUNS).deleteMany(new Document());
+    }
+
+    @Test
+    public void foldsEveryPointIntoEachGranularity() throws Exception {
+        record(4);
+        record(2);
+
+        journalMetricsService.rollUp();
+        for (Metrics.Granularity granularity : Metrics.Granularity.values()) {
+            assertRollup(granularity, 6, 2);
+        }
+        journalMetricsService.rollUp(); // nothing new: nothing changes
+        assertRollup(Metrics.Granularity.DAY, 6, 2);
+    }
+
+    @Test
+    public void aResumedRunRefoldsExactlyThePendingWindow() throws Exception {
+        MetricPoint first = record(4);
+        Date from = new Date(first.getRecordedAt().getTime() - 1);
+        Date to = first.getRecordedAt();
+        // a run that died inside (from, to]: only the day rollup got the window's $inc
+        MetricRollup day = new MetricRollup();
+        day.setId(MetricRollup.idFor(owner, "mood", Metrics.Granularity.DAY, DAY));
+        day.setOwnerId(owner);
+        day.setMetric("mood");
+        day.setGranularity(Metrics.Granularity.DAY);
+        day.setStart(DAY);
+        day.setSum(4);
+        day.setCount(1);
+        day.setAppliedThrough(to);
+        mongoTemplate.insert(day);
+        mongoTemplate.getCollection(RUNS).insertOne(new Document("_id", RUN_ID)
+                .append("through", from)
+                .append("pending", new Document("from", from).append("to", to))
+                .append("leaseOwner", "dead node").append("leaseUntil", new Date(0)));
+        Thread.sleep(5);
+        record(2); // after the window: a recomputed bound would reach it and pass the day rollup's guard
+
+        journalMetricsService.rollUp();
+        for (Metrics.Granularity granularity : Metrics.Granularity.values()) {
+            assertRollup(granularity, 6, 2); // the first point counted once everywhere
+        }
+        assertNull(run().get("pending"));
+    }
+
+    @Test
+    public void aRunWhoseLeaseRanOutIsContinuedFromItsCheckpoint() throws Exception {
+        record(4);
+        Thread.sleep(5);
+        // another node folded up to here and stopped renewing its lease
+        mongoTemplate.getCollection(RUNS).insertOne(new Document("_id", RUN_ID)
+                .append("through", new Date())
+                .append("leaseOwner", "dead node").append("leaseUntil", new Date(0)));
+        Thread.sleep(5);
+        record(2);
+
+        journalMetricsService.rollUp();
+        assertRollup(Metrics.Granularity.DAY, 2, 1); // the point before the checkpoint was that node's
+        assertNotEquals("dead node", run().getString("leaseOwner"));
+    }
+
+    @Test
+    public void aLiveLeaseOfAnotherNodeIsLeftAlone() throws Exception {
+        record(4);
+        mongoTemplate.getCollection(RUNS).insertOne(new Document("_id", RUN_ID)
+                .append("leaseOwner", "other node").append("leaseUntil", new Date(System.currentTimeMillis() + 60_000)));
+
+        journalMetricsService.rollUp();
+        assertNull(rollup(Metrics.Granularity.DAY));
+        assertEquals("other node", run().getString("leaseOwner"));
+    }
+
+    private MetricPoint record(double value) {
+        MetricPoint point = new MetricPoint();
+        point.setMeta(new MetricPoint.Meta(owner, "mood"));
+        point.setDay(DAY);
+        point.setValue(value);
+        point.setCount(1);
+        point.setEntryId(new ObjectId());
+        journalMetricsService.record(List.of(point));
+        return point;
+    }
+
+    private MetricRollup rollup(Metrics.Granularity granularity) {
+        return mongoTemplate.findById(MetricRollup.idFor(owner, "mood", granularity, granularity.start(DAY)), MetricRollup.class);
+    }
+
+    private void assertRollup(Metrics.Granularity granularity, double sum, long count) {
+        MetricRollup rollup = rollup(granularity);
+        assertEquals(sum, rollup.getSum(), granularity.name());
+        assertEquals(count, rollup.getCount(), granularity.name());
+    }
+
+    private Document run() {
+        return mongoTemplate.getCollection(RUNS).find(new Document("_id", RUN_ID)).first();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.JournalRevision;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Every third revision is a snapshot, so a few edits already rebuild across snapshot boundaries.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "journal.revisions.snapshot-every=3"
+})
+public class JournalRevisionServiceTests {
+
+    @Autowired
+    private JournalRevisionService journalRevisionService;
+
+    private final ObjectId entryId = new ObjectId();
+
+    @AfterEach
+    public void clean() {
+        journalRevisionService.deleteAllFor(entryId);
+    }
+
+    @Test
+    public void everyRevisionIsRebuiltFromItsNearestSnapshot() {
+        List<String> versions = new ArrayList<>();
+        String content = "Dear diary, " + "today was long. ".repeat(100); // long enough to be stored compressed
+        versions.add(content);
+        JournalEntry before = entry("title 0", content);
+        for (int i = 1; i <= 8; i++) {
+            // edits at the start, in the middle and at the end of the text
+            content = switch (i % 3) {
+                case 0 -> "(" + i + ") " + content;
+                case 1 -> content.substring(0, content.length() / 2) + " edit " + i + " " + content.substring(content.length() / 2);
+                default -> content.substring(0, content.length() - 5) + " end " + i;
+            };
+            JournalEntry after = entry("title " + i, content);
+            journalRevisionService.recordUpdate(before, after);
+            versions.add(content);
+            before = after;
+        }
+
+        assertEquals(9, journalRevisionService.listRevisions(entryId).size());
+        for (int revision = 0; revision <= 8; revision++) {
+            JournalRevision rebuilt = journalRevisionService.getRevision(entryId, revision);
+            assertEquals(versions.get(revision), rebuilt.getContent(), "revision " + revision);
+            assertEquals("title " + revision, rebuilt.getTitle());
+        }
+        assertNull(journalRevisionService.getRevision(entryId, 9));
+    }
+
+    @Test
+    public void anEditThatChangesNothingIsNotARevision() {
+        journalRevisionService.recordUpdate(entry("t", "same"), entry("t", "same"));
+        assertNull(journalRevisionService.getRevision(entryId, 0));
+    }
+
+    private JournalEntry entry(String title, String content) {
+        JournalEntry entry = new JournalEntry();
+        entry.setId(entryId);
+        entry.setTitle(title);
+        entry.setContent(content);
+        return entry;
+    }
+}
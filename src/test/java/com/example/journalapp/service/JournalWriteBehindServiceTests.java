@@ -0,0 +1,106 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalDeadLetter;
+import com.example.journalapp.entity.JournalEntry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// A long flush interval puts the entries submitted by one test into the same batch.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "journal.write-behind.enabled=true",
+        "journal.write-behind.flush-interval-ms=200"
+})
+public class JournalWriteBehindServiceTests {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private JournalWriteBehindService journalWriteBehindService;
+
+    private final ObjectId existingId = new ObjectId();
+    private final ObjectId missingId = new ObjectId(); // e.g. purged while its entry was queued
+    private final String existing = "write-behind-test-" + existingId;
+    private final String missing = "write-behind-test-" + missingId;
+
+    @BeforeEach
+    public void setUp() {
+        user(existingId, existing);
+    }
+
+    @AfterEach
+    public void clean() {
+        mongoTemplate.getCollection("users").deleteMany(new Document("_id", new Document("$in", List.of(existingId, missingId))));
+        mongoTemplate.remove(new Query(where("ownerId").in(existingId, missingId)), JournalEntry.class);
+        mongoTemplate.remove(new Query(where("ownerId").in(existingId, missingId)), JournalDeadLetter.class);
+    }
+
+    @Test
+    public void onlyTheEntriesThatStillFailAreDeadLettered() throws Exception {
+        JournalEntry kept = entry("kept");
+        JournalEntry parked = entry("parked");
+        assertTrue(journalWriteBehindService.submit(kept, existingId, existing));
+        assertTrue(journalWriteBehindService.submit(parked, missingId, missing));
+
+        await(() -> mongoTemplate.findById(parked.getId(), JournalDeadLetter.class) != null);
+        assertNotNull(mongoTemplate.findById(kept.getId(), JournalEntry.class)); // its owner was committed on its own
+        assertNull(mongoTemplate.findById(kept.getId(), JournalDeadLetter.class));
+        Document owner = mongoTemplate.getCollection("users").find(new Document("_id", existingId)).first();
+        assertEquals(1L, owner.get("journalVersion", Number.class).longValue()); // the failed batch attempts rolled back
+        assertTrue(journalWriteBehindService.pendingFor(existing).isEmpty());
+        assertTrue(journalWriteBehindService.pendingFor(missing).isEmpty());
+    }
+
+    @Test
+    public void aRetriedDeadLetterIsCommittedAndRemoved() throws Exception {
+        JournalEntry parked = entry("parked");
+        assertTrue(journalWriteBehindService.submit(parked, missingId, missing));
+        await(() -> mongoTemplate.findById(parked.getId(), JournalDeadLetter.class) != null);
+
+        user(missingId, missing);
+        assertTrue(journalWriteBehindService.retryDeadLetter(parked.getId()));
+        assertEquals("parked", mongoTemplate.findById(parked.getId(), JournalEntry.class).getTitle());
+        assertNull(mongoTemplate.findById(parked.getId(), JournalDeadLetter.class));
+        assertFalse(journalWriteBehindService.retryDeadLetter(parked.getId()));
+    }
+
+    private void user(ObjectId id, String username) {
+        mongoTemplate.getCollection("users").insertOne(new Document("_id", id)
+                .append("username", username)
+                .append("password", "x")
+                .append("journalVersion", 0L)
+                .append("journalEntries", List.of()));
+    }
+
+    private static JournalEntry entry(String title) {
+        JournalEntry entry = new JournalEntry();
+        entry.setTitle(title);
+        return entry;
+    }
+
+    // The three commit attempts back off for 300 ms in total before an entry is parked.
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
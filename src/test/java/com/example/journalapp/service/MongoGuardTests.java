@@ -0,0 +1,124 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.config.MongoCircuitHealthIndicator;
+import com.example.journalapp.config.ResilienceConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs MongoGuard against the registries ResilienceConfig builds, kept in memory (no Spring context, no Mongo).
+public class MongoGuardTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceConfig config = new ResilienceConfig();
+    private final MongoGuard guard = new MongoGuard(
+            config.circuitBreakerRegistry(meterRegistry, 10, 50, Duration.ofSeconds(1), 80, Duration.ofMinutes(1)),
+            config.bulkheadRegistry(meterRegistry, 1, 1, 1, Duration.ZERO),
+            meterRegistry, 100, Duration.ofMinutes(10));
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private String unavailable() {
+        calls.incrementAndGet();
+        throw new DataAccessResourceFailureException("connection refused");
+    }
+
+    @Test
+    public void failuresOpenTheBreakerAndThenFailFast() {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> guard.call(MongoGuard.READ, this::unavailable));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, guard.circuitBreaker().getState());
+
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                () -> guard.call(MongoGuard.READ, this::unavailable));
+        assertEquals("Database circuit breaker is open", e.getMessage());
+        assertEquals(10, calls.get()); // the last call never reached Mongo
+    }
+
+    @Test
+    public void otherExceptionsPassThroughAndDoNotOpenTheBreaker() {
+        for (int i = 0; i < 10; i++) {
+            assertThrows(DuplicateKeyException.class, () -> guard.call(MongoGuard.WRITE, () -> {
+                throw new DuplicateKeyException("E11000");
+            }));
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, guard.circuitBreaker().getState());
+    }
+
+    @Test
+    public void readServesTheLastGoodValueWhileUnavailable() {
+        assertEquals("fresh", guard.read(MongoGuard.READ, "key", () -> "fresh"));
+        assertEquals("fresh", guard.read(MongoGuard.READ, "key", this::unavailable));
+        guard.circuitBreaker().transitionToOpenState();
+        assertEquals("fresh", guard.read(MongoGuard.READ, "key", this::unavailable));
+        assertEquals(1, calls.get());
+        assertEquals(2.0, meterRegistry.get("mongo.stale.reads").counter().count());
+
+        assertThrows(DatabaseUnavailableException.class, () -> guard.read(MongoGuard.READ, "other", this::unavailable));
+    }
+
+    @Test
+    public void goneOrEvictedValuesAreNotServedStale() {
+        guard.read(MongoGuard.READ, "deleted", () -> "details");
+        assertNull(guard.read(MongoGuard.READ, "deleted", () -> null)); // e.g. the account was deleted
+        guard.read(MongoGuard.READ, "renamed", () -> "details");
+        guard.evict("renamed");
+
+        assertThrows(DatabaseUnavailableException.class, () -> guard.read(MongoGuard.READ, "deleted", this::unavailable));
+        assertThrows(DatabaseUnavailableException.class, () -> guard.read(MongoGuard.READ, "renamed", this::unavailable));
+    }
+
+    @Test
+    public void fullBulkheadIsRejectedWithoutCountingAgainstTheBreaker() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> guard.run(MongoGuard.WRITE, () -> {
+            inside.countDown();
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+        try {
+            DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class,
+                    () -> guard.call(MongoGuard.WRITE, () -> "second"));
+            assertInstanceOf(BulkheadFullException.class, e.getCause());
+            // the other pools are separate
+            assertEquals("read", guard.call(MongoGuard.READ, () -> "read"));
+        }
+        finally {
+            release.countDown();
+            holder.join();
+        }
+        assertEquals(0, guard.circuitBreaker().getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    public void healthIsOutOfServiceWhileTheBreakerIsOpen() {
+        MongoCircuitHealthIndicator health = new MongoCircuitHealthIndicator();
+        ReflectionTestUtils.setField(health, "mongoGuard", guard);
+        assertEquals(Status.UP, health.health().getStatus());
+        guard.circuitBreaker().transitionToOpenState();
+        assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.entity.JournalEntry;
+import com.example.journalapp.entity.OnThisDay;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against a database of its own: generating lists rewrites on_this_day documents and the tests empty collections.
+@SpringBootTest(properties = {
+        "spring.data.mongodb.database=journal_app_tests",
+        "on-this-day.batch-users=2",
+        "on-this-day.initial-delay-ms=3600000"
+})
+public class OnThisDayServiceTests {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 14);
+    private static final String RUNS = "on_this_day_runs";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OnThisDayService onThisDayService;
+
+    @BeforeEach
+    public void clean() {
+        mongoTemplate.remove(new Query(), JournalEntry.class);
+        mongoTemplate.remove(new Query(), OnThisDay.class);
+        mongoTemplate.getCollection(RUNS).deleteMany(new Document());
+    }
+
+    @Test
+    public void generatesOneListPerOwnerOldestFirst() throws Exception {
+        ObjectId a = new ObjectId();
+        ObjectId b = new ObjectId();
+        entry(a, LocalDateTime.of(2021, 3, 14, 8, 0), "later");
+        entry(a, LocalDateTime.of(2019, 3, 14, 22, 0), "earlier");
+        entry(b, LocalDateTime.of(2020, 3, 14, 12, 0), "b");
+        entry(a, LocalDateTime.of(2030, 3, 14, 7, 0), "this year");
+        entry(a, LocalDateTime.of(2019, 3, 15, 7, 0), "other day");
+        entry(null, LocalDateTime.of(2018, 3, 14, 7, 0), "no owner");
+
+        assertTrue(onThisDayService.generate(DAY));
+        assertEquals(List.of("earlier", "later"), titles(a));
+        assertEquals(List.of("b"), titles(b));
+        assertEquals(DAY, mongoTemplate.findById(OnThisDay.idFor(a, "03-14"), OnThisDay.class).getForDate());
+        assertFalse(onThisDayService.generate(DAY)); // done
+    }
+
+    @Test
+    public void longContentIsCutToAnExcerpt() throws Exception {
+        ObjectId owner = new ObjectId();
+        entry(owner, LocalDateTime.of(2020, 3, 14, 8, 0), "x".repeat(300));
+        entry(owner, LocalDateTime.of(2021, 3, 14, 8, 0), "y".repeat(199) + "😀" + "z");
+
+        onThisDayService.generate(DAY);
+        List<OnThisDay.Memory> memories = memories(owner);
+        assertEquals("x".repeat(200) + "…", memories.get(0).excerpt());
+        assertEquals("y".repeat(199) + "…", memories.get(1).excerpt()); // never splits a surrogate pair
+    }
+
+    @Test
+    public void writesInBatchesAndCheckpointsTheLastOwner() throws Exception {
+        List<ObjectId> owners = List.of(new ObjectId(), new ObjectId(), new ObjectId(), new ObjectId(), new ObjectId());
+        owners.forEach(owner -> entry(owner, LocalDateTime.of(2020, 3, 14, 8, 0), "t"));
+
+        onThisDayService.generate(DAY);
+        owners.forEach(owner -> assertEquals(List.of("t"), titles(owner)));
+        Document run = mongoTemplate.getCollection(RUNS).find(new Document("_id", DAY.toString())).first();
+        assertEquals(owners.get(4), run.getObjectId("lastOwnerId"));
+        assertTrue(run.getBoolean("done"));
+    }
+
+    @Test
+    public void resumesAfterTheCheckpoint() throws Exception {
+        List<ObjectId> owners = List.of(new ObjectId(), new ObjectId(), new ObjectId());
+        owners.forEach(owner -> entry(owner, LocalDateTime.of(2020, 3, 14, 8, 0), "t"));
+        // a run that died after writing the first owner, its lease already expired
+        mongoTemplate.getCollection(RUNS).insertOne(new Document("_id", DAY.toString())
+                .append("lastOwnerId", owners.get(0)).append("leaseUntil", new Date(0)));
+
+        assertTrue(onThisDayService.generate(DAY));
+        assertNull(memories(owners.get(0)));
+        assertEquals(List.of("t"), titles(owners.get(1)));
+        assertEquals(List.of("t"), titles(owners.get(2)));
+    }
+
+    @Test
+    public void editsAndDeletesPatchTheList() throws Exception {
+        ObjectId owner = new ObjectId();
+        JournalEntry kept = entry(owner, LocalDateTime.of(2019, 3, 14, 8, 0), "kept");
+        JournalEntry edited = entry(owner, LocalDateTime.of(2020, 3, 14, 8, 0), "old title");
+        onThisDayService.generate(DAY);
+
+        edited.setTitle("new title");
+        edited.setContent("new content");
+        onThisDayService.entryUpdated(edited);
+        assertEquals(List.of("kept", "new title"), titles(owner));
+        assertEquals("new content", memories(owner).get(1).excerpt());
+
+        onThisDayService.entryDeleted(owner, kept.getId(), kept.getDate());
+        assertEquals(List.of("new title"), titles(owner));
+    }
+
+    @Test
+    public void backfillSetsMissingMonthDays() {
+        JournalEntry old = entry(new ObjectId(), LocalDateTime.of(2019, 12, 31, 23, 30), "old");
+        mongoTemplate.getCollection("journal_entries").updateOne(new Document("_id", old.getId()),
+                new Document("$unset", new Document("monthDay", "")));
+
+        assertEquals(1, onThisDayService.backfillMonthDays());
+        assertEquals("12-31", mongoTemplate.findById(old.getId(), JournalEntry.class).getMonthDay());
+    }
+
+    private JournalEntry entry(ObjectId ownerId, LocalDateTime date, String title) {
+        JournalEntry entry = new JournalEntry();
+        entry.setOwnerId(ownerId);
+        entry.setTitle(title);
+        entry.setContent(title);
+        entry.setDate(date);
+        entry.setMonthDay(date.format(OnThisDayService.MONTH_DAY));
+        return mongoTemplate.insert(entry);
+    }
+
+    private List<OnThisDay.Memory> memories(ObjectId owner) {
+        OnThisDay list = mongoTemplate.findById(OnThisDay.idFor(owner, "03-14"), OnThisDay.class);
+        return list != null ? list.getMemories() : null;
+    }
+
+    private List<String> titles(ObjectId owner) {
+        return memories(owner).stream().map(OnThisDay.Memory::title).toList();
+    }
+}
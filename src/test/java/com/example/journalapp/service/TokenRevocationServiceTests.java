@@ -0,0 +1,91 @@
+package com.example.journalapp.service;
+
+import com.example.journalapp.config.ResilienceConfig;
+import com.example.journalapp.entity.RevokedToken;
+import com.example.journalapp.repository.RevokedTokenRepository;
+import com.example.journalapp.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Before the first filter refresh every check goes to the repository, here a map that can be made unavailable.
+public class TokenRevocationServiceTests {
+
+    private static final long REVOKED_AT = 1_760_000_000_300L; // 300 ms into a second
+
+    private final Map<String, RevokedToken> revoked = new ConcurrentHashMap<>();
+    private volatile boolean down;
+    private final TokenRevocationService service = new TokenRevocationService();
+
+    @BeforeEach
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ResilienceConfig config = new ResilienceConfig();
+        MongoGuard guard = new MongoGuard(
+                config.circuitBreakerRegistry(meterRegistry, 10, 50, Duration.ofSeconds(1), 80, Duration.ofMinutes(1)),
+                config.bulkheadRegistry(meterRegistry, 1, 1, 1, Duration.ZERO),
+                meterRegistry, 100, Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(service, "mongoGuard", guard);
+        ReflectionTestUtils.setField(service, "revokedTokenRepository", repository());
+        revoked.put("sub:ved", new RevokedToken("sub:ved", new Date(REVOKED_AT), new Date(REVOKED_AT + JwtUtil.TOKEN_VALIDITY_MS)));
+    }
+
+    private RevokedTokenRepository repository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RevokedTokenRepository.class}, (proxy, method, args) -> {
+                    if (down) {
+                        throw new DataAccessResourceFailureException("connection refused");
+                    }
+                    return switch (method.getName()) {
+                        case "existsById" -> revoked.containsKey((String) args[0]);
+                        case "findById" -> Optional.ofNullable(revoked.get((String) args[0]));
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    };
+                });
+    }
+
+    private static Claims token(long issuedAtMs, boolean withMillis) {
+        var claims = Jwts.claims().subject("ved").id(UUID.randomUUID().toString())
+                .issuedAt(new Date(issuedAtMs / 1000 * 1000)); // "iat" is serialized in whole seconds
+        if (withMillis) {
+            claims.add(JwtUtil.ISSUED_AT_MS, issuedAtMs);
+        }
+        return claims.build();
+    }
+
+    @Test
+    public void aTokenIssuedLaterInTheRevocationsSecondIsAccepted() {
+        assertTrue(service.isRevoked(token(REVOKED_AT - 100, true)));
+        assertTrue(service.isRevoked(token(REVOKED_AT, true)));
+        assertFalse(service.isRevoked(token(REVOKED_AT + 400, true))); // the re-login right after a password change
+        assertFalse(service.isRevoked(token(REVOKED_AT + 1000, true)));
+    }
+
+    @Test
+    public void tokensWithoutMillisecondsFallBackToTheirIat() {
+        assertTrue(service.isRevoked(token(REVOKED_AT + 400, false))); // can't tell it apart from one issued at .000
+        assertFalse(service.isRevoked(token(REVOKED_AT + 1000, false)));
+    }
+
+    @Test
+    public void lookupsFailAsDatabaseUnavailableDuringAnOutage() {
+        down = true;
+        assertThrows(DatabaseUnavailableException.class, () -> service.isRevoked(token(REVOKED_AT + 400, true)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class BoundedLineReaderTests {
+
+    @Test
+    public void splitsOnNewlinesAndCarriageReturnNewlines() throws IOException {
+        assertEquals(List.of("a", "", "bc", "d"), readAll("a\n\r\nbc\r\nd", 10));
+        assertEquals(List.of("a"), readAll("a\n", 10));
+        assertEquals(List.of(), readAll("", 10));
+    }
+
+    @Test
+    public void skipsOverlongLinesAndContinues() throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("12345\n123456\n" + "x".repeat(20_000) + "\nok"), 5);
+        assertEquals("12345", reader.readLine());
+        assertSame(BoundedLineReader.TOO_LONG, reader.readLine());
+        assertSame(BoundedLineReader.TOO_LONG, reader.readLine()); // spans several buffer fills
+        assertEquals("ok", reader.readLine());
+        assertEquals(null, reader.readLine());
+    }
+
+    @Test
+    public void carriageReturnDoesNotCountTowardsTheLimit() throws IOException {
+        assertEquals(List.of("12345", "abc"), readAll("12345\r\nabc", 5));
+    }
+
+    private static List<String> readAll(String input, int maxChars) throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader(input), maxChars);
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lines.add(line);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BsonFrameReaderTests {
+
+    // {} and {"a": 1} as the driver encodes them
+    private static final byte[] EMPTY = {5, 0, 0, 0, 0};
+    private static final byte[] A_IS_1 = {12, 0, 0, 0, 0x10, 'a', 0, 1, 0, 0, 0, 0};
+
+    @Test
+    public void splitsConcatenatedDocuments() throws IOException {
+        BsonFrameReader reader = new BsonFrameReader(new ByteArrayInputStream(concat(A_IS_1, EMPTY, A_IS_1)));
+        assertArrayEquals(A_IS_1, reader.next());
+        assertArrayEquals(EMPTY, reader.next());
+        assertArrayEquals(A_IS_1, reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void readsDocumentsLargerThanOneRead() throws IOException {
+        byte[] large = new byte[300_000];
+        large[0] = (byte) large.length;
+        large[1] = (byte) (large.length >>> 8);
+        large[2] = (byte) (large.length >>> 16);
+        // a stream that hands out at most 1000 bytes per read, like a gzip stream would
+        ByteArrayInputStream bytes = new ByteArrayInputStream(large) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+        assertArrayEquals(large, new BsonFrameReader(bytes).next());
+    }
+
+    @Test
+    public void rejectsTruncatedAndCorruptStreams() {
+        assertThrows(IOException.class, () -> new BsonFrameReader(new ByteArrayInputStream(Arrays.copyOf(A_IS_1, 8))).next());
+        assertThrows(IOException.class, () -> new BsonFrameReader(new ByteArrayInputStream(new byte[]{12, 0})).next());
+        assertThrows(IOException.class, () -> new BsonFrameReader(new ByteArrayInputStream(new byte[]{-1, -1, -1, 127, 0})).next());
+        assertThrows(IOException.class, () -> new BsonFrameReader(new ByteArrayInputStream(new byte[]{5, 0, 0, 0, 1})).next());
+        assertThrows(IOException.class, () -> new BsonFrameReader(new ByteArrayInputStream(A_IS_1), 10).next());
+    }
+
+    private static byte[] concat(byte[]... documents) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] document : documents) {
+            out.writeBytes(document);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ChangeTokenTests {
+
+    @Test
+    public void roundTrips() {
+        ChangeToken token = new ChangeToken("65f1c0ffee0000000000abcd", 42, 1_700_000_000_000L);
+        assertEquals(token, ChangeToken.decode(token.encode()));
+    }
+
+    @Test
+    public void isUrlSafe() {
+        String encoded = new ChangeToken("65f1c0ffee0000000000abcd", Long.MAX_VALUE, Long.MAX_VALUE).encode();
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @Test
+    public void rejectsGarbage() {
+        assertNull(ChangeToken.decode("not base64!"));
+        assertNull(ChangeToken.decode(""));
+        assertNull(ChangeToken.decode(new ChangeToken("owner", 1, 2).encode().substring(3)));
+        assertNull(ChangeToken.decode(Base64.getUrlEncoder().encodeToString("owner:x:1".getBytes())));
+        assertNull(ChangeToken.decode(Base64.getUrlEncoder().encodeToString("owner:-1:1".getBytes())));
+    }
+}
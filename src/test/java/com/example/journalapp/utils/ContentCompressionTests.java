@@ -0,0 +1,45 @@
+package com.example.journalapp.utils;
+
+import com.example.journalapp.entity.CompressedContentConverter;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentCompressionTests {
+
+    private final CompressedContentConverter converter = new CompressedContentConverter();
+
+    @Test
+    public void roundTripsUnicodeText() {
+        String text = "Aaj ka din accha tha 😊 — ".repeat(200);
+        assertEquals(text, ContentCompression.decompress(ContentCompression.compress(text)));
+    }
+
+    @Test
+    public void shortContentStaysAPlainString() {
+        assertEquals("short entry", converter.write("short entry", null));
+    }
+
+    @Test
+    public void longContentIsStoredCompressedAndReadBack() {
+        String text = "dear diary, today was a long day. ".repeat(100);
+        Object stored = converter.write(text, null);
+        assertTrue(stored instanceof Binary);
+        assertTrue(((Binary) stored).length() < text.length());
+        assertEquals(text, converter.read(stored, null));
+    }
+
+    @Test
+    public void legacyUncompressedDocumentsStillRead() {
+        String legacy = "x".repeat(5000);
+        assertEquals(legacy, converter.read(legacy, null));
+    }
+
+    @Test
+    public void unknownFormatMarkerIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ContentCompression.decompress(new byte[]{0x7f, 1, 2}));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MarkdownEntryTests {
+
+    @Test
+    public void readsFrontMatter() {
+        MarkdownEntry entry = MarkdownEntry.parse("journal/whatever.md", """
+                ---
+                title: "A long day"
+                date: 2019-05-01T21:30:00
+                tags: [work, "travel", #berlin]
+                mood: 7
+                ---
+
+                Flew to Berlin.
+                """);
+        assertEquals(new MarkdownEntry("A long day", "Flew to Berlin.", "2019-05-01T21:30:00", List.of("work", "travel", "berlin")), entry);
+    }
+
+    @Test
+    public void takesTheTitleFromTheFirstHeading() {
+        MarkdownEntry entry = MarkdownEntry.parse("2020-02-29.md", "\n# Leap day\r\nNothing happened.\r\n\r\n## Later\r\nStill nothing.");
+        assertEquals("Leap day", entry.title());
+        assertEquals("Nothing happened.\n\n## Later\nStill nothing.", entry.content());
+        assertEquals("2020-02-29", entry.date());
+        assertNull(entry.tags());
+    }
+
+    @Test
+    public void fallsBackToTheFileName() {
+        assertEquals(new MarkdownEntry("Morning pages", "text", "2021-01-02", null),
+                MarkdownEntry.parse("export/2021/2021-01-02 Morning pages.md", "text"));
+        assertEquals(new MarkdownEntry("ideas", "", null, null), MarkdownEntry.parse("ideas.markdown", ""));
+        assertEquals(new MarkdownEntry("2021-01-02", "x", "2021-01-02", null), MarkdownEntry.parse("2021-01-02.md", "x"));
+    }
+
+    @Test
+    public void unterminatedFrontMatterIsContent() {
+        MarkdownEntry entry = MarkdownEntry.parse("notes.md", "---\ntitle: x\nno end");
+        assertEquals("notes", entry.title());
+        assertEquals("---\ntitle: x\nno end", entry.content());
+    }
+}
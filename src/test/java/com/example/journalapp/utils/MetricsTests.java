@@ -0,0 +1,72 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MetricsTests {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 3, 4);
+
+    @Test
+    public void normalizesNamesAndSortsThem() {
+        assertEquals(List.of("mood", "sleep-hours"), List.copyOf(Metrics.normalize(Map.of(" Sleep-Hours", 7.5, "MOOD", 3.0)).keySet()));
+        assertEquals(Map.of(), Metrics.normalize(null));
+    }
+
+    @Test
+    public void rejectsInvalidMetrics() {
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(Map.of("two words", 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(Map.of("mood", Double.NaN)));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(Map.of("mood", Double.POSITIVE_INFINITY)));
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(Map.of("mood", 1.0, "MOOD", 2.0)));
+        Map<String, Double> nullValue = new HashMap<>();
+        nullValue.put("mood", null);
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(nullValue));
+        Map<String, Double> tooMany = new HashMap<>();
+        for (int i = 0; i <= Metrics.MAX_METRICS; i++) {
+            tooMany.put("m" + i, 1.0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Metrics.normalize(tooMany));
+    }
+
+    @Test
+    public void changesOnlyCoverWhatMoved() {
+        assertEquals(List.of(new Metrics.Change("mood", MONDAY, 3.0, 1)),
+                Metrics.changes(null, null, Map.of("mood", 3.0), MONDAY));
+        assertEquals(List.of(), Metrics.changes(Map.of("mood", 3.0), MONDAY, Map.of("mood", 3.0), MONDAY));
+        assertEquals(List.of(new Metrics.Change("mood", MONDAY, -3.0, -1), new Metrics.Change("mood", MONDAY, 4.0, 1)),
+                Metrics.changes(Map.of("mood", 3.0), MONDAY, Map.of("mood", 4.0), MONDAY));
+        assertEquals(List.of(new Metrics.Change("sleep", MONDAY, -8.0, -1)),
+                Metrics.changes(Map.of("sleep", 8.0), MONDAY, Map.of(), MONDAY));
+        assertEquals(List.of(new Metrics.Change("mood", MONDAY, -3.0, -1)),
+                Metrics.changes(Map.of("mood", 3.0), MONDAY, null, null));
+    }
+
+    @Test
+    public void movingTheDayMovesEveryValue() {
+        LocalDate tuesday = MONDAY.plusDays(1);
+        assertEquals(List.of(new Metrics.Change("mood", MONDAY, -3.0, -1), new Metrics.Change("mood", tuesday, 3.0, 1)),
+                Metrics.changes(Map.of("mood", 3.0), MONDAY, Map.of("mood", 3.0), tuesday));
+    }
+
+    @Test
+    public void bucketsStartOnMondayAndOnTheFirst() {
+        LocalDate sunday = MONDAY.plusDays(6);
+        assertEquals(sunday, Metrics.Granularity.DAY.start(sunday));
+        assertEquals(MONDAY, Metrics.Granularity.WEEK.start(sunday));
+        assertEquals(MONDAY, Metrics.Granularity.WEEK.start(MONDAY));
+        assertEquals(LocalDate.of(2024, 3, 1), Metrics.Granularity.MONTH.start(sunday));
+        assertEquals(LocalDate.of(2023, 4, 1), Metrics.Granularity.MONTH.startBefore(sunday, 12));
+        assertEquals(MONDAY.minusWeeks(3), Metrics.Granularity.WEEK.startBefore(sunday, 4));
+        assertEquals(Metrics.Granularity.WEEK, Metrics.Granularity.parse("week"));
+        assertNull(Metrics.Granularity.parse("year"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.journalapp.utils;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PageCursorTests {
+
+    @Test
+    public void roundTrips() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_000_000), new ObjectId());
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        PageCursor wholeMinute = new PageCursor(LocalDateTime.of(2024, 1, 1, 0, 0), new ObjectId());
+        assertEquals(wholeMinute, PageCursor.decode(wholeMinute.encode()));
+    }
+
+    @Test
+    public void isUrlSafe() {
+        String encoded = new PageCursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_000_000), new ObjectId()).encode();
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @Test
+    public void rejectsGarbage() {
+        assertNull(PageCursor.decode("not base64!"));
+        assertNull(PageCursor.decode(""));
+        assertNull(PageCursor.decode(Base64.getUrlEncoder().encodeToString("nothex:2024-01-01T00:00".getBytes())));
+        assertNull(PageCursor.decode(Base64.getUrlEncoder().encodeToString((new ObjectId().toHexString() + ":yesterday").getBytes())));
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    public void allowsBurstUpToCapacityThenRejects() {
+        RateLimiter limiter = new RateLimiter(3, 60, 1000, now::get);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        long wait = limiter.tryAcquire("a");
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1), "should wait at most one refill interval");
+    }
+
+    @Test
+    public void refillsOneTokenPerInterval() {
+        RateLimiter limiter = new RateLimiter(1, 60, 1000, now::get); // one token per second
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.tryAcquire("a"));
+    }
+
+    @Test
+    public void keysHaveIndependentBuckets() {
+        RateLimiter limiter = new RateLimiter(1, 60, 1000, now::get);
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("b"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    public void fullMapSharesOverflowBucketInsteadOfGrowing() {
+        RateLimiter limiter = new RateLimiter(1, 1, 16, now::get); // one key per stripe
+        int allowed = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.tryAcquire("ip-" + i) == 0) {
+                allowed++;
+            }
+        }
+        // at most one tracked key plus one overflow token per stripe
+        assertTrue(allowed <= 32, "a flood of new keys must not bypass the limit, allowed=" + allowed);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTests {
+
+    @Test
+    public void concurrentLoadsShareOneCall() throws Exception {
+        SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        int callers = 8;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> singleFlight.load("ved", key -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return result;
+                })));
+            }
+            // the first caller is blocked in the loader; wait until every other one has joined it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (singleFlight.coalesced() < callers - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Object> future : futures) {
+                assertSame(result, future.get(5, TimeUnit.SECONDS));
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, calls.get());
+        assertEquals(callers - 1, singleFlight.coalesced());
+    }
+
+    @Test
+    public void completedLoadsAreNotRemembered() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals(1, singleFlight.load("a", key -> calls.incrementAndGet()));
+        assertEquals(2, singleFlight.load("a", key -> calls.incrementAndGet()));
+        assertEquals(0, singleFlight.coalesced());
+    }
+
+    @Test
+    public void forgetStartsAFreshLoad() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread before = new Thread(() -> singleFlight.load("v", key -> {
+            started.countDown();
+            await(release);
+            return calls.incrementAndGet();
+        }));
+        before.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        singleFlight.forget("v"); // a write happened while that load was running
+        assertEquals(1, singleFlight.load("v", key -> calls.incrementAndGet()));
+        assertEquals(0, singleFlight.coalesced());
+        release.countDown();
+        before.join();
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void waitersGetTheLoadersException() throws Exception {
+        SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread loader = new Thread(() -> {
+            try {
+                singleFlight.load("x", key -> {
+                    started.countDown();
+                    await(release);
+                    throw new IllegalStateException("mongo down");
+                });
+            }
+            catch (IllegalStateException expected) {
+            }
+        });
+        loader.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Thread releaser = new Thread(() -> {
+            while (singleFlight.coalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        });
+        releaser.start();
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> singleFlight.load("x", key -> "never called"));
+        assertEquals("mongo down", thrown.getMessage());
+        loader.join();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TagsTests {
+
+    @Test
+    public void normalizesCaseWhitespaceAndDuplicates() {
+        assertEquals(List.of("work", "travel-2024", "ünïcode"),
+                Tags.normalize(List.of(" Work", "travel-2024", "WORK ", "ÜNÏCODE")));
+        assertEquals(List.of(), Tags.normalize((List<String>) null));
+    }
+
+    @Test
+    public void rejectsInvalidTags() {
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(List.of("two words")));
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(List.of("  ")));
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(List.of("$where")));
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(Arrays.asList("ok", null)));
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(List.of("x".repeat(Tags.MAX_LENGTH + 1))));
+    }
+
+    @Test
+    public void limitsTheNumberOfTags() {
+        List<String> many = new ArrayList<>();
+        for (int i = 0; i <= Tags.MAX_TAGS; i++) {
+            many.add("t" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> Tags.normalize(many));
+        // duplicates do not count
+        assertEquals(1, Tags.normalize(Collections.nCopies(Tags.MAX_TAGS + 5, "same")).size());
+    }
+
+    @Test
+    public void diffsTagLists() {
+        assertEquals(List.of("b"), Tags.added(List.of("a"), List.of("a", "b")));
+        assertEquals(List.of("b"), Tags.added(List.of("a"), List.of("b", "a")));
+        assertEquals(List.of(), Tags.added(List.of("a", "b"), List.of("a")));
+        assertEquals(List.of("x"), Tags.added(null, List.of("x")));
+        assertEquals(List.of(), Tags.added(List.of("x"), null));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.journalapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TextDeltaTests {
+
+    @Test
+    public void keepsOnlyTheChangedRegion() {
+        TextDelta delta = TextDelta.between("Today was good. I ran 5k.", "Today was great. I ran 5k.");
+        assertEquals(new TextDelta(11, 11, "reat"), delta);
+        assertEquals("Today was great. I ran 5k.", delta.applyTo("Today was good. I ran 5k."));
+    }
+
+    @Test
+    public void appendIsJustTheNewText() {
+        TextDelta delta = TextDelta.between("Dear diary,", "Dear diary, hello");
+        assertEquals(new TextDelta(11, 0, " hello"), delta);
+    }
+
+    @Test
+    public void handlesRepeatedCharactersAndEmptyTexts() {
+        roundTrip("aaaa", "aa");
+        roundTrip("aa", "aaaa");
+        roundTrip("", "new");
+        roundTrip("old", "");
+        roundTrip(null, "x");
+        roundTrip("same", "same");
+    }
+
+    @Test
+    public void neverSplitsSurrogatePairs() {
+        // both emoji share the same high surrogate, so a naive prefix would end in the middle of the pair
+        String from = "mood: 😀";
+        String to = "mood: 😢";
+        TextDelta delta = TextDelta.between(from, to);
+        assertEquals("😢", delta.inserted());
+        assertEquals(to, delta.applyTo(from));
+    }
+
+    @Test
+    public void randomEditsRoundTrip() {
+        Random random = new Random(7);
+        String text = "";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder next = new StringBuilder(text);
+            int at = text.isEmpty() ? 0 : random.nextInt(text.length());
+            int cut = Math.min(random.nextInt(5), text.length() - at);
+            next.delete(at, at + cut);
+            next.insert(at, "ab😀c".substring(0, random.nextInt(6)));
+            String edited = next.toString();
+            roundTrip(text, edited);
+            text = edited;
+        }
+    }
+
+    private static void roundTrip(String from, String to) {
+        assertEquals(to, TextDelta.between(from, to).applyTo(from));
+    }
+}